@@ -0,0 +1,114 @@
+package com.salmonttcorp.benchmark;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.model.TablaCentros;
+import com.salmonttcorp.util.GestorDatos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mide el tiempo de carga de {@link GestorDatos} sobre archivos sintéticos de 10 mil,
+ * 1 millón y 10 millones de filas, en formato simple (6 columnas) y completo (12 columnas).
+ * <p>
+ * El resultado es el tiempo por carga completa del archivo; con {@code -prof gc} se obtiene
+ * además la tasa y el total de memoria asignada por carga ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class CargaBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int filas;
+
+    @Param({"6", "12"})
+    public int columnas;
+
+    private GestorDatos gestor;
+    private Path archivo;
+    private Path instantanea;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        gestor = new GestorDatos();
+        archivo = DatosSinteticos.archivo(filas, columnas);
+        instantanea = archivo.resolveSibling(archivo.getFileName().toString().replace(".csv", ".bin"));
+        gestor.guardarInstantanea(gestor.cargarTablaDesdeArchivo(archivo), instantanea);
+    }
+
+    /**
+     * Carga completa desde disco con el lector proyectado en memoria.
+     */
+    @Benchmark
+    public List<CentroCultivo> cargarDesdeArchivo() {
+        return gestor.cargarDesdeArchivo(archivo);
+    }
+
+    /**
+     * Carga completa repartida en bloques paralelos.
+     */
+    @Benchmark
+    public List<CentroCultivo> cargarDatosEnParalelo() {
+        return gestor.cargarDatosEnParalelo(archivo.toString());
+    }
+
+    /**
+     * Carga columnar desde el CSV, para comparar con abrir la instantánea.
+     */
+    @Benchmark
+    public TablaCentros cargarTablaDesdeArchivo() {
+        return gestor.cargarTablaDesdeArchivo(archivo);
+    }
+
+    /**
+     * Apertura de la instantánea binaria equivalente al archivo.
+     */
+    @Benchmark
+    public TablaCentros cargarInstantanea() {
+        return gestor.cargarInstantanea(instantanea);
+    }
+
+    /**
+     * Producción por comuna leyendo solo esas dos columnas, para comparar con
+     * {@link #cargarTablaDesdeArchivo()}, que interpreta todas.
+     */
+    @Benchmark
+    public Map<String, Long> recorrerColumnas() {
+        Map<String, Long> produccion = new HashMap<>();
+        gestor.recorrerColumnas(archivo, List.of("comuna", "produccion"),
+                fila -> produccion.merge(fila.textoFrecuente(0), (long) fila.entero(1), Long::sum));
+        return produccion;
+    }
+
+    /**
+     * Recorrido perezoso línea a línea, sin retener los centros.
+     */
+    @Benchmark
+    public long cargarStream() {
+        try (Stream<CentroCultivo> centros = gestor.cargarStream(archivo.toString())) {
+            return centros.count();
+        }
+    }
+}
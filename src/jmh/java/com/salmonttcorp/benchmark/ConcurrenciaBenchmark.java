@@ -0,0 +1,189 @@
+package com.salmonttcorp.benchmark;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.service.CentroService;
+import com.salmonttcorp.service.CentroServiceConcurrente;
+import com.salmonttcorp.util.GestorDatos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el rendimiento de {@link CentroServiceConcurrente} con siete hilos lectores (cuatro por
+ * comuna y tres de mayores productores) y un escritor trabajando a la vez.
+ * <p>
+ * Funciona además como prueba de estrés: mientras el escritor publica estados nuevos, cada
+ * lector toma una {@link CentroServiceConcurrente#instantanea()} y verifica sobre ella que sus
+ * índices coincidan con un recorrido de sus centros; uno de cada {@value #VERIFICAR_CADA}
+ * consultas se compara con el recorrido completo, que en 1 millón de filas cuesta unos
+ * milisegundos y se incluye en la medición. Al terminar cada iteración se verifica además
+ * el estado final. La prueba {@code CentroServiceConcurrenteTest} hace la misma verificación
+ * en {@code mvn test}, con varios escritores.
+ * <p>
+ * El escritor recorre un ciclo de alta, modificación y baja sobre centros propios, por lo que
+ * la colección no crece durante la medición.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class ConcurrenciaBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int filas;
+
+    @Param({"Quellón"})
+    public String comuna;
+
+    /** Cada cuántas consultas de un lector se compara el resultado con un recorrido completo. */
+    static final int VERIFICAR_CADA = 64;
+
+    private static final int MAYORES = 100;
+
+    private CentroServiceConcurrente service;
+    private CentroCultivo modelo;
+    private int escrituras;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        List<CentroCultivo> centros = new GestorDatos().cargarDesdeArchivo(DatosSinteticos.archivo(filas, 12));
+        service = new CentroServiceConcurrente(centros);
+        modelo = centros.get(0);
+    }
+
+    /**
+     * Consultas hechas por cada hilo lector.
+     */
+    @State(Scope.Thread)
+    public static class Lector {
+        int consultas;
+
+        boolean verificarAhora() {
+            return ++consultas % VERIFICAR_CADA == 0;
+        }
+    }
+
+    @Benchmark
+    @Group("mixto")
+    @GroupThreads(4)
+    public List<CentroCultivo> buscarPorComuna(Lector lector) {
+        CentroService estado = service.instantanea();
+        List<CentroCultivo> encontrados = estado.buscarPorComuna(comuna);
+
+        if (lector.verificarAhora()) {
+            int esperados = contarEnComuna(estado.centros());
+            if (encontrados.size() != esperados) {
+                throw new IllegalStateException("Índice por comuna inconsistente durante las escrituras: "
+                        + encontrados.size() + " != " + esperados);
+            }
+        }
+        return encontrados;
+    }
+
+    @Benchmark
+    @Group("mixto")
+    @GroupThreads(3)
+    public List<CentroCultivo> mayoresProductores(Lector lector) {
+        CentroService estado = service.instantanea();
+        List<CentroCultivo> mayores = estado.mayoresProductores(MAYORES);
+
+        if (mayores.size() != Math.min(MAYORES, estado.centros().size())) {
+            throw new IllegalStateException("mayoresProductores entregó " + mayores.size() + " centros.");
+        }
+        for (int i = 1; i < mayores.size(); i++) {
+            if (mayores.get(i).getProduccion() > mayores.get(i - 1).getProduccion()) {
+                throw new IllegalStateException("mayoresProductores no está ordenado por producción.");
+            }
+        }
+
+        if (lector.verificarAhora() && !mayores.isEmpty()) {
+            int maxima = Integer.MIN_VALUE;
+            for (CentroCultivo c : estado.centros()) {
+                maxima = Math.max(maxima, c.getProduccion());
+            }
+            if (mayores.get(0).getProduccion() != maxima) {
+                throw new IllegalStateException("Índice de producción inconsistente durante las escrituras: "
+                        + mayores.get(0).getProduccion() + " != " + maxima);
+            }
+        }
+        return mayores;
+    }
+
+    @Benchmark
+    @Group("mixto")
+    @GroupThreads(1)
+    public boolean escribir() {
+        int paso = escrituras++;
+        String nombre = "Centro concurrente " + (paso / 3);
+
+        switch (paso % 3) {
+            case 0:
+                return service.agregar(copia(nombre, paso % 5000));
+            case 1:
+                return service.actualizar(copia(nombre, 5000 + paso % 5000));
+            default:
+                return service.eliminar(nombre);
+        }
+    }
+
+    private CentroCultivo copia(String nombre, int produccion) {
+        return new CentroCultivo(nombre, modelo.getProducto(), produccion,
+                modelo.getDireccion(), modelo.getRutaAsociada());
+    }
+
+    private int contarEnComuna(List<CentroCultivo> centros) {
+        int enComuna = 0;
+        for (CentroCultivo c : centros) {
+            if (c.getDireccion() != null && comuna.equals(c.getDireccion().getComuna())) {
+                enComuna++;
+            }
+        }
+        return enComuna;
+    }
+
+    /**
+     * Verifica que los índices del estado vigente coincidan con un recorrido de sus centros.
+     */
+    @TearDown(Level.Iteration)
+    public void verificar() {
+        CentroService estado = service.instantanea();
+        List<CentroCultivo> centros = estado.centros();
+
+        long produccion = 0;
+        for (CentroCultivo c : centros) {
+            produccion += c.getProduccion();
+        }
+        int enComuna = contarEnComuna(centros);
+
+        if (produccion != estado.produccionTotal()) {
+            throw new IllegalStateException("Índice de producción inconsistente: "
+                    + estado.produccionTotal() + " != " + produccion);
+        }
+        if (enComuna != estado.buscarPorComuna(comuna).size()) {
+            throw new IllegalStateException("Índice por comuna inconsistente: "
+                    + estado.buscarPorComuna(comuna).size() + " != " + enComuna);
+        }
+        if (estado.filtrarPorProduccionMinima(Integer.MIN_VALUE).size() != centros.size()) {
+            throw new IllegalStateException("El índice de producción no cubre todos los centros.");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.salmonttcorp.benchmark;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.service.CentroService;
+import com.salmonttcorp.service.ResumenProduccion;
+import com.salmonttcorp.util.GestorDatos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide cada consulta de {@link CentroService} sobre centros cargados desde archivos
+ * sintéticos en formato completo (12 columnas), que incluyen dirección y ruta.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class ConsultasBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int filas;
+
+    @Param({"Quellón"})
+    public String comuna;
+
+    @Param({"4500"})
+    public int produccionMinima;
+
+    private CentroService service;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GestorDatos gestor = new GestorDatos();
+        service = new CentroService(gestor.cargarDesdeArchivo(DatosSinteticos.archivo(filas, 12)));
+    }
+
+    @Benchmark
+    public List<CentroCultivo> listarTodos() {
+        return service.listarTodos();
+    }
+
+    @Benchmark
+    public List<CentroCultivo> buscarPorComuna() {
+        return service.buscarPorComuna(comuna);
+    }
+
+    @Benchmark
+    public List<CentroCultivo> filtrarPorProduccionMinima() {
+        return service.filtrarPorProduccionMinima(produccionMinima);
+    }
+
+    @Benchmark
+    public List<CentroCultivo> filtrarPorRangoProduccion() {
+        return service.filtrarPorRangoProduccion(produccionMinima, produccionMinima + 100);
+    }
+
+    @Benchmark
+    public List<CentroCultivo> mayoresProductores() {
+        return service.mayoresProductores(100);
+    }
+
+    @Benchmark
+    public List<CentroCultivo> ordenarPorNombre() {
+        return service.ordenarPorNombre();
+    }
+
+    @Benchmark
+    public Map<String, ResumenProduccion> resumirPorComuna() {
+        return service.resumirPorComuna();
+    }
+
+    @Benchmark
+    public Map<String, ResumenProduccion> resumirPorRegion() {
+        return service.resumirPorRegion();
+    }
+
+    @Benchmark
+    public Map<String, ResumenProduccion> resumirPorTipoProducto() {
+        return service.resumirPorTipoProducto();
+    }
+
+    /**
+     * Consulta compuesta: comuna y rango de producción por índice, tipo de producto sin índice.
+     */
+    @Benchmark
+    public List<CentroCultivo> consultaCompuesta() {
+        return service.consulta()
+                .comuna(comuna)
+                .produccionEntre(produccionMinima, produccionMinima + 100)
+                .tipoProducto("Fresco")
+                .ejecutar();
+    }
+
+    @Benchmark
+    public List<CentroCultivo> rutasEntre() {
+        return service.rutasEntre(LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 16));
+    }
+
+    @Benchmark
+    public List<CentroCultivo> proximasRutas() {
+        return service.proximasRutas(LocalDate.of(2025, 3, 10), 20);
+    }
+
+    @Benchmark
+    public Map<String, SortedMap<LocalDate, List<CentroCultivo>>> rutasPorResponsableYSemana() {
+        return service.rutasPorResponsableYSemana(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31));
+    }
+}
@@ -0,0 +1,129 @@
+package com.salmonttcorp.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * Genera archivos sintéticos con la misma forma que {@code datosCentros.csv}
+ * para alimentar los benchmarks.
+ * <p>
+ * Los archivos se escriben una sola vez en {@code target/jmh-datos} y se reutilizan en
+ * ejecuciones posteriores. La semilla es fija, por lo que el contenido es siempre el mismo
+ * para una cantidad de filas y columnas dada.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class DatosSinteticos {
+
+    private static final Path CARPETA = Path.of("target", "jmh-datos");
+
+    private static final long SEMILLA = 20250115L;
+
+    private static final String ENCABEZADO_SIMPLE =
+            "nombreCentro;comuna;produccion;nombreProducto;tipoProducto;precioProducto";
+
+    private static final String ENCABEZADO_COMPLETO = ENCABEZADO_SIMPLE
+            + ";calle;numero;region;nomRuta;responsableRuta;fechaRuta";
+
+    private static final String[] COMUNAS = {
+            "Calbuco", "Ancud", "Dalcahue", "Quellón", "Punta Arenas", "Castro",
+            "Chonchi", "Puerto Montt", "Hualaihué", "Cochamó", "Aysén", "Cisnes"
+    };
+
+    private static final String[] REGIONES = {
+            "Los Lagos", "Los Lagos", "Los Lagos", "Los Lagos", "Magallanes", "Los Lagos",
+            "Los Lagos", "Los Lagos", "Los Lagos", "Los Lagos", "Aysén", "Aysén"
+    };
+
+    private static final String[] PRODUCTOS = {
+            "Salmón Atlántico Premium", "Trucha Arcoíris", "Salmón Coho",
+            "Salmón Atlántico", "Salmón Premium Export"
+    };
+
+    private static final String[] TIPOS = {"Fresco", "Congelado", "Ahumado"};
+
+    private static final String[] CALLES = {
+            "Costanera", "Av. Principal", "Camino Rural", "Puerto", "Costanera Sur"
+    };
+
+    private static final String[] RESPONSABLES = {
+            "Andres Vasquez", "Pedro Ramirez", "Juan Riquelme", "Roberto Salinas",
+            "Javier Donoso", "Camila Soto", "Francisca Mena", "Ignacio Paredes"
+    };
+
+    private DatosSinteticos() {
+    }
+
+    /**
+     * Retorna la ruta del archivo sintético pedido, generándolo si aún no existe.
+     *
+     * @param filas    cantidad de centros (sin contar el encabezado)
+     * @param columnas 6 (formato simple) o 12 (formato completo)
+     * @return ruta del archivo CSV en disco
+     */
+    public static Path archivo(int filas, int columnas) {
+        Path archivo = CARPETA.resolve("centros-" + filas + "-" + columnas + ".csv");
+
+        if (Files.isRegularFile(archivo)) {
+            return archivo;
+        }
+
+        try {
+            Files.createDirectories(CARPETA);
+            Path temporal = Files.createTempFile(CARPETA, "centros", ".tmp");
+            escribir(temporal, filas, columnas);
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return archivo;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void escribir(Path archivo, int filas, int columnas) throws IOException {
+        Random random = new Random(SEMILLA);
+        boolean completo = columnas == 12;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            writer.write(completo ? ENCABEZADO_COMPLETO : ENCABEZADO_SIMPLE);
+            writer.newLine();
+
+            StringBuilder linea = new StringBuilder(160);
+
+            for (int i = 0; i < filas; i++) {
+                int comuna = random.nextInt(COMUNAS.length);
+                linea.setLength(0);
+
+                linea.append("Centro ").append(i).append(';')
+                        .append(COMUNAS[comuna]).append(';')
+                        .append(random.nextInt(5000)).append(';')
+                        .append(PRODUCTOS[random.nextInt(PRODUCTOS.length)]).append(';')
+                        .append(TIPOS[random.nextInt(TIPOS.length)]).append(';')
+                        .append(5000 + random.nextInt(5000));
+
+                if (completo) {
+                    int mes = 1 + random.nextInt(12);
+                    int dia = 1 + random.nextInt(28);
+                    String responsable = RESPONSABLES[random.nextInt(RESPONSABLES.length)];
+
+                    linea.append(';').append(CALLES[random.nextInt(CALLES.length)])
+                            .append(';').append(1 + random.nextInt(2000))
+                            .append(';').append(REGIONES[comuna])
+                            .append(';').append("Ruta ").append(COMUNAS[comuna]).append(' ').append(i)
+                            .append(';').append(responsable)
+                            .append(";2025-").append(mes < 10 ? "0" : "").append(mes)
+                            .append('-').append(dia < 10 ? "0" : "").append(dia);
+                }
+
+                writer.append(linea);
+                writer.newLine();
+            }
+        }
+    }
+}
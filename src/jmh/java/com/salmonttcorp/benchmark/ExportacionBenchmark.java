@@ -0,0 +1,58 @@
+package com.salmonttcorp.benchmark;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.util.ExportadorCentros;
+import com.salmonttcorp.util.GestorDatos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el tiempo de exportar todos los centros en cada formato de {@link ExportadorCentros},
+ * hacia un destino que descarta los bytes. Con {@code -prof gc} se ve que la memoria asignada
+ * por centro no depende de la cantidad exportada.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class ExportacionBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int filas;
+
+    @Param({"CSV", "JSONL", "XLSX"})
+    public ExportadorCentros.Formato formato;
+
+    private List<CentroCultivo> centros;
+    private ExportadorCentros exportador;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        centros = new GestorDatos().cargarDesdeArchivo(DatosSinteticos.archivo(filas, 12));
+        exportador = new ExportadorCentros();
+    }
+
+    @Benchmark
+    public long exportar() throws IOException {
+        return exportador.exportar(centros, OutputStream.nullOutputStream(), formato);
+    }
+}
@@ -0,0 +1,86 @@
+package com.salmonttcorp.benchmark;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.util.EscritorTabla;
+import com.salmonttcorp.util.GestorDatos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el tiempo de imprimir la tabla de centros de {@code Main} con un {@code printf} por
+ * fila y con {@link EscritorTabla}. Ambas variantes escriben los mismos bytes en un destino
+ * que los descarta, para medir solo el armado y la codificación del texto.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class InformeBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int filas;
+
+    private List<CentroCultivo> centros;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        centros = new GestorDatos().cargarDesdeArchivo(DatosSinteticos.archivo(filas, 12));
+    }
+
+    @Benchmark
+    public void printf() {
+        PrintStream salida = new PrintStream(new BufferedOutputStream(OutputStream.nullOutputStream(), 8192),
+                false, StandardCharsets.UTF_8);
+
+        for (CentroCultivo c : centros) {
+            salida.printf("%-20s | %-15s | %-11d | %-27s | %-12s | %-10.1f%n",
+                    c.getNombreCentro(),
+                    c.getDireccion().getComuna(),
+                    c.getProduccion(),
+                    c.getProducto().getNombreProducto(),
+                    c.getProducto().getTipoProducto(),
+                    c.getProducto().getPrecioProducto());
+        }
+        salida.flush();
+    }
+
+    @Benchmark
+    public void escritorTabla() {
+        try (EscritorTabla salida = new EscritorTabla(Channels.newChannel(OutputStream.nullOutputStream()),
+                StandardCharsets.UTF_8)) {
+            salida.columnas(20, 15, 11, 27, 12, 10);
+
+            for (CentroCultivo c : centros) {
+                salida.texto(c.getNombreCentro())
+                        .texto(c.getDireccion().getComuna())
+                        .entero(c.getProduccion())
+                        .texto(c.getProducto().getNombreProducto())
+                        .texto(c.getProducto().getTipoProducto())
+                        .decimal(c.getProducto().getPrecioProducto(), 1)
+                        .finFila();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.salmonttcorp.benchmark;
+
+import com.salmonttcorp.service.CentroService;
+import com.salmonttcorp.service.PlanificadorRutas;
+import com.salmonttcorp.util.GestorDatos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el tiempo de {@link PlanificadorRutas#planificar} sobre archivos sintéticos de 1 mil,
+ * 10 mil y 100 mil centros, con ventanas de una semana, un mes y el año completo.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class PlanificacionBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int filas;
+
+    @Param({"7", "31", "365"})
+    public int dias;
+
+    private CentroService service;
+    private PlanificadorRutas planificador;
+    private LocalDate desde;
+    private LocalDate hasta;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        service = new CentroService(new GestorDatos().cargarDesdeArchivo(DatosSinteticos.archivo(filas, 12)));
+        planificador = new PlanificadorRutas();
+        desde = LocalDate.of(2025, 1, 1);
+        hasta = desde.plusDays(dias - 1);
+    }
+
+    @Benchmark
+    public List<PlanificadorRutas.Recorrido> planificar() {
+        return planificador.planificar(service, desde, hasta);
+    }
+}
@@ -0,0 +1,71 @@
+package com.salmonttcorp.benchmark;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.model.TablaCentros;
+import com.salmonttcorp.util.GestorDatos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la carga de planillas {@code .xlsx} con el lector de eventos, sobre la exportación
+ * XLSX de los archivos sintéticos. Se ejecuta con un heap chico para comprobar que la lectura
+ * no depende de la cantidad de filas (la tabla resultante sí ocupa memoria).
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+public class PlanillaBenchmark {
+
+    @Param({"10000", "500000"})
+    public int filas;
+
+    private GestorDatos gestor;
+    private Path planilla;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        gestor = new GestorDatos();
+        Path archivo = DatosSinteticos.archivo(filas, 12);
+        planilla = archivo.resolveSibling(archivo.getFileName().toString().replace(".csv", ".xlsx"));
+
+        if (!Files.exists(planilla)) {
+            gestor.exportar(gestor.cargarDesdeArchivo(archivo), planilla);
+        }
+    }
+
+    /**
+     * Carga completa como objetos del modelo.
+     */
+    @Benchmark
+    public List<CentroCultivo> cargarDatos() {
+        return gestor.cargarDatos(planilla.toString());
+    }
+
+    /**
+     * Carga columnar, sin construir objetos del modelo.
+     */
+    @Benchmark
+    public TablaCentros cargarTablaDesdeArchivo() {
+        return gestor.cargarTablaDesdeArchivo(planilla);
+    }
+}
@@ -2,6 +2,7 @@ package com.salmonttcorp.app;
 
 import com.salmonttcorp.model.CentroCultivo;
 import com.salmonttcorp.service.CentroService;
+import com.salmonttcorp.util.EscritorTabla;
 import com.salmonttcorp.util.GestorDatos;
 
 import java.util.List;
@@ -46,60 +47,69 @@ public class Main {
         // 2. Creación del servicio de centros
         CentroService service = new CentroService(centros);
 
-        // 3. Lista completa
-        System.out.println("\n=== LISTA COMPLETA DE CENTROS DE CULTIVO ===\n");
-        imprimirTabla(service.listarTodos());
+        // Las tablas se escriben por bloques, no con un printf por fila
+        try (EscritorTabla salida = EscritorTabla.consola()) {
 
-        // 4. Búsqueda por comuna
-        System.out.println("\n=== BÚSQUEDA: Centros de la comuna 'Calbuco' ===\n");
-        imprimirTabla(service.buscarPorComuna("Calbuco"));
+            // 3. Lista completa
+            salida.linea("\n=== LISTA COMPLETA DE CENTROS DE CULTIVO ===\n");
+            imprimirTabla(salida, service.listarTodos());
 
-        // 5. Filtro por producción mínima
-        System.out.println("\n=== FILTRO: Producción >= 1500 ===\n");
-        imprimirTabla(service.filtrarPorProduccionMinima(1500));
+            // 4. Búsqueda por comuna
+            salida.linea("\n=== BÚSQUEDA: Centros de la comuna 'Calbuco' ===\n");
+            imprimirTabla(salida, service.buscarPorComuna("Calbuco"));
 
-        // 6. Lista ordenada por nombre de centro
-        System.out.println("\n=== LISTA ORDENADA POR NOMBRE DE CENTRO ===\n");
-        imprimirTabla(service.ordenarPorNombre());
+            // 5. Filtro por producción mínima
+            salida.linea("\n=== FILTRO: Producción >= 1500 ===\n");
+            imprimirTabla(salida, service.filtrarPorProduccionMinima(1500));
 
-        // 7. Tabla completa mostrando la composición total del dominio
-        System.out.println("\n=== COMPOSICIÓN COMPLETA: CENTRO + PRODUCTO + DIRECCIÓN + RUTA ===\n");
-        imprimirTablaCompleta(centros);
+            // 6. Lista ordenada por nombre de centro
+            salida.linea("\n=== LISTA ORDENADA POR NOMBRE DE CENTRO ===\n");
+            imprimirTabla(salida, service.ordenarPorNombre());
+
+            // 7. Tabla completa mostrando la composición total del dominio
+            salida.linea("\n=== COMPOSICIÓN COMPLETA: CENTRO + PRODUCTO + DIRECCIÓN + RUTA ===\n");
+            imprimirTablaCompleta(salida, centros);
+        }
 
     }
 
     /**
      * Imprime una colección de centros de cultivo en formato tabular.
      *
-     * @param lista lista de centros a mostrar
+     * @param salida escritor de la tabla
+     * @param lista  lista de centros a mostrar
      */
-    private static void imprimirTabla(List<CentroCultivo> lista) {
+    private static void imprimirTabla(EscritorTabla salida, List<CentroCultivo> lista) {
         if (lista == null || lista.isEmpty()) {
-            System.out.println("Sin resultados para mostrar.\n");
+            salida.linea("Sin resultados para mostrar.\n");
             return;
         }
 
-        System.out.printf("%-20s | %-15s | %-11s | %-27s | %-12s | %-10s%n",
-                "CENTRO", "COMUNA", "PRODUCCIÓN", "PRODUCTO", "TIPO", "PRECIO");
-        System.out.println("---------------------------------------------------------------------------------------------");
+        salida.columnas(20, 15, 11, 27, 12, 10);
+        salida.texto("CENTRO").texto("COMUNA").texto("PRODUCCIÓN")
+                .texto("PRODUCTO").texto("TIPO").texto("PRECIO").finFila();
+        salida.linea("---------------------------------------------------------------------------------------------");
 
-        lista.forEach(Main::imprimirFila);
-        System.out.println(); // línea en blanco final
+        for (CentroCultivo c : lista) {
+            imprimirFila(salida, c);
+        }
+        salida.linea(""); // línea en blanco final
     }
 
     /**
      * Imprime una fila correspondiente a un centro de cultivo.
      *
-     * @param c centro de cultivo a mostrar
+     * @param salida escritor de la tabla
+     * @param c      centro de cultivo a mostrar
      */
-    private static void imprimirFila(CentroCultivo c) {
-        System.out.printf("%-20s | %-15s | %-11d | %-27s | %-12s | %-10.1f%n",
-                c.getNombreCentro(),
-                c.getDireccion().getComuna(),
-                c.getProduccion(),
-                c.getProducto().getNombreProducto(),
-                c.getProducto().getTipoProducto(),
-                c.getProducto().getPrecioProducto());
+    private static void imprimirFila(EscritorTabla salida, CentroCultivo c) {
+        salida.texto(c.getNombreCentro())
+                .texto(c.getDireccion().getComuna())
+                .entero(c.getProduccion())
+                .texto(c.getProducto().getNombreProducto())
+                .texto(c.getProducto().getTipoProducto())
+                .decimal(c.getProducto().getPrecioProducto(), 1)
+                .finFila();
     }
 
 
@@ -107,28 +117,31 @@ public class Main {
      * Imprime una tabla mostrando la composición total de cada centro:
      * CentroCultivo -> Producto -> Dirección -> Ruta.
      *
-     * @param lista lista completa de centros a mostrar
+     * @param salida escritor de la tabla
+     * @param lista  lista completa de centros a mostrar
      */
-    private static void imprimirTablaCompleta(List<CentroCultivo> lista) {
+    private static void imprimirTablaCompleta(EscritorTabla salida, List<CentroCultivo> lista) {
 
-        System.out.printf("%-20s | %-25s | %-40s | %-25s | %-25s | %-15s%n",
-                "CENTRO", "PRODUCTO", "DIRECCIÓN", "RUTA", "RESPONSABLE", "FECHA");
+        salida.columnas(20, 25, 40, 25, 25, 15);
+        salida.texto("CENTRO").texto("PRODUCTO").texto("DIRECCIÓN")
+                .texto("RUTA").texto("RESPONSABLE").texto("FECHA").finFila();
 
-        System.out.println("-------------------------------------------------------------------------------------------------------------------------------");
+        salida.linea("-------------------------------------------------------------------------------------------------------------------------------");
 
         for (CentroCultivo c : lista) {
-            imprimirFilaCompleta(c);
+            imprimirFilaCompleta(salida, c);
         }
 
-        System.out.println();
+        salida.linea("");
     }
 
     /**
      * Imprime una fila mostrando todo el contenido del dominio.
      *
-     * @param c centro a mostrar
+     * @param salida escritor de la tabla
+     * @param c      centro a mostrar
      */
-    private static void imprimirFilaCompleta(CentroCultivo c) {
+    private static void imprimirFilaCompleta(EscritorTabla salida, CentroCultivo c) {
 
         String producto = c.getProducto().getNombreProducto();
         String direccion = (c.getDireccion() != null)
@@ -146,14 +159,13 @@ public class Main {
                 ? c.getRutaAsociada().getFecha()
                 : "-";
 
-        System.out.printf("%-20s | %-25s | %-40s | %-25s | %-25s | %-15s%n",
-                c.getNombreCentro(),
-                producto,
-                direccion,
-                ruta,
-                responsable,
-                fecha
-        );
+        salida.texto(c.getNombreCentro())
+                .texto(producto)
+                .texto(direccion)
+                .texto(ruta)
+                .texto(responsable)
+                .texto(fecha)
+                .finFila();
     }
 
 
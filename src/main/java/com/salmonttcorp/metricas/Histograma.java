@@ -0,0 +1,149 @@
+package com.salmonttcorp.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin bloqueos, con la misma idea de cubetas que HdrHistogram.
+ * <p>
+ * Los valores (nanosegundos) menores a {@value #EXACTOS} tienen cubeta propia; sobre eso, cada
+ * potencia de 2 se divide en {@value #SUBCUBETAS} cubetas iguales, así que el error relativo
+ * de un percentil es menor a 1/{@value #SUBCUBETAS} (~1,6%) en todo el rango de {@code long},
+ * con un arreglo fijo de {@value #CUBETAS} contadores.
+ * <p>
+ * Registrar es un incremento atómico en la cubeta y en los totales, sin asignar memoria. Las
+ * lecturas ({@link #percentil(double)}, {@link #cantidad()}...) no detienen a los escritores,
+ * por lo que durante registros concurrentes pueden reflejar un estado levemente desfasado.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class Histograma {
+
+    /** Bits de la subdivisión de cada potencia de 2. */
+    private static final int BITS_SUBCUBETA = 6;
+    static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+
+    /** Valores que se guardan exactos, cada uno en su cubeta. */
+    static final int EXACTOS = 2 * SUBCUBETAS;
+
+    /** Potencias de 2 sobre {@link #EXACTOS}: de 2^7 a 2^62. */
+    static final int CUBETAS = EXACTOS + (63 - (BITS_SUBCUBETA + 1)) * SUBCUBETAS;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra un valor; los negativos cuentan como 0.
+     */
+    public void registrar(long valor) {
+        long v = Math.max(0, valor);
+        cubetas.getAndIncrement(cubeta(v));
+        cantidad.increment();
+        suma.add(v);
+
+        long actual = maximo.get();
+        while (v > actual && !maximo.compareAndSet(actual, v)) {
+            actual = maximo.get();
+        }
+    }
+
+    /**
+     * Registra el tiempo transcurrido desde {@code inicio} (un {@link System#nanoTime()}).
+     */
+    public void registrarDesde(long inicio) {
+        registrar(System.nanoTime() - inicio);
+    }
+
+    /**
+     * Registra el tiempo transcurrido desde {@code inicio} y entrega {@code resultado}, para
+     * medir un método en su {@code return}.
+     */
+    public <T> T medir(long inicio, T resultado) {
+        registrarDesde(inicio);
+        return resultado;
+    }
+
+    static int cubeta(long valor) {
+        if (valor < EXACTOS) {
+            return (int) valor;
+        }
+        int potencia = 63 - Long.numberOfLeadingZeros(valor);
+        int desplazamiento = potencia - BITS_SUBCUBETA;
+        int sub = (int) (valor >>> desplazamiento) - SUBCUBETAS;
+        return EXACTOS + (potencia - BITS_SUBCUBETA - 1) * SUBCUBETAS + sub;
+    }
+
+    /**
+     * @return mayor valor que cae en la cubeta indicada
+     */
+    static long limiteSuperior(int cubeta) {
+        if (cubeta < EXACTOS) {
+            return cubeta;
+        }
+        int potencia = (cubeta - EXACTOS) / SUBCUBETAS + BITS_SUBCUBETA + 1;
+        int desplazamiento = potencia - BITS_SUBCUBETA;
+        long sub = (cubeta - EXACTOS) % SUBCUBETAS + SUBCUBETAS;
+        return ((sub + 1) << desplazamiento) - 1;
+    }
+
+    // ===================== LECTURA ======================
+
+    public long cantidad() {
+        return cantidad.sum();
+    }
+
+    public long suma() {
+        return suma.sum();
+    }
+
+    public long maximo() {
+        return maximo.get();
+    }
+
+    public double media() {
+        long n = cantidad();
+        return (n == 0) ? 0 : (double) suma() / n;
+    }
+
+    /**
+     * @param percentil entre 0 y 100
+     * @return valor bajo el cual queda ese porcentaje de los registros (límite superior de
+     * su cubeta, sin pasar del máximo registrado), o 0 si no hay registros
+     */
+    public long percentil(double percentil) {
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            total += cubetas.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long objetivo = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentil)) / 100));
+        long acumulado = 0;
+
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cubetas.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo());
+            }
+        }
+        return maximo();
+    }
+
+    /**
+     * Vuelve el histograma a cero. Los registros concurrentes con el reinicio pueden
+     * conservarse o perderse.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        cantidad.reset();
+        suma.reset();
+        maximo.set(0);
+    }
+}
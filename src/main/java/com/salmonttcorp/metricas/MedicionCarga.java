@@ -0,0 +1,85 @@
+package com.salmonttcorp.metricas;
+
+/**
+ * Medición de una carga en curso, creada con {@link Metricas#iniciarCarga(String, long)}.
+ * <p>
+ * Al terminar registra, bajo el prefijo {@code carga.<tipo>}:
+ * <ul>
+ *   <li>el histograma {@code .tiempo} con la duración total, y uno por cada fase marcada
+ *       con {@link #fase(String)};</li>
+ *   <li>los contadores {@code .cargas}, {@code .filas}, {@code .bytes} y {@code .asignado}
+ *       (bytes asignados por todos los hilos durante la carga, si la JVM lo informa).</li>
+ * </ul>
+ * Si se cierra con {@link #close()} sin haber llamado a {@link #terminar(long)}, la carga se
+ * registra como fallida: suma 1 a {@code .fallidas} y su duración va al histograma
+ * {@code .fallida}, sin mezclarse con las cargas completas. Por eso conviene abrirla en un
+ * {@code try} con recursos y terminarla al final del camino exitoso.
+ * Una medición se usa desde un solo hilo.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class MedicionCarga implements AutoCloseable {
+
+    private final Metricas metricas;
+    private final String prefijo;
+    private final long bytes;
+    private final long asignadoInicial;
+    private final long inicio;
+    private long inicioFase;
+    private boolean cerrada;
+
+    MedicionCarga(Metricas metricas, String prefijo, long bytes) {
+        this.metricas = metricas;
+        this.prefijo = prefijo;
+        this.bytes = bytes;
+        this.asignadoInicial = Metricas.bytesAsignados();
+        this.inicio = System.nanoTime();
+        this.inicioFase = inicio;
+    }
+
+    /**
+     * Cierra la fase en curso, registrando su duración en {@code carga.<tipo>.<nombre>}.
+     * La siguiente fase comienza ahora.
+     */
+    public void fase(String nombre) {
+        long ahora = System.nanoTime();
+        metricas.histograma(prefijo + "." + nombre).registrar(ahora - inicioFase);
+        inicioFase = ahora;
+    }
+
+    /**
+     * Termina la medición. Las llamadas siguientes, y el {@link #close()} posterior, no registran nada.
+     *
+     * @param filas cantidad de centros cargados
+     */
+    public void terminar(long filas) {
+        if (cerrada) {
+            return;
+        }
+        cerrada = true;
+
+        metricas.histograma(prefijo + ".tiempo").registrarDesde(inicio);
+        metricas.contador(prefijo + ".cargas").increment();
+        metricas.contador(prefijo + ".filas").add(filas);
+        metricas.contador(prefijo + ".bytes").add(bytes);
+
+        long asignadoFinal = Metricas.bytesAsignados();
+        if (asignadoInicial >= 0 && asignadoFinal >= asignadoInicial) {
+            metricas.contador(prefijo + ".asignado").add(asignadoFinal - asignadoInicial);
+        }
+    }
+
+    /**
+     * Registra la carga como fallida si todavía no se terminó.
+     */
+    @Override
+    public void close() {
+        if (cerrada) {
+            return;
+        }
+        cerrada = true;
+
+        metricas.histograma(prefijo + ".fallida").registrarDesde(inicio);
+        metricas.contador(prefijo + ".fallidas").increment();
+    }
+}
@@ -0,0 +1,235 @@
+package com.salmonttcorp.metricas;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de métricas de la aplicación: contadores y histogramas de latencia por nombre.
+ * <p>
+ * Los nombres siguen la forma {@code carga.<tipo>.<medida>} para las cargas de
+ * {@code GestorDatos} y {@code consulta.<método>} para las consultas de {@code CentroService}.
+ * Quien registra en un camino caliente obtiene su {@link Histograma} o contador una vez (por
+ * ejemplo en un campo {@code static final}) y luego solo incrementa, sin buscar por nombre.
+ * <p>
+ * Las métricas se publican de dos formas:
+ * <ul>
+ *   <li>por JMX, como {@value #NOMBRE_JMX} ({@link MetricasMXBean}), para jconsole o un
+ *       recolector;</li>
+ *   <li>como resumen JSON al terminar la ejecución, si se indica la propiedad
+ *       {@code -D}{@value #PROPIEDAD_RESUMEN}{@code =<archivo>} ({@code -} para la salida de
+ *       errores).</li>
+ * </ul>
+ * Autor: Víctor Valenzuela
+ */
+public final class Metricas implements MetricasMXBean {
+
+    public static final String NOMBRE_JMX = "com.salmonttcorp:type=Metricas";
+    public static final String PROPIEDAD_RESUMEN = "salmontt.metricas";
+
+    private static final Metricas GLOBALES = iniciar();
+
+    private final ConcurrentMap<String, LongAdder> contadores = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histograma> histogramas = new ConcurrentHashMap<>();
+
+    private Metricas() {
+    }
+
+    /**
+     * @return registro único de la aplicación
+     */
+    public static Metricas globales() {
+        return GLOBALES;
+    }
+
+    private static Metricas iniciar() {
+        Metricas metricas = new Metricas();
+
+        // Levantar el servidor JMX de la plataforma toma cientos de milisegundos: se hace en
+        // segundo plano para no retrasar la primera carga
+        Thread registro = new Thread(() -> {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metricas, new ObjectName(NOMBRE_JMX));
+            } catch (JMException | SecurityException e) {
+                System.out.println("No se pudieron publicar las métricas por JMX: " + e.getMessage());
+            }
+        }, "salmontt-metricas-jmx");
+        registro.setDaemon(true);
+        registro.start();
+
+        String destino = System.getProperty(PROPIEDAD_RESUMEN);
+        if (destino != null && !destino.isBlank()) {
+            Thread resumen = new Thread(() -> metricas.escribirResumen(destino), "salmontt-metricas");
+            Runtime.getRuntime().addShutdownHook(resumen);
+        }
+
+        return metricas;
+    }
+
+    // ===================== REGISTRO ======================
+
+    /**
+     * @return contador con ese nombre; se crea en cero la primera vez
+     */
+    public LongAdder contador(String nombre) {
+        return contadores.computeIfAbsent(nombre, n -> new LongAdder());
+    }
+
+    /**
+     * @return histograma con ese nombre; se crea vacío la primera vez
+     */
+    public Histograma histograma(String nombre) {
+        return histogramas.computeIfAbsent(nombre, n -> new Histograma());
+    }
+
+    /**
+     * Comienza la medición de una carga.
+     *
+     * @param tipo  tipo de carga, por ejemplo {@code "archivo"} o {@code "tabla"}
+     * @param bytes tamaño de la entrada, o 0 si no se conoce
+     */
+    public MedicionCarga iniciarCarga(String tipo, long bytes) {
+        return new MedicionCarga(this, "carga." + tipo, bytes);
+    }
+
+    /**
+     * Bytes asignados hasta ahora por todos los hilos vivos, o -1 si la JVM no lo informa.
+     * Sirve para estimar cuánto asigna una carga, incluidas las que reparten trabajo entre hilos.
+     */
+    static long bytesAsignados() {
+        ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+        if (!(hilos instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+
+        com.sun.management.ThreadMXBean extendido = (com.sun.management.ThreadMXBean) hilos;
+        if (!extendido.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+
+        long total = 0;
+        for (long asignados : extendido.getThreadAllocatedBytes(extendido.getAllThreadIds())) {
+            total += Math.max(0, asignados);
+        }
+        return total;
+    }
+
+    // ===================== JMX ======================
+
+    @Override
+    public Map<String, Long> getContadores() {
+        Map<String, Long> valores = new TreeMap<>();
+        contadores.forEach((nombre, contador) -> valores.put(nombre, contador.sum()));
+        return valores;
+    }
+
+    @Override
+    public Map<String, Long> getLatencias() {
+        Map<String, Long> valores = new TreeMap<>();
+        histogramas.forEach((nombre, h) -> {
+            valores.put(nombre + ".cantidad", h.cantidad());
+            valores.put(nombre + ".media", Math.round(h.media()));
+            valores.put(nombre + ".p50", h.percentil(50));
+            valores.put(nombre + ".p90", h.percentil(90));
+            valores.put(nombre + ".p99", h.percentil(99));
+            valores.put(nombre + ".p999", h.percentil(99.9));
+            valores.put(nombre + ".maximo", h.maximo());
+        });
+        return valores;
+    }
+
+    @Override
+    public void reiniciar() {
+        contadores.values().forEach(LongAdder::reset);
+        histogramas.values().forEach(Histograma::reiniciar);
+    }
+
+    // ===================== RESUMEN ======================
+
+    /**
+     * Resumen de todas las métricas en JSON, con las latencias en nanosegundos:
+     * <pre>
+     * {"contadores":{"carga.archivo.filas":1000000,...},
+     *  "latencias":{"consulta.buscarPorComuna":{"cantidad":3,"media":1200,"p50":1100,...},...},
+     *  "tasas":{"carga.archivo":{"filasPorSegundo":812345.6,"bytesPorSegundo":9.1E7},...}}
+     * </pre>
+     * Las tasas se calculan por tipo de carga, con las filas y bytes de todas sus cargas sobre
+     * su tiempo total.
+     */
+    public String resumenJson() {
+        StringBuilder json = new StringBuilder(1024);
+        Map<String, Long> valores = getContadores();
+
+        json.append("{\"contadores\":{");
+        String separador = "";
+        for (Map.Entry<String, Long> contador : valores.entrySet()) {
+            json.append(separador).append('"').append(contador.getKey()).append("\":").append(contador.getValue());
+            separador = ",";
+        }
+
+        json.append("},\"latencias\":{");
+        separador = "";
+        for (Map.Entry<String, Histograma> entrada : new TreeMap<>(histogramas).entrySet()) {
+            Histograma h = entrada.getValue();
+            json.append(separador).append('"').append(entrada.getKey()).append("\":{")
+                    .append("\"cantidad\":").append(h.cantidad())
+                    .append(",\"media\":").append(Math.round(h.media()))
+                    .append(",\"p50\":").append(h.percentil(50))
+                    .append(",\"p90\":").append(h.percentil(90))
+                    .append(",\"p99\":").append(h.percentil(99))
+                    .append(",\"p999\":").append(h.percentil(99.9))
+                    .append(",\"maximo\":").append(h.maximo())
+                    .append('}');
+            separador = ",";
+        }
+
+        json.append("},\"tasas\":{");
+        separador = "";
+        for (Map.Entry<String, Histograma> entrada : new TreeMap<>(histogramas).entrySet()) {
+            String nombre = entrada.getKey();
+            if (!nombre.startsWith("carga.") || !nombre.endsWith(".tiempo") || entrada.getValue().suma() == 0) {
+                continue;
+            }
+
+            String tipo = nombre.substring(0, nombre.length() - ".tiempo".length());
+            double segundos = entrada.getValue().suma() / 1e9;
+            json.append(separador).append('"').append(tipo).append("\":{")
+                    .append("\"filasPorSegundo\":").append(valores.getOrDefault(tipo + ".filas", 0L) / segundos)
+                    .append(",\"bytesPorSegundo\":").append(valores.getOrDefault(tipo + ".bytes", 0L) / segundos)
+                    .append('}');
+            separador = ",";
+        }
+
+        return json.append("}}").toString();
+    }
+
+    @Override
+    public String getResumenJson() {
+        return resumenJson();
+    }
+
+    private void escribirResumen(String destino) {
+        String resumen = resumenJson();
+
+        if ("-".equals(destino)) {
+            System.err.println(resumen);
+            return;
+        }
+
+        try {
+            Files.writeString(Path.of(destino), resumen + System.lineSeparator(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("No se pudo escribir el resumen de métricas en " + destino + ": " + e.getMessage());
+        }
+    }
+}
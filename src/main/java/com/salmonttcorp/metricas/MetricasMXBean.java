@@ -0,0 +1,32 @@
+package com.salmonttcorp.metricas;
+
+import java.util.Map;
+
+/**
+ * Vista JMX de {@link Metricas}, registrada como {@value Metricas#NOMBRE_JMX}.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public interface MetricasMXBean {
+
+    /**
+     * @return valor de cada contador, por nombre
+     */
+    Map<String, Long> getContadores();
+
+    /**
+     * @return por cada histograma, {@code <nombre>.cantidad}, {@code .media}, {@code .p50},
+     * {@code .p90}, {@code .p99}, {@code .p999} y {@code .maximo}, en nanosegundos
+     */
+    Map<String, Long> getLatencias();
+
+    /**
+     * @return el mismo resumen que {@link Metricas#resumenJson()}
+     */
+    String getResumenJson();
+
+    /**
+     * Vuelve a cero todos los contadores e histogramas.
+     */
+    void reiniciar();
+}
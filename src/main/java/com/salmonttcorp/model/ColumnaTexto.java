@@ -0,0 +1,25 @@
+package com.salmonttcorp.model;
+
+/**
+ * Columna de textos de una {@link TablaCentros}.
+ * <p>
+ * Permite que la tabla guarde sus textos en un arreglo en memoria o los lea bajo demanda
+ * desde una instantánea binaria proyectada en memoria, sin decodificarlos al cargarla.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+interface ColumnaTexto {
+
+    /**
+     * @param fila posición de la fila
+     * @return texto de la fila, o {@code null} si no tiene valor
+     */
+    String valor(int fila);
+
+    /**
+     * @return columna respaldada por el arreglo indicado (sin copiarlo)
+     */
+    static ColumnaTexto de(String[] valores) {
+        return fila -> valores[fila];
+    }
+}
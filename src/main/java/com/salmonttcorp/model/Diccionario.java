@@ -0,0 +1,71 @@
+package com.salmonttcorp.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diccionario que asigna un código entero correlativo (0, 1, 2, ...) a cada texto distinto.
+ * <p>
+ * Se usa para codificar columnas de baja cardinalidad, como comuna, región o tipo de producto,
+ * de modo que cada fila guarde un {@code int} en lugar de una referencia a un {@link String}
+ * repetido. Los códigos son densos, por lo que sirven directamente como índice de arreglos
+ * al agrupar.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class Diccionario {
+
+    /** Código usado en las columnas cuando el valor no existe (por ejemplo, centros sin dirección). */
+    public static final int SIN_VALOR = -1;
+
+    private final Map<String, Integer> codigos = new HashMap<>();
+    private final List<String> valores = new ArrayList<>();
+
+    /**
+     * Retorna el código del texto indicado, registrándolo si es nuevo.
+     *
+     * @param valor texto a codificar; si es nulo se retorna {@link #SIN_VALOR}
+     * @return código del texto
+     */
+    public int codigo(String valor) {
+        if (valor == null) {
+            return SIN_VALOR;
+        }
+
+        Integer codigo = codigos.get(valor);
+        if (codigo == null) {
+            codigo = valores.size();
+            codigos.put(valor, codigo);
+            valores.add(valor);
+        }
+        return codigo;
+    }
+
+    /**
+     * Busca el código de un texto sin registrarlo.
+     *
+     * @param valor texto a buscar
+     * @return código del texto, o {@link #SIN_VALOR} si no está en el diccionario
+     */
+    public int buscar(String valor) {
+        Integer codigo = (valor == null) ? null : codigos.get(valor);
+        return (codigo == null) ? SIN_VALOR : codigo;
+    }
+
+    /**
+     * @param codigo código a decodificar
+     * @return texto asociado, o {@code null} si el código es {@link #SIN_VALOR}
+     */
+    public String valor(int codigo) {
+        return (codigo == SIN_VALOR) ? null : valores.get(codigo);
+    }
+
+    /**
+     * @return cantidad de textos distintos registrados
+     */
+    public int tamano() {
+        return valores.size();
+    }
+}
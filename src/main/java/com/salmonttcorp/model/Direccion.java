@@ -78,8 +78,7 @@ public class Direccion {
      */
     @Override
     public String toString() {
-        return String.format("%s %s, %s, %s",
-                calle, numero, comuna, region);
+        return calle + " " + numero + ", " + comuna + ", " + region;
     }
 }
 
@@ -0,0 +1,322 @@
+package com.salmonttcorp.model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Formato binario compacto para guardar una {@link TablaCentros} y volver a abrirla
+ * sin interpretar el CSV original.
+ * <p>
+ * Estructura del archivo (enteros big-endian):
+ * <pre>
+ *   encabezado   : "SALM" | versión (int) | filas (int)
+ *   diccionarios : 7 x [ cantidad (int) | cantidad x ( largo (int) | bytes UTF-8 ) ]
+ *   producción   : filas x int
+ *   precio       : filas x double
+ *   códigos      : 7 x ( filas x int )
+ *   textos       : 3 x [ filas x inicio (int) | filas x largo (int, -1 si es nulo)
+ *                        | total de bytes (int) | bytes UTF-8 ]
+ * </pre>
+ * El orden de los diccionarios y columnas es el de {@code TablaCentros#columnasCodificadas()}
+ * y {@code TablaCentros#columnasTexto()}.
+ * <p>
+ * Al leer, el archivo se proyecta en memoria: las columnas numéricas se copian en bloque
+ * y los textos de alta cardinalidad (nombre del centro, número y ruta) no se decodifican,
+ * sino que se leen desde la proyección al pedirlos. Así, abrir una instantánea cuesta
+ * poco más que copiar los arreglos primitivos.
+ * <p>
+ * Cada cantidad y largo leído del archivo se compara con los bytes que quedan antes de reservar
+ * memoria, y los códigos y posiciones de texto se validan al abrirla: una instantánea dañada
+ * se informa con {@link IOException} al leerla, no con errores al consultar la tabla.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class InstantaneaCentros {
+
+    /** "SALM" en ASCII. */
+    private static final int MAGICO = 0x53414C4D;
+
+    /** Versión del formato; cambia si cambia la estructura del archivo. */
+    static final int VERSION = 1;
+
+    private static final int NULO = -1;
+
+    /** Bytes que ocupa como mínimo cada fila: producción, precio, 7 códigos y 3 pares inicio-largo. */
+    private static final int BYTES_POR_FILA = Integer.BYTES + Double.BYTES + 7 * Integer.BYTES + 3 * 2 * Integer.BYTES;
+
+    private InstantaneaCentros() {
+    }
+
+    // ===================== ESCRITURA ======================
+
+    /**
+     * Escribe la tabla en el archivo indicado. Se escribe primero un archivo temporal en la
+     * misma carpeta y luego se reemplaza el destino, para no dejar instantáneas a medias.
+     *
+     * @param tabla   tabla a guardar
+     * @param archivo ruta del archivo de destino
+     * @throws IOException si no se puede escribir el archivo
+     */
+    public static void escribir(TablaCentros tabla, Path archivo) throws IOException {
+        if (tabla == null) {
+            throw new IllegalArgumentException("La tabla de centros no puede ser nula.");
+        }
+
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        Files.createDirectories(carpeta);
+        Path temporal = Files.createTempFile(carpeta, "instantanea", ".tmp");
+
+        try {
+            try (DataOutputStream salida = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporal), 1 << 16))) {
+                escribir(tabla, salida);
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private static void escribir(TablaCentros tabla, DataOutputStream salida) throws IOException {
+        int filas = tabla.filas();
+
+        salida.writeInt(MAGICO);
+        salida.writeInt(VERSION);
+        salida.writeInt(filas);
+
+        for (Diccionario diccionario : tabla.diccionarios()) {
+            salida.writeInt(diccionario.tamano());
+            for (int codigo = 0; codigo < diccionario.tamano(); codigo++) {
+                byte[] bytes = diccionario.valor(codigo).getBytes(StandardCharsets.UTF_8);
+                salida.writeInt(bytes.length);
+                salida.write(bytes);
+            }
+        }
+
+        escribirEnteros(salida, tabla.columnaProduccion(), filas);
+
+        double[] precios = tabla.columnaPrecio();
+        for (int fila = 0; fila < filas; fila++) {
+            salida.writeDouble(precios[fila]);
+        }
+
+        for (int[] codigos : tabla.columnasCodificadas()) {
+            escribirEnteros(salida, codigos, filas);
+        }
+
+        for (ColumnaTexto columna : tabla.columnasTexto()) {
+            escribirTextos(salida, columna, filas);
+        }
+    }
+
+    private static void escribirEnteros(DataOutputStream salida, int[] valores, int filas) throws IOException {
+        for (int fila = 0; fila < filas; fila++) {
+            salida.writeInt(valores[fila]);
+        }
+    }
+
+    private static void escribirTextos(DataOutputStream salida, ColumnaTexto columna, int filas) throws IOException {
+        int[] inicios = new int[filas];
+        int[] largos = new int[filas];
+        ByteArrayOutputStream contenido = new ByteArrayOutputStream(filas * 16);
+
+        for (int fila = 0; fila < filas; fila++) {
+            String valor = columna.valor(fila);
+            inicios[fila] = contenido.size();
+
+            if (valor == null) {
+                largos[fila] = NULO;
+            } else {
+                byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+                largos[fila] = bytes.length;
+                contenido.write(bytes);
+            }
+        }
+
+        escribirEnteros(salida, inicios, filas);
+        escribirEnteros(salida, largos, filas);
+        salida.writeInt(contenido.size());
+        contenido.writeTo(salida);
+    }
+
+    // ===================== LECTURA ======================
+
+    /**
+     * Abre una instantánea proyectándola en memoria.
+     *
+     * @param archivo ruta de la instantánea
+     * @return tabla equivalente a la que se guardó
+     * @throws IOException si el archivo no existe, no es una instantánea, es de otra versión,
+     *                     está incompleto o dañado
+     */
+    public static TablaCentros leer(Path archivo) throws IOException {
+        ByteBuffer datos;
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("La instantánea supera el tamaño máximo de 2 GB: " + archivo);
+            }
+            // La proyección sigue siendo válida después de cerrar el canal
+            datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+
+        try {
+            return leer(datos, archivo);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("La instantánea está incompleta: " + archivo, e);
+        }
+    }
+
+    private static TablaCentros leer(ByteBuffer datos, Path archivo) throws IOException {
+        if (datos.remaining() < 12 || datos.getInt() != MAGICO) {
+            throw new IOException("El archivo no es una instantánea de centros: " + archivo);
+        }
+
+        int version = datos.getInt();
+        if (version != VERSION) {
+            throw new IOException("Versión de instantánea no soportada (" + version
+                    + ", se esperaba " + VERSION + "): " + archivo);
+        }
+
+        int filas = datos.getInt();
+        validar(filas >= 0 && (long) filas * BYTES_POR_FILA <= datos.remaining(),
+                "cantidad de filas inválida (" + filas + ")", archivo);
+
+        Diccionario[] diccionarios = new Diccionario[7];
+        for (int d = 0; d < diccionarios.length; d++) {
+            diccionarios[d] = leerDiccionario(datos, archivo);
+        }
+
+        int[] produccion = leerEnteros(datos, filas, archivo);
+
+        validar((long) filas * Double.BYTES <= datos.remaining(), "columna de precios incompleta", archivo);
+        double[] precios = new double[filas];
+        datos.asDoubleBuffer().get(precios);
+        datos.position(datos.position() + filas * Double.BYTES);
+
+        int[][] codificadas = new int[7][];
+        for (int c = 0; c < codificadas.length; c++) {
+            codificadas[c] = leerEnteros(datos, filas, archivo);
+            validarCodigos(codificadas[c], diccionarios[c].tamano(), archivo);
+        }
+
+        ColumnaTexto[] textos = new ColumnaTexto[3];
+        for (int t = 0; t < textos.length; t++) {
+            textos[t] = leerTextos(datos, filas, archivo);
+        }
+
+        return new TablaCentros(filas, produccion, precios, codificadas, diccionarios, textos);
+    }
+
+    private static Diccionario leerDiccionario(ByteBuffer datos, Path archivo) throws IOException {
+        Diccionario diccionario = new Diccionario();
+        int cantidad = datos.getInt();
+        // Cada valor ocupa al menos los 4 bytes de su largo
+        validar(cantidad >= 0 && cantidad <= datos.remaining() / Integer.BYTES,
+                "cantidad de valores de diccionario inválida (" + cantidad + ")", archivo);
+
+        for (int i = 0; i < cantidad; i++) {
+            int largo = datos.getInt();
+            validar(largo >= 0 && largo <= datos.remaining(), "largo de texto inválido (" + largo + ")", archivo);
+
+            byte[] bytes = new byte[largo];
+            datos.get(bytes);
+            // Los valores se escribieron en orden de código, por lo que se reasignan igual
+            diccionario.codigo(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return diccionario;
+    }
+
+    private static int[] leerEnteros(ByteBuffer datos, int filas, Path archivo) throws IOException {
+        validar((long) filas * Integer.BYTES <= datos.remaining(), "columna de enteros incompleta", archivo);
+
+        int[] valores = new int[filas];
+        datos.asIntBuffer().get(valores);
+        datos.position(datos.position() + filas * Integer.BYTES);
+        return valores;
+    }
+
+    private static void validarCodigos(int[] codigos, int tamano, Path archivo) throws IOException {
+        for (int codigo : codigos) {
+            if (codigo != Diccionario.SIN_VALOR && (codigo < 0 || codigo >= tamano)) {
+                validar(false, "código fuera del diccionario (" + codigo + ")", archivo);
+            }
+        }
+    }
+
+    private static ColumnaTexto leerTextos(ByteBuffer datos, int filas, Path archivo) throws IOException {
+        IntBuffer inicios = seccion(datos, filas * Integer.BYTES, archivo).asIntBuffer();
+        IntBuffer largos = seccion(datos, filas * Integer.BYTES, archivo).asIntBuffer();
+        ByteBuffer contenido = seccion(datos, datos.getInt(), archivo);
+
+        // Se valida cada fila al abrir, para que las lecturas posteriores no fallen
+        int total = contenido.capacity();
+        for (int fila = 0; fila < filas; fila++) {
+            int inicio = inicios.get(fila);
+            int largo = largos.get(fila);
+            if (largo != NULO && (largo < 0 || inicio < 0 || (long) inicio + largo > total)) {
+                validar(false, "texto fuera de su sección en la fila " + fila, archivo);
+            }
+        }
+
+        return new TextosProyectados(inicios, largos, contenido);
+    }
+
+    /**
+     * Retorna los próximos {@code largo} bytes como un búfer independiente y avanza la posición.
+     */
+    private static ByteBuffer seccion(ByteBuffer datos, int largo, Path archivo) throws IOException {
+        validar(largo >= 0 && largo <= datos.remaining(), "sección de textos inválida (" + largo + " bytes)", archivo);
+
+        ByteBuffer seccion = datos.slice(datos.position(), largo);
+        datos.position(datos.position() + largo);
+        return seccion;
+    }
+
+    private static void validar(boolean condicion, String problema, Path archivo) throws IOException {
+        if (!condicion) {
+            throw new IOException("La instantánea está dañada, " + problema + ": " + archivo);
+        }
+    }
+
+    /**
+     * Columna de textos que se decodifica desde la proyección al acceder a cada fila.
+     * Solo usa lecturas absolutas, por lo que puede leerse desde varios hilos.
+     */
+    private static final class TextosProyectados implements ColumnaTexto {
+
+        private final IntBuffer inicios;
+        private final IntBuffer largos;
+        private final ByteBuffer contenido;
+
+        TextosProyectados(IntBuffer inicios, IntBuffer largos, ByteBuffer contenido) {
+            this.inicios = inicios;
+            this.largos = largos;
+            this.contenido = contenido;
+        }
+
+        @Override
+        public String valor(int fila) {
+            int largo = largos.get(fila);
+            if (largo == NULO) {
+                return null;
+            }
+
+            byte[] bytes = new byte[largo];
+            contenido.get(inicios.get(fila), bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
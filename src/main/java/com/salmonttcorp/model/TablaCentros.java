@@ -0,0 +1,497 @@
+package com.salmonttcorp.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Representación columnar (estructura de arreglos) de un conjunto de centros de cultivo.
+ * <p>
+ * En vez de un objeto {@link CentroCultivo} con sus {@link Producto}, {@link Direccion} y
+ * {@link Ruta} por fila, cada atributo se guarda en su propio arreglo:
+ * producción en un {@code int[]}, precio en un {@code double[]} y los textos de baja
+ * cardinalidad (producto, tipo, comuna, región, calle, responsable y fecha) como códigos
+ * {@code int} de un {@link Diccionario}. Solo el nombre del centro, el número de la dirección
+ * y el nombre de la ruta, que casi no se repiten, se mantienen como {@link String}.
+ * <p>
+ * Así, recorrer millones de centros para sumar o agrupar es un barrido secuencial sobre
+ * arreglos primitivos, y el heap ocupado es una fracción del modelo de objetos.
+ * <p>
+ * Cuando se necesita el modelo completo, {@link #centro(int)} construye el
+ * {@link CentroCultivo} de una fila bajo demanda.
+ * <p>
+ * Una tabla es inmutable; se arma con {@link Acumulador}, con {@link #desde(List)} o
+ * leyendo una {@link InstantaneaCentros}.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class TablaCentros {
+
+    private final int filas;
+
+    private final ColumnaTexto nombreCentro;
+    private final int[] produccion;
+    private final double[] precioProducto;
+    private final int[] nombreProducto;
+    private final int[] tipoProducto;
+    private final int[] comuna;
+    private final int[] calle;
+    private final ColumnaTexto numero;
+    private final int[] region;
+    private final ColumnaTexto nomRuta;
+    private final int[] responsable;
+    private final int[] fecha;
+
+    private final Diccionario productos;
+    private final Diccionario tipos;
+    private final Diccionario comunas;
+    private final Diccionario calles;
+    private final Diccionario regiones;
+    private final Diccionario responsables;
+    private final Diccionario fechas;
+
+    private TablaCentros(Acumulador a) {
+        this.filas = a.filas;
+        this.nombreCentro = ColumnaTexto.de(Arrays.copyOf(a.nombreCentro, filas));
+        this.produccion = Arrays.copyOf(a.produccion, filas);
+        this.precioProducto = Arrays.copyOf(a.precioProducto, filas);
+        this.nombreProducto = Arrays.copyOf(a.nombreProducto, filas);
+        this.tipoProducto = Arrays.copyOf(a.tipoProducto, filas);
+        this.comuna = Arrays.copyOf(a.comuna, filas);
+        this.calle = Arrays.copyOf(a.calle, filas);
+        this.numero = ColumnaTexto.de(Arrays.copyOf(a.numero, filas));
+        this.region = Arrays.copyOf(a.region, filas);
+        this.nomRuta = ColumnaTexto.de(Arrays.copyOf(a.nomRuta, filas));
+        this.responsable = Arrays.copyOf(a.responsable, filas);
+        this.fecha = Arrays.copyOf(a.fecha, filas);
+        this.productos = a.productos;
+        this.tipos = a.tipos;
+        this.comunas = a.comunas;
+        this.calles = a.calles;
+        this.regiones = a.regiones;
+        this.responsables = a.responsables;
+        this.fechas = a.fechas;
+    }
+
+    /**
+     * Construye una tabla a partir de columnas ya armadas, por ejemplo leídas desde una
+     * {@link InstantaneaCentros}. El orden de los arreglos es el de {@link #columnasCodificadas()},
+     * {@link #diccionarios()} y {@link #columnasTexto()}.
+     */
+    TablaCentros(int filas, int[] produccion, double[] precioProducto,
+                 int[][] codificadas, Diccionario[] diccionarios, ColumnaTexto[] textos) {
+        this.filas = filas;
+        this.produccion = produccion;
+        this.precioProducto = precioProducto;
+        this.nombreProducto = codificadas[0];
+        this.tipoProducto = codificadas[1];
+        this.comuna = codificadas[2];
+        this.calle = codificadas[3];
+        this.region = codificadas[4];
+        this.responsable = codificadas[5];
+        this.fecha = codificadas[6];
+        this.productos = diccionarios[0];
+        this.tipos = diccionarios[1];
+        this.comunas = diccionarios[2];
+        this.calles = diccionarios[3];
+        this.regiones = diccionarios[4];
+        this.responsables = diccionarios[5];
+        this.fechas = diccionarios[6];
+        this.nombreCentro = textos[0];
+        this.numero = textos[1];
+        this.nomRuta = textos[2];
+    }
+
+    /**
+     * Construye la tabla columnar equivalente a una lista de centros.
+     *
+     * @param centros lista de centros; puede ser nula
+     * @return tabla con una fila por centro, en el mismo orden
+     */
+    public static TablaCentros desde(List<CentroCultivo> centros) {
+        Acumulador acumulador = new Acumulador();
+
+        if (centros != null) {
+            for (CentroCultivo c : centros) {
+                acumulador.agregar(c);
+            }
+        }
+
+        return acumulador.construir();
+    }
+
+    // ===================== ACCESO POR FILA ======================
+
+    public int filas() {
+        return filas;
+    }
+
+    public String nombreCentro(int fila) {
+        return nombreCentro.valor(fila);
+    }
+
+    public int produccion(int fila) {
+        return produccion[fila];
+    }
+
+    public double precioProducto(int fila) {
+        return precioProducto[fila];
+    }
+
+    public String nombreProducto(int fila) {
+        return productos.valor(nombreProducto[fila]);
+    }
+
+    public String tipoProducto(int fila) {
+        return tipos.valor(tipoProducto[fila]);
+    }
+
+    /**
+     * @return comuna de la fila; en el formato simple es la comuna informada
+     * aunque el centro no tenga {@link Direccion}
+     */
+    public String comuna(int fila) {
+        return comunas.valor(comuna[fila]);
+    }
+
+    public String calle(int fila) {
+        return calles.valor(calle[fila]);
+    }
+
+    public String numero(int fila) {
+        return numero.valor(fila);
+    }
+
+    public String region(int fila) {
+        return regiones.valor(region[fila]);
+    }
+
+    public String nomRuta(int fila) {
+        return nomRuta.valor(fila);
+    }
+
+    public String responsable(int fila) {
+        return responsables.valor(responsable[fila]);
+    }
+
+    public String fecha(int fila) {
+        return fechas.valor(fecha[fila]);
+    }
+
+    /**
+     * @return {@code true} si la fila tiene dirección (formato completo)
+     */
+    public boolean tieneDireccion(int fila) {
+        return calle[fila] != Diccionario.SIN_VALOR;
+    }
+
+    /**
+     * @return {@code true} si la fila tiene ruta asociada
+     */
+    public boolean tieneRuta(int fila) {
+        return nomRuta.valor(fila) != null;
+    }
+
+    // ===================== CÓDIGOS DE DICCIONARIO ======================
+
+    public int codigoTipoProducto(int fila) {
+        return tipoProducto[fila];
+    }
+
+    public int codigoComuna(int fila) {
+        return comuna[fila];
+    }
+
+    public int codigoRegion(int fila) {
+        return region[fila];
+    }
+
+    public int codigoResponsable(int fila) {
+        return responsable[fila];
+    }
+
+    public Diccionario tiposProducto() {
+        return tipos;
+    }
+
+    public Diccionario comunas() {
+        return comunas;
+    }
+
+    public Diccionario regiones() {
+        return regiones;
+    }
+
+    public Diccionario responsables() {
+        return responsables;
+    }
+
+    // ===================== COLUMNAS (USO INTERNO) ======================
+
+    /*
+     * Acceso a las columnas completas, sin copiarlas, para que InstantaneaCentros
+     * pueda escribirlas tal cual.
+     */
+
+    int[] columnaProduccion() {
+        return produccion;
+    }
+
+    double[] columnaPrecio() {
+        return precioProducto;
+    }
+
+    /**
+     * @return columnas codificadas en orden: producto, tipo, comuna, calle, región, responsable y fecha
+     */
+    int[][] columnasCodificadas() {
+        return new int[][]{nombreProducto, tipoProducto, comuna, calle, region, responsable, fecha};
+    }
+
+    /**
+     * @return diccionarios en el mismo orden que {@link #columnasCodificadas()}
+     */
+    Diccionario[] diccionarios() {
+        return new Diccionario[]{productos, tipos, comunas, calles, regiones, responsables, fechas};
+    }
+
+    /**
+     * @return columnas de texto en orden: nombre del centro, número de dirección y nombre de ruta
+     */
+    ColumnaTexto[] columnasTexto() {
+        return new ColumnaTexto[]{nombreCentro, numero, nomRuta};
+    }
+
+    // ===================== MODELO DE OBJETOS ======================
+
+    /**
+     * Construye el {@link CentroCultivo} de una fila, con su producto, dirección y ruta.
+     * Cada llamada crea objetos nuevos.
+     *
+     * @param fila posición de la fila
+     * @return centro equivalente al cargado originalmente
+     */
+    public CentroCultivo centro(int fila) {
+        Producto producto = new Producto(nombreProducto(fila), tipoProducto(fila), precioProducto[fila]);
+
+        if (!tieneDireccion(fila)) {
+            return new CentroCultivo(nombreCentro(fila), comuna(fila), producto, produccion[fila]);
+        }
+
+        Direccion direccion = new Direccion(calle(fila), numero(fila), comuna(fila), region(fila));
+        String ruta = nomRuta(fila);
+        Ruta rutaAsociada = (ruta != null)
+                ? new Ruta(ruta, responsable(fila), fecha(fila), direccion)
+                : null;
+
+        return new CentroCultivo(nombreCentro(fila), producto, produccion[fila], direccion, rutaAsociada);
+    }
+
+    /**
+     * Vista de la tabla como lista de centros; cada elemento se construye con
+     * {@link #centro(int)} al momento de accederlo.
+     *
+     * @return lista de solo lectura respaldada por la tabla
+     */
+    public List<CentroCultivo> comoLista() {
+        return new Vista();
+    }
+
+    private final class Vista extends AbstractList<CentroCultivo> implements RandomAccess {
+
+        @Override
+        public CentroCultivo get(int fila) {
+            if (fila < 0 || fila >= filas) {
+                throw new IndexOutOfBoundsException("Fila " + fila + " fuera de rango: " + filas);
+            }
+            return centro(fila);
+        }
+
+        @Override
+        public int size() {
+            return filas;
+        }
+    }
+
+    // ===================== CONSTRUCCIÓN ======================
+
+    /**
+     * Acumula filas para construir una {@link TablaCentros}.
+     * <p>
+     * Aplica las mismas validaciones (y mensajes) que los setters del modelo, en el mismo
+     * orden en que {@code GestorDatos} construye los objetos, por lo que una fila es aceptada
+     * o rechazada igual que si se cargara como {@link CentroCultivo}.
+     */
+    public static final class Acumulador {
+
+        private static final int CAPACIDAD_INICIAL = 1024;
+
+        private int filas;
+
+        private String[] nombreCentro = new String[CAPACIDAD_INICIAL];
+        private int[] produccion = new int[CAPACIDAD_INICIAL];
+        private double[] precioProducto = new double[CAPACIDAD_INICIAL];
+        private int[] nombreProducto = new int[CAPACIDAD_INICIAL];
+        private int[] tipoProducto = new int[CAPACIDAD_INICIAL];
+        private int[] comuna = new int[CAPACIDAD_INICIAL];
+        private int[] calle = new int[CAPACIDAD_INICIAL];
+        private String[] numero = new String[CAPACIDAD_INICIAL];
+        private int[] region = new int[CAPACIDAD_INICIAL];
+        private String[] nomRuta = new String[CAPACIDAD_INICIAL];
+        private int[] responsable = new int[CAPACIDAD_INICIAL];
+        private int[] fecha = new int[CAPACIDAD_INICIAL];
+
+        private final Diccionario productos = new Diccionario();
+        private final Diccionario tipos = new Diccionario();
+        private final Diccionario comunas = new Diccionario();
+        private final Diccionario calles = new Diccionario();
+        private final Diccionario regiones = new Diccionario();
+        private final Diccionario responsables = new Diccionario();
+        private final Diccionario fechas = new Diccionario();
+
+        /**
+         * Agrega un centro en formato simple (sin dirección ni ruta).
+         *
+         * @throws IllegalArgumentException si algún dato es inválido
+         */
+        public void agregarBasico(String nombreCentro, String comuna, int produccion,
+                                  String nombreProducto, String tipoProducto, double precioProducto) {
+            validarProducto(nombreProducto, tipoProducto, precioProducto);
+            validarCentro(nombreCentro, produccion);
+
+            agregarFila(nombreCentro.trim(), produccion, nombreProducto.trim(), tipoProducto.trim(),
+                    precioProducto, comuna == null ? null : comuna.trim(),
+                    null, null, null, null, null, null);
+        }
+
+        /**
+         * Agrega un centro en formato completo, con dirección y ruta.
+         *
+         * @throws IllegalArgumentException si algún dato es inválido
+         */
+        public void agregarCompleto(String nombreCentro, String comuna, int produccion,
+                                    String nombreProducto, String tipoProducto, double precioProducto,
+                                    String calle, String numero, String region,
+                                    String nomRuta, String responsable, String fecha) {
+            // Mismo orden que GestorDatos: dirección, ruta, producto y centro
+            if (comuna == null || comuna.isBlank()) {
+                throw new IllegalArgumentException("La comuna no puede estar vacía.");
+            }
+            validarRuta(nomRuta, responsable, fecha);
+            validarProducto(nombreProducto, tipoProducto, precioProducto);
+            validarCentro(nombreCentro, produccion);
+
+            agregarFila(nombreCentro.trim(), produccion, nombreProducto.trim(), tipoProducto.trim(),
+                    precioProducto, comuna.trim(),
+                    calle == null ? "" : calle.trim(), numero == null ? "" : numero.trim(),
+                    region == null ? "" : region.trim(),
+                    nomRuta.trim(), responsable.trim(), fecha.trim());
+        }
+
+        /**
+         * Agrega un centro ya construido. Sus datos ya fueron validados por el modelo.
+         */
+        public void agregar(CentroCultivo c) {
+            Producto p = c.getProducto();
+            Direccion d = c.getDireccion();
+            Ruta r = c.getRutaAsociada();
+
+            agregarFila(c.getNombreCentro(), c.getProduccion(), p.getNombreProducto(),
+                    p.getTipoProducto(), p.getPrecioProducto(),
+                    d == null ? null : d.getComuna(),
+                    d == null ? null : d.getCalle(),
+                    d == null ? null : d.getNumero(),
+                    d == null ? null : d.getRegion(),
+                    r == null ? null : r.getNomRuta(),
+                    r == null ? null : r.getResponsable(),
+                    r == null ? null : r.getFecha());
+        }
+
+        /**
+         * @return cantidad de filas acumuladas
+         */
+        public int filas() {
+            return filas;
+        }
+
+        /**
+         * @return tabla inmutable con las filas acumuladas
+         */
+        public TablaCentros construir() {
+            return new TablaCentros(this);
+        }
+
+        private void agregarFila(String nombreCentro, int produccion, String nombreProducto,
+                                 String tipoProducto, double precioProducto, String comuna,
+                                 String calle, String numero, String region,
+                                 String nomRuta, String responsable, String fecha) {
+            if (filas == this.produccion.length) {
+                crecer();
+            }
+
+            int i = filas++;
+            this.nombreCentro[i] = nombreCentro;
+            this.produccion[i] = produccion;
+            this.precioProducto[i] = precioProducto;
+            this.nombreProducto[i] = productos.codigo(nombreProducto);
+            this.tipoProducto[i] = tipos.codigo(tipoProducto);
+            this.comuna[i] = comunas.codigo(comuna);
+            this.calle[i] = calles.codigo(calle);
+            this.numero[i] = numero;
+            this.region[i] = regiones.codigo(region);
+            this.nomRuta[i] = nomRuta;
+            this.responsable[i] = responsables.codigo(responsable);
+            this.fecha[i] = fechas.codigo(fecha);
+        }
+
+        private void crecer() {
+            int capacidad = produccion.length * 2;
+            nombreCentro = Arrays.copyOf(nombreCentro, capacidad);
+            produccion = Arrays.copyOf(produccion, capacidad);
+            precioProducto = Arrays.copyOf(precioProducto, capacidad);
+            nombreProducto = Arrays.copyOf(nombreProducto, capacidad);
+            tipoProducto = Arrays.copyOf(tipoProducto, capacidad);
+            comuna = Arrays.copyOf(comuna, capacidad);
+            calle = Arrays.copyOf(calle, capacidad);
+            numero = Arrays.copyOf(numero, capacidad);
+            region = Arrays.copyOf(region, capacidad);
+            nomRuta = Arrays.copyOf(nomRuta, capacidad);
+            responsable = Arrays.copyOf(responsable, capacidad);
+            fecha = Arrays.copyOf(fecha, capacidad);
+        }
+
+        private static void validarProducto(String nombreProducto, String tipoProducto, double precio) {
+            if (nombreProducto == null || nombreProducto.trim().isEmpty()) {
+                throw new IllegalArgumentException("El nombre del producto no puede estar vacío.");
+            }
+            if (tipoProducto == null || tipoProducto.trim().isEmpty()) {
+                throw new IllegalArgumentException("El tipo de producto no puede estar vacío.");
+            }
+            if (precio < 0) {
+                throw new IllegalArgumentException("El precio del producto no puede ser negativo.");
+            }
+        }
+
+        private static void validarCentro(String nombreCentro, int produccion) {
+            if (nombreCentro == null || nombreCentro.trim().isEmpty()) {
+                throw new IllegalArgumentException("El nombre del centro no puede estar vacío.");
+            }
+            if (produccion < 0) {
+                throw new IllegalArgumentException("La producción no puede ser negativa.");
+            }
+        }
+
+        private static void validarRuta(String nomRuta, String responsable, String fecha) {
+            if (nomRuta == null || nomRuta.trim().isEmpty()) {
+                throw new IllegalArgumentException("El nombre de la ruta no puede estar vacío.");
+            }
+            if (responsable == null || responsable.trim().isEmpty()) {
+                throw new IllegalArgumentException("El responsable no puede estar vacío.");
+            }
+            if (fecha == null || fecha.trim().isEmpty()) {
+                throw new IllegalArgumentException("La fecha no puede estar vacía.");
+            }
+        }
+    }
+}
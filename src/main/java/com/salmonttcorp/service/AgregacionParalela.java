@@ -0,0 +1,263 @@
+package com.salmonttcorp.service;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.model.Diccionario;
+
+import java.text.Collator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Agrupa centros y suma su producción e ingresos en paralelo con fork-join.
+ * <p>
+ * El rango de posiciones se divide por mitades hasta tramos de {@link #UMBRAL} centros;
+ * cada tramo acumula en variables primitivas ({@code int}, {@code long}, {@code double}) y
+ * luego los resultados parciales se suman de a pares. La división y el orden de las sumas
+ * son siempre los mismos, por lo que el total de ingresos no varía entre ejecuciones.
+ * <p>
+ * Hay dos variantes:
+ * <ul>
+ *   <li>{@link #porCodigo}: para columnas codificadas con un {@link Diccionario}; cada tramo
+ *       acumula en arreglos indexados por código, sin búsquedas en mapas.</li>
+ *   <li>{@link #porClave}: para listas de objetos; cada tramo acumula en un mapa por texto.</li>
+ * </ul>
+ * Los grupos se forman con la clave de {@link NormalizadorTexto}, la misma de
+ * {@link CentroService#buscarPorComuna(String)}: "Ancud", "ANCUD" y " ancud " suman en un solo
+ * grupo, que se muestra con la primera forma encontrada. El {@link Collator} se usa solo para
+ * ordenar el resultado.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+final class AgregacionParalela {
+
+    /** Cantidad de centros a partir de la cual un tramo se divide en dos. */
+    static final int UMBRAL = 1 << 15;
+
+    private AgregacionParalela() {
+    }
+
+    /**
+     * Agrupa las posiciones {@code [0, filas)} por el código que entrega {@code codigo};
+     * las posiciones con código {@link Diccionario#SIN_VALOR} no se consideran.
+     */
+    static Map<String, ResumenProduccion> porCodigo(int filas, Diccionario diccionario, IntUnaryOperator codigo,
+                                                    IntUnaryOperator produccion, IntToDoubleFunction precio) {
+        PorCodigo tarea = new PorCodigo(0, filas, diccionario.tamano(), codigo, produccion, precio);
+        Acumulados total = ForkJoinPool.commonPool().invoke(tarea);
+
+        // Códigos de valores que solo difieren en mayúsculas o tildes se suman en un grupo
+        Map<String, Acumulado> grupos = new LinkedHashMap<>();
+        for (int c = 0; c < total.centros.length; c++) {
+            if (total.centros[c] > 0) {
+                String valor = diccionario.valor(c);
+                Acumulado a = grupos.computeIfAbsent(NormalizadorTexto.clave(valor), k -> new Acumulado(valor));
+                a.centros += total.centros[c];
+                a.produccion += total.produccion[c];
+                a.ingresos += total.ingresos[c];
+            }
+        }
+        return ordenar(grupos);
+    }
+
+    /**
+     * Agrupa los centros por el texto que entrega {@code clave}; los centros con clave nula
+     * no se consideran.
+     */
+    static Map<String, ResumenProduccion> porClave(List<CentroCultivo> centros,
+                                                   Function<CentroCultivo, String> clave) {
+        return ordenar(ForkJoinPool.commonPool().invoke(new PorClave(centros, 0, centros.size(), clave)));
+    }
+
+    /**
+     * @param grupos totales por clave normalizada
+     * @return mapa de solo lectura del nombre de cada grupo a sus totales, ordenado
+     * alfabéticamente según las reglas del español
+     */
+    private static Map<String, ResumenProduccion> ordenar(Map<String, Acumulado> grupos) {
+        Collator collator = Collator.getInstance(CentroService.ESPANOL);
+        collator.setStrength(Collator.SECONDARY);
+        Map<String, ResumenProduccion> resultado = new TreeMap<>(collator);
+
+        // Si dos nombres con distinta clave son iguales para el Collator, se suman en vez de reemplazarse
+        grupos.values().forEach(a -> resultado.merge(a.nombre,
+                new ResumenProduccion(a.centros, a.produccion, a.ingresos),
+                (r1, r2) -> new ResumenProduccion(r1.centros() + r2.centros(),
+                        r1.produccion() + r2.produccion(), r1.ingresos() + r2.ingresos())));
+        return Collections.unmodifiableMap(resultado);
+    }
+
+    // ===================== POR CÓDIGO ======================
+
+    /** Totales por código, en arreglos paralelos. */
+    private static final class Acumulados {
+
+        private final int[] centros;
+        private final long[] produccion;
+        private final double[] ingresos;
+
+        Acumulados(int grupos) {
+            centros = new int[grupos];
+            produccion = new long[grupos];
+            ingresos = new double[grupos];
+        }
+
+        Acumulados sumar(Acumulados otro) {
+            for (int c = 0; c < centros.length; c++) {
+                centros[c] += otro.centros[c];
+                produccion[c] += otro.produccion[c];
+                ingresos[c] += otro.ingresos[c];
+            }
+            return this;
+        }
+    }
+
+    private static final class PorCodigo extends RecursiveTask<Acumulados> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int desde;
+        private final int hasta;
+        private final int grupos;
+        private final IntUnaryOperator codigo;
+        private final IntUnaryOperator produccion;
+        private final IntToDoubleFunction precio;
+
+        PorCodigo(int desde, int hasta, int grupos, IntUnaryOperator codigo,
+                  IntUnaryOperator produccion, IntToDoubleFunction precio) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.grupos = grupos;
+            this.codigo = codigo;
+            this.produccion = produccion;
+            this.precio = precio;
+        }
+
+        @Override
+        protected Acumulados compute() {
+            if (hasta - desde <= UMBRAL) {
+                return acumular();
+            }
+
+            int medio = (desde + hasta) >>> 1;
+            PorCodigo izquierda = new PorCodigo(desde, medio, grupos, codigo, produccion, precio);
+            PorCodigo derecha = new PorCodigo(medio, hasta, grupos, codigo, produccion, precio);
+            izquierda.fork();
+            Acumulados resultadoDerecha = derecha.compute();
+            return izquierda.join().sumar(resultadoDerecha);
+        }
+
+        private Acumulados acumular() {
+            Acumulados acumulados = new Acumulados(grupos);
+
+            for (int i = desde; i < hasta; i++) {
+                int c = codigo.applyAsInt(i);
+                if (c == Diccionario.SIN_VALOR) {
+                    continue;
+                }
+
+                int p = produccion.applyAsInt(i);
+                acumulados.centros[c]++;
+                acumulados.produccion[c] += p;
+                acumulados.ingresos[c] += p * precio.applyAsDouble(i);
+            }
+
+            return acumulados;
+        }
+    }
+
+    // ===================== POR CLAVE ======================
+
+    /** Totales de un grupo, en campos primitivos mutables. */
+    private static final class Acumulado {
+
+        /** Primera forma encontrada del texto del grupo. */
+        private final String nombre;
+        private int centros;
+        private long produccion;
+        private double ingresos;
+
+        Acumulado(String nombre) {
+            this.nombre = nombre;
+        }
+
+        Acumulado sumar(Acumulado otro) {
+            centros += otro.centros;
+            produccion += otro.produccion;
+            ingresos += otro.ingresos;
+            return this;
+        }
+    }
+
+    private static final class PorClave extends RecursiveTask<Map<String, Acumulado>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<CentroCultivo> centros;
+        private final int desde;
+        private final int hasta;
+        private final Function<CentroCultivo, String> clave;
+
+        PorClave(List<CentroCultivo> centros, int desde, int hasta, Function<CentroCultivo, String> clave) {
+            this.centros = centros;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.clave = clave;
+        }
+
+        @Override
+        protected Map<String, Acumulado> compute() {
+            if (hasta - desde <= UMBRAL) {
+                return acumular();
+            }
+
+            int medio = (desde + hasta) >>> 1;
+            PorClave izquierda = new PorClave(centros, desde, medio, clave);
+            PorClave derecha = new PorClave(centros, medio, hasta, clave);
+            izquierda.fork();
+            Map<String, Acumulado> resultadoDerecha = derecha.compute();
+            Map<String, Acumulado> resultado = izquierda.join();
+
+            // El tramo izquierdo va primero: conserva el nombre del grupo cuando ambos lo tienen
+            resultadoDerecha.forEach((grupo, otro) -> resultado.merge(grupo, otro, Acumulado::sumar));
+            return resultado;
+        }
+
+        /**
+         * @return totales del tramo por clave normalizada, en orden de aparición
+         */
+        private Map<String, Acumulado> acumular() {
+            Map<String, Acumulado> grupos = new LinkedHashMap<>();
+            // Cada texto distinto se normaliza una sola vez por tramo
+            Map<String, Acumulado> porTexto = new HashMap<>();
+
+            for (int i = desde; i < hasta; i++) {
+                CentroCultivo centro = centros.get(i);
+                String grupo = clave.apply(centro);
+                if (grupo == null) {
+                    continue;
+                }
+
+                Acumulado a = porTexto.get(grupo);
+                if (a == null) {
+                    a = grupos.computeIfAbsent(NormalizadorTexto.clave(grupo), k -> new Acumulado(grupo));
+                    porTexto.put(grupo, a);
+                }
+                int p = centro.getProduccion();
+                a.centros++;
+                a.produccion += p;
+                a.ingresos += p * centro.getProducto().getPrecioProducto();
+            }
+
+            return grupos;
+        }
+    }
+}
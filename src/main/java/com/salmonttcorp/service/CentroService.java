@@ -1,22 +1,86 @@
 package com.salmonttcorp.service;
 
+import com.salmonttcorp.metricas.Histograma;
+import com.salmonttcorp.metricas.Metricas;
 import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.model.Diccionario;
+import com.salmonttcorp.model.Direccion;
+import com.salmonttcorp.model.Ruta;
+import com.salmonttcorp.model.TablaCentros;
 
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
 
 /**
  * Servicio que encapsula las operaciones sobre la colección de {@link CentroCultivo}.
  * Provee métodos para:
  * Listar todos los centros
  * Buscar por comuna
- * Filtrar por producción mínima
+ * Filtrar por producción mínima, por rango de producción y obtener los mayores productores
  * Ordenar por nombre de centro
+ * Resumir producción e ingresos por comuna, región o tipo de producto
+ * Consultar rutas por fecha
+ * <p>
+ * Al construirse, el servicio indexa los centros por comuna y por producción para que
+ * las búsquedas y filtros no recorran toda la colección.
+ * <p>
+ * Puede trabajar sobre una lista de objetos o sobre una {@link TablaCentros} columnar;
+ * ambas variantes responden las mismas consultas.
+ * <p>
+ * El servicio no se modifica después de construido: {@link #aplicarCambios(List)} entrega
+ * un servicio nuevo que reutiliza los índices del anterior.
+ * <p>
+ * La latencia de cada consulta se registra en {@link Metricas} como {@code consulta.<método>}.
  * Autor: Víctor Valenzuela
  */
-public record CentroService(List<CentroCultivo> centros) {
+public final class CentroService {
+
+    static final Locale ESPANOL = new Locale("es", "CL");
+
+    private static final Metricas METRICAS = Metricas.globales();
+    private static final Histograma LISTAR_TODOS = METRICAS.histograma("consulta.listarTodos");
+    private static final Histograma BUSCAR_POR_COMUNA = METRICAS.histograma("consulta.buscarPorComuna");
+    private static final Histograma PRODUCCION_MINIMA = METRICAS.histograma("consulta.filtrarPorProduccionMinima");
+    private static final Histograma RANGO_PRODUCCION = METRICAS.histograma("consulta.filtrarPorRangoProduccion");
+    private static final Histograma MAYORES_PRODUCTORES = METRICAS.histograma("consulta.mayoresProductores");
+    private static final Histograma ORDENAR_POR_NOMBRE = METRICAS.histograma("consulta.ordenarPorNombre");
+    private static final Histograma PRODUCCION_TOTAL = METRICAS.histograma("consulta.produccionTotal");
+    private static final Histograma RUTAS_ENTRE = METRICAS.histograma("consulta.rutasEntre");
+    private static final Histograma PROXIMAS_RUTAS = METRICAS.histograma("consulta.proximasRutas");
+    private static final Histograma RUTAS_POR_SEMANA = METRICAS.histograma("consulta.rutasPorResponsableYSemana");
+    private static final Histograma RESUMIR_POR_COMUNA = METRICAS.histograma("consulta.resumirPorComuna");
+    private static final Histograma RESUMIR_POR_REGION = METRICAS.histograma("consulta.resumirPorRegion");
+    private static final Histograma RESUMIR_POR_TIPO = METRICAS.histograma("consulta.resumirPorTipoProducto");
+    private static final Histograma APLICAR_CAMBIOS = METRICAS.histograma("servicio.aplicarCambios");
+
+    private final List<CentroCultivo> centros;
+
+    /** Tabla columnar que respalda al servicio, o {@code null} si trabaja sobre objetos. */
+    private final TablaCentros tabla;
+
+    /** Centros agrupados por comuna normalizada (sin tildes ni mayúsculas). */
+    private final Map<String, VistaCentros> indiceComuna;
+
+    /** Centros ordenados por producción, para consultas por umbral, rango y ranking. */
+    private final IndiceProduccion indiceProduccion;
+
+    /** Centros ordenados por nombre; se calcula en el primer uso. */
+    private volatile List<CentroCultivo> ordenPorNombre;
+
+    /** Centros con ruta ordenados por fecha; se calcula en el primer uso. */
+    private volatile IndiceFechas indiceFechas;
 
     /**
      * Crea una instancia del servicio a partir de una lista de centros.
@@ -26,6 +90,216 @@ public record CentroService(List<CentroCultivo> centros) {
     public CentroService(List<CentroCultivo> centros) {
         // Se utiliza una nueva lista mutable para evitar modificar la referencia externa
         this.centros = (centros == null) ? new ArrayList<>() : new ArrayList<>(centros);
+        this.tabla = null;
+        this.indiceComuna = indexarPorComuna();
+        this.indiceProduccion = new IndiceProduccion(this.centros, producciones());
+    }
+
+    /**
+     * Crea una instancia del servicio respaldada por una tabla columnar.
+     * <p>
+     * Los índices se construyen leyendo directamente las columnas, sin crear objetos del
+     * modelo. Los centros que entregan las consultas se construyen recién al accederlos,
+     * por lo que dos accesos a la misma posición entregan instancias distintas.
+     *
+     * @param tabla tabla columnar de centros; no puede ser nula
+     */
+    public CentroService(TablaCentros tabla) {
+        if (tabla == null) {
+            throw new IllegalArgumentException("La tabla de centros no puede ser nula.");
+        }
+        this.tabla = tabla;
+        this.centros = tabla.comoLista();
+        this.indiceComuna = indexarPorComuna();
+        this.indiceProduccion = new IndiceProduccion(this.centros, producciones());
+    }
+
+    /**
+     * Crea el servicio resultante de aplicar cambios sobre otro, actualizando sus índices.
+     */
+    private CentroService(List<CentroCultivo> centros, CentroService anterior,
+                          int[] nuevaPosicion, int[] insertadas) {
+        this.centros = centros;
+        this.tabla = null;
+        this.indiceComuna = actualizarIndiceComuna(anterior.indiceComuna, nuevaPosicion, insertadas);
+
+        int[] produccionInsertadas = new int[insertadas.length];
+        for (int i = 0; i < insertadas.length; i++) {
+            produccionInsertadas[i] = produccion(insertadas[i]);
+        }
+        this.indiceProduccion = new IndiceProduccion(anterior.indiceProduccion, centros,
+                nuevaPosicion, insertadas, produccionInsertadas);
+    }
+
+    // ===================== ACCESO SEGÚN RESPALDO ======================
+
+    int produccion(int posicion) {
+        return (tabla != null) ? tabla.produccion(posicion) : centros.get(posicion).getProduccion();
+    }
+
+    private int[] producciones() {
+        int[] producciones = new int[centros.size()];
+        for (int i = 0; i < producciones.length; i++) {
+            producciones[i] = produccion(i);
+        }
+        return producciones;
+    }
+
+    private String nombreCentro(int posicion) {
+        return (tabla != null) ? tabla.nombreCentro(posicion) : centros.get(posicion).getNombreCentro();
+    }
+
+    /**
+     * @return comuna de la dirección del centro, o {@code null} si no tiene dirección
+     */
+    String comunaDireccion(int posicion) {
+        if (tabla != null) {
+            return tabla.tieneDireccion(posicion) ? tabla.comuna(posicion) : null;
+        }
+        Direccion direccion = centros.get(posicion).getDireccion();
+        return (direccion != null) ? direccion.getComuna() : null;
+    }
+
+    /**
+     * @return región de la dirección del centro, o {@code null} si no tiene dirección
+     */
+    String regionDireccion(int posicion) {
+        if (tabla != null) {
+            return tabla.region(posicion);
+        }
+        Direccion direccion = centros.get(posicion).getDireccion();
+        return (direccion != null) ? direccion.getRegion() : null;
+    }
+
+    String nombreProducto(int posicion) {
+        return (tabla != null) ? tabla.nombreProducto(posicion) : centros.get(posicion).getProducto().getNombreProducto();
+    }
+
+    String tipoProducto(int posicion) {
+        return (tabla != null) ? tabla.tipoProducto(posicion) : centros.get(posicion).getProducto().getTipoProducto();
+    }
+
+    /**
+     * @return responsable de la ruta del centro, o {@code null} si no tiene ruta
+     */
+    String responsableRuta(int posicion) {
+        if (tabla != null) {
+            return tabla.responsable(posicion);
+        }
+        Ruta ruta = centros.get(posicion).getRutaAsociada();
+        return (ruta != null) ? ruta.getResponsable() : null;
+    }
+
+    /**
+     * @return fecha de la ruta del centro, o {@code null} si no tiene ruta
+     */
+    String fechaRuta(int posicion) {
+        if (tabla != null) {
+            return tabla.fecha(posicion);
+        }
+        Ruta ruta = centros.get(posicion).getRutaAsociada();
+        return (ruta != null) ? ruta.getFecha() : null;
+    }
+
+    /**
+     * @return posición del primer centro con el nombre indicado, o -1 si no existe
+     */
+    int posicionDe(String nombreCentro) {
+        for (int i = 0; i < centros.size(); i++) {
+            if (nombreCentro.equals(nombreCentro(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ===================== ÍNDICES ======================
+
+    private Map<String, VistaCentros> indexarPorComuna() {
+        Map<String, IntStream.Builder> posiciones = agruparPorComuna(IntStream.range(0, centros.size()));
+
+        Map<String, VistaCentros> indice = new HashMap<>();
+        posiciones.forEach((clave, builder) ->
+                indice.put(clave, new VistaCentros(centros, builder.build().toArray())));
+        return indice;
+    }
+
+    /**
+     * Agrupa las posiciones indicadas por comuna normalizada, en el mismo orden en que llegan.
+     */
+    private Map<String, IntStream.Builder> agruparPorComuna(IntStream posiciones) {
+        Map<String, IntStream.Builder> grupos = new HashMap<>();
+        // Cada comuna distinta se normaliza una sola vez
+        Map<String, String> claves = new HashMap<>();
+
+        posiciones.forEach(i -> {
+            String comuna = comunaDireccion(i);
+            if (comuna != null) {
+                String clave = claves.computeIfAbsent(comuna, NormalizadorTexto::clave);
+                grupos.computeIfAbsent(clave, k -> IntStream.builder()).add(i);
+            }
+        });
+
+        return grupos;
+    }
+
+    /**
+     * Traslada el índice por comuna del servicio anterior a la lista nueva: las posiciones
+     * conservadas solo se renumeran y las insertadas se agrupan y se mezclan en orden.
+     * Las comunas de los centros que no cambiaron no se vuelven a normalizar.
+     */
+    private Map<String, VistaCentros> actualizarIndiceComuna(Map<String, VistaCentros> anterior,
+                                                             int[] nuevaPosicion, int[] insertadas) {
+        Map<String, IntStream.Builder> agregadas = agruparPorComuna(IntStream.of(insertadas));
+        Map<String, VistaCentros> indice = new HashMap<>();
+
+        anterior.forEach((clave, vista) -> {
+            IntStream.Builder conservadas = IntStream.builder();
+            for (int i = 0; i < vista.size(); i++) {
+                int posicion = nuevaPosicion[vista.posicion(i)];
+                if (posicion >= 0) {
+                    conservadas.add(posicion);
+                }
+            }
+
+            IntStream.Builder nuevas = agregadas.remove(clave);
+            int[] posiciones = mezclar(conservadas.build().toArray(),
+                    (nuevas == null) ? new int[0] : nuevas.build().toArray());
+
+            if (posiciones.length > 0) {
+                indice.put(clave, new VistaCentros(centros, posiciones));
+            }
+        });
+
+        agregadas.forEach((clave, builder) ->
+                indice.put(clave, new VistaCentros(centros, builder.build().toArray())));
+        return indice;
+    }
+
+    /**
+     * Mezcla dos arreglos ordenados en uno solo, también ordenado.
+     */
+    private static int[] mezclar(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+
+        int[] resultado = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < resultado.length; k++) {
+            resultado[k] = (j == b.length || (i < a.length && a[i] < b[j])) ? a[i++] : b[j++];
+        }
+        return resultado;
+    }
+
+    /**
+     * Retorna la colección de centros administrada por el servicio.
+     *
+     * @return vista de solo lectura de los centros
+     */
+    public List<CentroCultivo> centros() {
+        return Collections.unmodifiableList(centros);
     }
 
     /**
@@ -34,49 +308,461 @@ public record CentroService(List<CentroCultivo> centros) {
      * @return lista de centros
      */
     public List<CentroCultivo> listarTodos() {
-        return new ArrayList<>(centros);
+        long inicio = System.nanoTime();
+        return LISTAR_TODOS.medir(inicio, new ArrayList<>(centros));
+    }
+
+    /**
+     * Inicia una consulta que combina condiciones sobre el centro, su producto, dirección y ruta.
+     *
+     * @return consulta vacía sobre los centros de este servicio
+     * @see ConsultaCentros
+     */
+    public ConsultaCentros consulta() {
+        return new ConsultaCentros(this);
+    }
+
+    /**
+     * @return vista del índice con los centros de la comuna (clave ya normalizada), o {@code null} si no hay
+     */
+    VistaCentros vistaComuna(String clave) {
+        return indiceComuna.get(clave);
+    }
+
+    /**
+     * @return cantidad de centros con producción en {@code [minimo, maximo]}, sin recorrerlos
+     */
+    int contarRangoProduccion(int minimo, int maximo) {
+        return (minimo > maximo) ? 0
+                : indiceProduccion.primeraSobre(maximo) - indiceProduccion.primeraDesde(minimo);
+    }
+
+    /**
+     * @return vista ascendente por producción de los centros con producción en {@code [minimo, maximo]}
+     */
+    VistaCentros vistaRangoProduccion(int minimo, int maximo) {
+        return indiceProduccion.ascendente(indiceProduccion.primeraDesde(minimo),
+                indiceProduccion.primeraSobre(maximo));
+    }
+
+    /**
+     * @return vista de los centros en las posiciones indicadas
+     */
+    List<CentroCultivo> vista(int[] posiciones) {
+        return new VistaCentros(centros, posiciones);
     }
 
     /**
      * Busca centros que pertenezcan a una comuna específica.
+     * <p>
+     * La búsqueda usa el índice por comuna, por lo que no depende del total de centros.
+     * No distingue mayúsculas ni tildes: "Quellon" encuentra los centros de "Quellón".
      *
-     * @param comuna nombre de la comuna a buscar (no sensible a mayúsculas)
-     * @return lista de centros que pertenecen a la comuna indicada
+     * @param comuna nombre de la comuna a buscar
+     * @return lista de solo lectura con los centros de la comuna indicada
      */
     public List<CentroCultivo> buscarPorComuna(String comuna) {
+        long inicio = System.nanoTime();
         if (comuna == null || comuna.isBlank()) {
-            return List.of();
+            return BUSCAR_POR_COMUNA.medir(inicio, List.of());
         }
 
-        String comunaBuscada = comuna.trim();
-
-        return centros.stream()
-                .filter(c -> c.getDireccion() != null &&
-                        c.getDireccion().getComuna().equalsIgnoreCase(comunaBuscada))
-                .collect(Collectors.toList());
+        List<CentroCultivo> resultado = indiceComuna.get(NormalizadorTexto.clave(comuna));
+        return BUSCAR_POR_COMUNA.medir(inicio, (resultado == null) ? List.of() : resultado);
     }
 
     /**
      * Filtra los centros cuya producción es mayor o igual a la producción mínima indicada.
+     * <p>
+     * Se resuelve con el índice de producción: se ubica el tramo con búsqueda binaria y solo
+     * sus posiciones se reordenan, para entregar los centros en el orden original de la lista.
+     * Para el resultado ordenado por producción, ver {@link #filtrarPorRangoProduccion(int, int)}.
      *
      * @param produccionMinima producción mínima requerida
-     * @return lista de centros con producción mayor o igual a la mínima
+     * @return lista de solo lectura con los centros de producción mayor o igual a la mínima,
+     * en el orden original
      */
     public List<CentroCultivo> filtrarPorProduccionMinima(int produccionMinima) {
-        return centros.stream()
-                .filter(c -> c.getProduccion() >= produccionMinima)
-                .collect(Collectors.toList());
+        long inicio = System.nanoTime();
+        return PRODUCCION_MINIMA.medir(inicio, indiceProduccion.enOrdenOriginal(
+                indiceProduccion.primeraDesde(produccionMinima), indiceProduccion.tamano()));
+    }
+
+    /**
+     * Filtra los centros cuya producción está entre los valores indicados, ambos incluidos.
+     *
+     * @param produccionMinima límite inferior de producción
+     * @param produccionMaxima límite superior de producción
+     * @return lista de solo lectura ordenada por producción ascendente;
+     * vacía si el mínimo es mayor que el máximo
+     */
+    public List<CentroCultivo> filtrarPorRangoProduccion(int produccionMinima, int produccionMaxima) {
+        long inicio = System.nanoTime();
+        if (produccionMinima > produccionMaxima) {
+            return RANGO_PRODUCCION.medir(inicio, List.of());
+        }
+
+        return RANGO_PRODUCCION.medir(inicio, indiceProduccion.ascendente(
+                indiceProduccion.primeraDesde(produccionMinima), indiceProduccion.primeraSobre(produccionMaxima)));
+    }
+
+    /**
+     * Retorna los centros con mayor producción.
+     *
+     * @param cantidad cantidad máxima de centros a retornar
+     * @return lista de solo lectura ordenada por producción descendente
+     */
+    public List<CentroCultivo> mayoresProductores(int cantidad) {
+        long inicio = System.nanoTime();
+        if (cantidad <= 0) {
+            return MAYORES_PRODUCTORES.medir(inicio, List.of());
+        }
+
+        int total = indiceProduccion.tamano();
+        return MAYORES_PRODUCTORES.medir(inicio, indiceProduccion.descendente(Math.max(0, total - cantidad), total));
     }
 
     /**
      * Retorna la lista de centros ordenada alfabéticamente por nombre.
+     * <p>
+     * El orden sigue las reglas del español (sin distinguir mayúsculas, con las vocales
+     * acentuadas junto a las que no lo están) y se calcula una sola vez, en la primera
+     * llamada: el servicio no modifica su colección, por lo que las llamadas siguientes
+     * reutilizan el resultado.
      *
-     * @return lista ordenada de centros
+     * @return lista de solo lectura ordenada por nombre de centro
      */
     public List<CentroCultivo> ordenarPorNombre() {
-        return centros.stream()
-                .sorted(Comparator.comparing(CentroCultivo::getNombreCentro,
-                        String.CASE_INSENSITIVE_ORDER))
-                .collect(Collectors.toList());
+        long inicio = System.nanoTime();
+        List<CentroCultivo> orden = ordenPorNombre;
+
+        if (orden == null) {
+            orden = calcularOrdenPorNombre();
+            ordenPorNombre = orden;
+        }
+
+        return ORDENAR_POR_NOMBRE.medir(inicio, orden);
+    }
+
+    /**
+     * Retorna un servicio nuevo con los tramos indicados de la colección reemplazados.
+     * <p>
+     * Pensado para recargas incrementales, en las que solo cambia una parte pequeña de los
+     * centros: los índices por comuna y producción se trasladan desde este servicio,
+     * renumerando las posiciones conservadas e incorporando solo los centros nuevos,
+     * sin volver a normalizar ni a ordenar toda la colección. El orden por nombre se vuelve
+     * a calcular recién cuando se pida.
+     * <p>
+     * Este servicio no se modifica, por lo que quien lo esté consultando no ve estados intermedios.
+     * Si el servicio está respaldado por una {@link TablaCentros}, el nuevo trabaja sobre objetos
+     * y construye los centros conservados.
+     *
+     * @param cambios reemplazos ordenados por posición y sin traslaparse
+     * @return servicio con los cambios aplicados, o este mismo si no hay cambios
+     * @throws IllegalArgumentException si los reemplazos están desordenados, se traslapan,
+     *                                  salen de la colección o incluyen centros nulos
+     */
+    public CentroService aplicarCambios(List<Reemplazo> cambios) {
+        if (cambios == null || cambios.isEmpty()) {
+            return this;
+        }
+
+        long inicio = System.nanoTime();
+        int total = centros.size();
+        int[] nuevaPosicion = new int[total];
+        List<CentroCultivo> nuevos = new ArrayList<>(total);
+        IntStream.Builder insertadas = IntStream.builder();
+        int siguiente = 0;
+
+        for (Reemplazo cambio : cambios) {
+            if (cambio.desde() < siguiente || cambio.hasta() > total) {
+                throw new IllegalArgumentException("Los reemplazos deben estar ordenados, sin traslaparse "
+                        + "y dentro de la colección (" + total + " centros).");
+            }
+
+            for (int i = siguiente; i < cambio.desde(); i++) {
+                nuevaPosicion[i] = nuevos.size();
+                nuevos.add(centros.get(i));
+            }
+            Arrays.fill(nuevaPosicion, cambio.desde(), cambio.hasta(), -1);
+
+            for (CentroCultivo centro : cambio.centros()) {
+                if (centro == null) {
+                    throw new IllegalArgumentException("Los centros de un reemplazo no pueden ser nulos.");
+                }
+                insertadas.add(nuevos.size());
+                nuevos.add(centro);
+            }
+
+            siguiente = cambio.hasta();
+        }
+
+        for (int i = siguiente; i < total; i++) {
+            nuevaPosicion[i] = nuevos.size();
+            nuevos.add(centros.get(i));
+        }
+
+        return APLICAR_CAMBIOS.medir(inicio, new CentroService(nuevos, this, nuevaPosicion, insertadas.build().toArray()));
+    }
+
+    /**
+     * Suma la producción de todos los centros.
+     *
+     * @return producción total
+     */
+    public long produccionTotal() {
+        long inicio = System.nanoTime();
+        long total = indiceProduccion.total();
+        PRODUCCION_TOTAL.registrarDesde(inicio);
+        return total;
+    }
+
+    // ===================== RUTAS POR FECHA ======================
+
+    /**
+     * Retorna los centros cuya ruta tiene fecha dentro de la ventana indicada, ambas incluidas.
+     * <p>
+     * Usa el índice de fechas: cada fecha se interpreta una sola vez (formato {@code aaaa-mm-dd})
+     * al construir el índice en la primera consulta; luego cada ventana cuesta una búsqueda binaria.
+     * Los centros sin ruta o con fechas en otro formato no se consideran.
+     *
+     * @param desde primer día de la ventana
+     * @param hasta último día de la ventana
+     * @return lista de solo lectura ordenada por fecha de la ruta
+     */
+    public List<CentroCultivo> rutasEntre(LocalDate desde, LocalDate hasta) {
+        long inicio = System.nanoTime();
+        validarVentana(desde, hasta);
+        IndiceFechas indice = indiceFechas();
+        return RUTAS_ENTRE.medir(inicio,
+                indice.tramo(indice.primeraDesde(desde.toEpochDay()), indice.primeraSobre(hasta.toEpochDay())));
+    }
+
+    /**
+     * Retorna las próximas rutas a partir de un día (incluido).
+     *
+     * @param desde    día desde el que se buscan rutas
+     * @param cantidad cantidad máxima de centros a retornar
+     * @return lista de solo lectura ordenada por fecha de la ruta
+     */
+    public List<CentroCultivo> proximasRutas(LocalDate desde, int cantidad) {
+        long inicio = System.nanoTime();
+        if (desde == null) {
+            throw new IllegalArgumentException("La fecha de inicio no puede ser nula.");
+        }
+        if (cantidad <= 0) {
+            return PROXIMAS_RUTAS.medir(inicio, List.of());
+        }
+
+        IndiceFechas indice = indiceFechas();
+        int primera = indice.primeraDesde(desde.toEpochDay());
+        return PROXIMAS_RUTAS.medir(inicio,
+                indice.tramo(primera, (int) Math.min((long) primera + cantidad, indice.tamano())));
+    }
+
+    /**
+     * Agrupa las rutas de la ventana indicada por responsable y por semana (de lunes a domingo).
+     *
+     * @param desde primer día de la ventana
+     * @param hasta último día de la ventana
+     * @return mapa de solo lectura de responsable (en orden alfabético) a semanas, identificadas
+     * por su lunes y en orden cronológico, con los centros de cada semana ordenados por fecha.
+     * Los nombres que solo difieren en mayúsculas, tildes o espacios en los extremos se agrupan
+     * bajo la primera forma encontrada en la ventana
+     */
+    public Map<String, SortedMap<LocalDate, List<CentroCultivo>>> rutasPorResponsableYSemana(LocalDate desde,
+                                                                                            LocalDate hasta) {
+        long comienzo = System.nanoTime();
+        validarVentana(desde, hasta);
+        IndiceFechas indice = indiceFechas();
+        int fin = indice.primeraSobre(hasta.toEpochDay());
+
+        int inicio = indice.primeraDesde(desde.toEpochDay());
+
+        Collator collator = Collator.getInstance(ESPANOL);
+        collator.setStrength(Collator.SECONDARY);
+
+        // Grupos en una lista indexada por responsable, sin mapas por fila. Cada texto distinto
+        // se normaliza una sola vez; un grupo nuevo se crea solo si su nombre tampoco es igual
+        // a uno existente para el Collator que ordena el resultado
+        Map<String, Integer> porTexto = new HashMap<>();
+        Map<String, Integer> porClave = new HashMap<>();
+        Map<String, Integer> porNombre = new TreeMap<>(collator);
+        List<String> nombres = new ArrayList<>();
+        List<SemanasResponsable> grupos = new ArrayList<>();
+
+        for (int i = inicio; i < fin; i++) {
+            int posicion = indice.posicion(i);
+            int responsable = porTexto.computeIfAbsent(responsableRuta(posicion), texto ->
+                    porClave.computeIfAbsent(NormalizadorTexto.clave(texto), clave ->
+                            porNombre.computeIfAbsent(texto, nombre -> {
+                                nombres.add(nombre);
+                                grupos.add(new SemanasResponsable());
+                                return grupos.size() - 1;
+                            })));
+
+            grupos.get(responsable).agregar(lunes(indice.dia(i)), posicion);
+        }
+
+        Map<String, SortedMap<LocalDate, List<CentroCultivo>>> resultado = new TreeMap<>(collator);
+
+        for (int codigo = 0; codigo < grupos.size(); codigo++) {
+            resultado.put(nombres.get(codigo), grupos.get(codigo).semanas(centros));
+        }
+
+        return RUTAS_POR_SEMANA.medir(comienzo, Collections.unmodifiableMap(resultado));
+    }
+
+    IndiceFechas indiceFechas() {
+        IndiceFechas indice = indiceFechas;
+
+        if (indice == null) {
+            indice = new IndiceFechas(centros, this::fechaRuta);
+            indiceFechas = indice;
+        }
+
+        return indice;
+    }
+
+    /**
+     * @return día época del lunes de la semana del día indicado
+     */
+    private static long lunes(long dia) {
+        // El día época 0 (1970-01-01) fue jueves
+        return dia - Math.floorMod(dia + 3, 7);
+    }
+
+    /**
+     * Semanas con rutas de un responsable. El índice de fechas se recorre en orden, así que las
+     * semanas llegan en orden cronológico y basta comparar con la última: se guardan solo las
+     * semanas que tienen rutas, sin importar el largo de la ventana.
+     */
+    private static final class SemanasResponsable {
+
+        private final List<LocalDate> lunes = new ArrayList<>();
+        private final List<IntStream.Builder> posiciones = new ArrayList<>();
+        private long ultimoLunes = Long.MIN_VALUE;
+
+        void agregar(long lunesSemana, int posicion) {
+            if (lunesSemana != ultimoLunes) {
+                ultimoLunes = lunesSemana;
+                lunes.add(LocalDate.ofEpochDay(lunesSemana));
+                posiciones.add(IntStream.builder());
+            }
+            posiciones.get(posiciones.size() - 1).add(posicion);
+        }
+
+        SortedMap<LocalDate, List<CentroCultivo>> semanas(List<CentroCultivo> centros) {
+            SortedMap<LocalDate, List<CentroCultivo>> porSemana = new TreeMap<>();
+            for (int i = 0; i < lunes.size(); i++) {
+                porSemana.put(lunes.get(i), new VistaCentros(centros, posiciones.get(i).build().toArray()));
+            }
+            return Collections.unmodifiableSortedMap(porSemana);
+        }
+    }
+
+    private static void validarVentana(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Las fechas de la ventana no pueden ser nulas.");
+        }
+    }
+
+    // ===================== RESÚMENES ======================
+
+    /**
+     * Suma producción e ingresos ({@code produccion * precioProducto}) por comuna de la dirección.
+     * <p>
+     * El cálculo se reparte entre los núcleos con fork-join y acumula en primitivos; sobre una
+     * {@link TablaCentros} agrupa directamente por los códigos de diccionario.
+     * Los centros sin dirección no se consideran.
+     *
+     * @return mapa de solo lectura de comuna a totales, ordenado alfabéticamente
+     */
+    public Map<String, ResumenProduccion> resumirPorComuna() {
+        long inicio = System.nanoTime();
+        if (tabla != null) {
+            return RESUMIR_POR_COMUNA.medir(inicio, AgregacionParalela.porCodigo(tabla.filas(), tabla.comunas(),
+                    fila -> tabla.tieneDireccion(fila) ? tabla.codigoComuna(fila) : Diccionario.SIN_VALOR,
+                    tabla::produccion, tabla::precioProducto));
+        }
+        return RESUMIR_POR_COMUNA.medir(inicio, AgregacionParalela.porClave(centros,
+                c -> (c.getDireccion() != null) ? c.getDireccion().getComuna() : null));
+    }
+
+    /**
+     * Suma producción e ingresos por región de la dirección. Los centros sin dirección no se consideran.
+     *
+     * @return mapa de solo lectura de región a totales, ordenado alfabéticamente
+     * @see #resumirPorComuna()
+     */
+    public Map<String, ResumenProduccion> resumirPorRegion() {
+        long inicio = System.nanoTime();
+        if (tabla != null) {
+            return RESUMIR_POR_REGION.medir(inicio, AgregacionParalela.porCodigo(tabla.filas(), tabla.regiones(),
+                    tabla::codigoRegion, tabla::produccion, tabla::precioProducto));
+        }
+        return RESUMIR_POR_REGION.medir(inicio, AgregacionParalela.porClave(centros,
+                c -> (c.getDireccion() != null) ? c.getDireccion().getRegion() : null));
+    }
+
+    /**
+     * Suma producción e ingresos por tipo de producto.
+     *
+     * @return mapa de solo lectura de tipo de producto a totales, ordenado alfabéticamente
+     * @see #resumirPorComuna()
+     */
+    public Map<String, ResumenProduccion> resumirPorTipoProducto() {
+        long inicio = System.nanoTime();
+        if (tabla != null) {
+            return RESUMIR_POR_TIPO.medir(inicio, AgregacionParalela.porCodigo(tabla.filas(), tabla.tiposProducto(),
+                    tabla::codigoTipoProducto, tabla::produccion, tabla::precioProducto));
+        }
+        return RESUMIR_POR_TIPO.medir(inicio,
+                AgregacionParalela.porClave(centros, c -> c.getProducto().getTipoProducto()));
+    }
+
+    /**
+     * Ordena usando claves de intercalación precalculadas: cada nombre se procesa
+     * con el {@link Collator} una sola vez y luego se comparan solo las claves.
+     */
+    private List<CentroCultivo> calcularOrdenPorNombre() {
+        Collator collator = Collator.getInstance(ESPANOL);
+        collator.setStrength(Collator.SECONDARY);
+
+        EntradaOrden[] entradas = new EntradaOrden[centros.size()];
+        for (int i = 0; i < entradas.length; i++) {
+            entradas[i] = new EntradaOrden(collator.getCollationKey(nombreCentro(i)), i);
+        }
+
+        // Orden estable: a igual nombre se conserva el orden original
+        Arrays.sort(entradas, Comparator.comparing(EntradaOrden::clave));
+
+        int[] orden = new int[entradas.length];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = entradas[i].posicion();
+        }
+
+        return new VistaCentros(centros, orden);
+    }
+
+    private record EntradaOrden(CollationKey clave, int posicion) {
+    }
+
+    /**
+     * Reemplazo de las posiciones {@code [desde, hasta)} de la colección por otros centros.
+     * Con {@code desde == hasta} es una inserción, y con {@code centros} vacía, una eliminación.
+     *
+     * @param desde   primera posición reemplazada
+     * @param hasta   primera posición no reemplazada
+     * @param centros centros que ocupan el tramo
+     */
+    public record Reemplazo(int desde, int hasta, List<CentroCultivo> centros) {
+
+        public Reemplazo {
+            if (desde < 0 || hasta < desde) {
+                throw new IllegalArgumentException("Tramo de reemplazo inválido: [" + desde + ", " + hasta + ").");
+            }
+            centros = (centros == null) ? List.of() : centros;
+        }
     }
 }
@@ -0,0 +1,172 @@
+package com.salmonttcorp.service;
+
+import com.salmonttcorp.model.CentroCultivo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Variante de {@link CentroService} que admite altas, modificaciones y bajas de centros
+ * mientras otros hilos la consultan.
+ * <p>
+ * Pensada para muchos lectores y pocos escritores. Internamente guarda un {@link CentroService}
+ * inmutable en un campo {@code volatile}:
+ * <ul>
+ *   <li>las consultas leen el servicio vigente y le delegan la operación, sin bloqueos;</li>
+ *   <li>cada escritura, serializada con {@code synchronized}, crea un servicio nuevo con
+ *       {@link CentroService#aplicarCambios(List)} (que actualiza los índices por comuna y
+ *       producción sin reconstruirlos) y lo publica de una vez.</li>
+ * </ul>
+ * Así, una consulta nunca ve los índices a medio actualizar: ve el estado anterior o el nuevo
+ * completo. Para hacer varias consultas sobre un mismo estado, usar {@link #instantanea()}.
+ * <p>
+ * Cada escritura cuesta O(n) en la cantidad de centros: el centro se ubica recorriendo la
+ * colección por nombre y {@link CentroService#aplicarCambios(List)} copia la lista y renumera
+ * los índices. Un índice por nombre evitaría solo el recorrido, no la copia, y habría que
+ * renumerarlo en cada baja, por lo que no se mantiene. La clase conviene para muchas lecturas
+ * y pocas escrituras; para cambios masivos conviene reunirlos en un solo
+ * {@code aplicarCambios} o volver a cargar la colección.
+ * <p>
+ * Los centros se identifican por {@code nombreCentro}; si la colección inicial trae nombres
+ * repetidos, las operaciones actúan sobre el primero.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class CentroServiceConcurrente {
+
+    private volatile CentroService actual;
+
+    /**
+     * @param centros lista inicial de centros de cultivo
+     */
+    public CentroServiceConcurrente(List<CentroCultivo> centros) {
+        this(new CentroService(centros));
+    }
+
+    /**
+     * @param inicial servicio con el estado inicial; no puede ser nulo
+     */
+    public CentroServiceConcurrente(CentroService inicial) {
+        if (inicial == null) {
+            throw new IllegalArgumentException("El servicio inicial no puede ser nulo.");
+        }
+        this.actual = inicial;
+    }
+
+    /**
+     * @return servicio inmutable con el estado vigente
+     */
+    public CentroService instantanea() {
+        return actual;
+    }
+
+    // ===================== ESCRITURA ======================
+
+    /**
+     * Agrega un centro al final de la colección.
+     *
+     * @param centro centro a agregar
+     * @return {@code false} si ya existe un centro con el mismo nombre
+     */
+    public synchronized boolean agregar(CentroCultivo centro) {
+        validar(centro);
+
+        if (actual.posicionDe(centro.getNombreCentro()) >= 0) {
+            return false;
+        }
+
+        int total = actual.centros().size();
+        actual = actual.aplicarCambios(List.of(new CentroService.Reemplazo(total, total, List.of(centro))));
+        return true;
+    }
+
+    /**
+     * Reemplaza el centro que tiene el mismo nombre que el indicado, conservando su posición.
+     *
+     * @param centro nuevos datos del centro
+     * @return {@code false} si no existe un centro con ese nombre
+     */
+    public synchronized boolean actualizar(CentroCultivo centro) {
+        validar(centro);
+
+        int posicion = actual.posicionDe(centro.getNombreCentro());
+        if (posicion < 0) {
+            return false;
+        }
+
+        actual = actual.aplicarCambios(List.of(new CentroService.Reemplazo(posicion, posicion + 1, List.of(centro))));
+        return true;
+    }
+
+    /**
+     * Elimina el centro con el nombre indicado.
+     *
+     * @param nombreCentro nombre del centro
+     * @return {@code false} si no existe un centro con ese nombre
+     */
+    public synchronized boolean eliminar(String nombreCentro) {
+        if (nombreCentro == null) {
+            return false;
+        }
+
+        int posicion = actual.posicionDe(nombreCentro);
+        if (posicion < 0) {
+            return false;
+        }
+
+        actual = actual.aplicarCambios(List.of(new CentroService.Reemplazo(posicion, posicion + 1, List.of())));
+        return true;
+    }
+
+    private static void validar(CentroCultivo centro) {
+        if (centro == null) {
+            throw new IllegalArgumentException("El centro no puede ser nulo.");
+        }
+    }
+
+    // ===================== CONSULTAS ======================
+
+    public List<CentroCultivo> centros() {
+        return actual.centros();
+    }
+
+    public List<CentroCultivo> listarTodos() {
+        return actual.listarTodos();
+    }
+
+    public List<CentroCultivo> buscarPorComuna(String comuna) {
+        return actual.buscarPorComuna(comuna);
+    }
+
+    public List<CentroCultivo> filtrarPorProduccionMinima(int produccionMinima) {
+        return actual.filtrarPorProduccionMinima(produccionMinima);
+    }
+
+    public List<CentroCultivo> filtrarPorRangoProduccion(int produccionMinima, int produccionMaxima) {
+        return actual.filtrarPorRangoProduccion(produccionMinima, produccionMaxima);
+    }
+
+    public List<CentroCultivo> mayoresProductores(int cantidad) {
+        return actual.mayoresProductores(cantidad);
+    }
+
+    public List<CentroCultivo> ordenarPorNombre() {
+        return actual.ordenarPorNombre();
+    }
+
+    public long produccionTotal() {
+        return actual.produccionTotal();
+    }
+
+    public Map<String, ResumenProduccion> resumirPorComuna() {
+        return actual.resumirPorComuna();
+    }
+
+    public Map<String, ResumenProduccion> resumirPorRegion() {
+        return actual.resumirPorRegion();
+    }
+
+    public Map<String, ResumenProduccion> resumirPorTipoProducto() {
+        return actual.resumirPorTipoProducto();
+    }
+}
@@ -0,0 +1,346 @@
+package com.salmonttcorp.service;
+
+import com.salmonttcorp.metricas.Histograma;
+import com.salmonttcorp.metricas.Metricas;
+import com.salmonttcorp.model.CentroCultivo;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Consulta que combina condiciones sobre los centros de un {@link CentroService}, por ejemplo:
+ * <pre>
+ * service.consulta()
+ *        .tipoProducto("Fresco")
+ *        .region("Los Lagos")
+ *        .produccionMinima(1000)
+ *        .fechaRutaEntre(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31))
+ *        .ejecutar();
+ * </pre>
+ * Todas las condiciones deben cumplirse. Antes de recorrer, la consulta compara cuántos
+ * candidatos entrega cada índice aplicable (comuna, rango de producción y fechas de ruta) y
+ * parte desde el más selectivo; solo sobre esos candidatos evalúa el resto de las condiciones.
+ * Si no hay índice aplicable, recorre todos los centros.
+ * <p>
+ * Los textos se comparan igual que en {@link CentroService#buscarPorComuna(String)}, sin
+ * distinguir mayúsculas ni tildes; cada valor distinto se normaliza una sola vez por ejecución.
+ * El resultado respeta el orden de la colección original.
+ * <p>
+ * Una consulta se arma y ejecuta desde un mismo hilo. La latencia de cada ejecución se registra
+ * en {@link Metricas} como {@code consulta.compuesta}.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class ConsultaCentros {
+
+    /**
+     * Un índice que entrega candidatos en desorden se prefiere a recorrer todo solo si
+     * entrega menos de {@code 1 / FACTOR_RECORRIDO} de los centros.
+     */
+    private static final int FACTOR_RECORRIDO = 4;
+
+    private static final Histograma CONSULTA = Metricas.globales().histograma("consulta.compuesta");
+
+    private final CentroService service;
+
+    /** Clave normalizada de la comuna pedida, o {@code null} si no se filtra por comuna. */
+    private String comuna;
+    private Condicion condicionComuna;
+    private boolean comunasIncompatibles;
+
+    private int produccionMinima = Integer.MIN_VALUE;
+    private int produccionMaxima = Integer.MAX_VALUE;
+
+    /** Ventana de fechas de ruta pedida, o {@code null} si no se filtra por fecha. */
+    private LocalDate fechaDesde;
+    private LocalDate fechaHasta;
+
+    /** Condiciones sin índice, en el orden en que se evalúan. */
+    private final List<Condicion> condiciones = new ArrayList<>();
+    private final List<Predicate<CentroCultivo>> predicados = new ArrayList<>();
+
+    ConsultaCentros(CentroService service) {
+        this.service = service;
+    }
+
+    // ===================== CONDICIONES ======================
+
+    /**
+     * Centros cuya dirección está en la comuna indicada. Usa el índice por comuna.
+     */
+    public ConsultaCentros comuna(String comuna) {
+        String clave = NormalizadorTexto.clave(comuna);
+        if (this.comuna != null && !this.comuna.equals(clave)) {
+            comunasIncompatibles = true;
+        }
+        this.comuna = clave;
+        this.condicionComuna = new TextoIgual(service::comunaDireccion, comuna);
+        return this;
+    }
+
+    /**
+     * Centros cuya dirección está en la región indicada.
+     */
+    public ConsultaCentros region(String region) {
+        condiciones.add(new TextoIgual(service::regionDireccion, region));
+        return this;
+    }
+
+    public ConsultaCentros nombreProducto(String nombreProducto) {
+        condiciones.add(new TextoIgual(service::nombreProducto, nombreProducto));
+        return this;
+    }
+
+    public ConsultaCentros tipoProducto(String tipoProducto) {
+        condiciones.add(new TextoIgual(service::tipoProducto, tipoProducto));
+        return this;
+    }
+
+    /**
+     * Centros con ruta a cargo del responsable indicado.
+     */
+    public ConsultaCentros responsableRuta(String responsable) {
+        condiciones.add(new TextoIgual(service::responsableRuta, responsable));
+        return this;
+    }
+
+    /**
+     * Centros con producción mayor o igual a la indicada. Usa el índice de producción.
+     */
+    public ConsultaCentros produccionMinima(int produccionMinima) {
+        this.produccionMinima = Math.max(this.produccionMinima, produccionMinima);
+        return this;
+    }
+
+    /**
+     * Centros con producción menor o igual a la indicada. Usa el índice de producción.
+     */
+    public ConsultaCentros produccionMaxima(int produccionMaxima) {
+        this.produccionMaxima = Math.min(this.produccionMaxima, produccionMaxima);
+        return this;
+    }
+
+    /**
+     * Centros con producción entre los valores indicados, ambos incluidos.
+     */
+    public ConsultaCentros produccionEntre(int produccionMinima, int produccionMaxima) {
+        return produccionMinima(produccionMinima).produccionMaxima(produccionMaxima);
+    }
+
+    /**
+     * Centros con ruta cuya fecha (formato {@code aaaa-mm-dd}) está entre las indicadas, ambas incluidas.
+     * Las rutas con fechas en otro formato no cumplen la condición. Usa el índice de fechas.
+     */
+    public ConsultaCentros fechaRutaEntre(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Las fechas del rango no pueden ser nulas.");
+        }
+        fechaDesde = (fechaDesde == null || desde.isAfter(fechaDesde)) ? desde : fechaDesde;
+        fechaHasta = (fechaHasta == null || hasta.isBefore(fechaHasta)) ? hasta : fechaHasta;
+        condiciones.add(new FechaEntre(desde, hasta));
+        return this;
+    }
+
+    /**
+     * Condición libre sobre el centro. Se evalúa al final, solo sobre los centros que
+     * cumplen las demás condiciones.
+     */
+    public ConsultaCentros donde(Predicate<CentroCultivo> condicion) {
+        if (condicion == null) {
+            throw new IllegalArgumentException("La condición no puede ser nula.");
+        }
+        predicados.add(condicion);
+        return this;
+    }
+
+    // ===================== EJECUCIÓN ======================
+
+    /**
+     * @return lista de solo lectura con los centros que cumplen todas las condiciones,
+     * en el orden de la colección
+     */
+    public List<CentroCultivo> ejecutar() {
+        long inicio = System.nanoTime();
+        return CONSULTA.medir(inicio, service.vista(posiciones()));
+    }
+
+    /**
+     * @return cantidad de centros que cumplen todas las condiciones
+     */
+    public int contar() {
+        long inicio = System.nanoTime();
+        int cantidad = posiciones().length;
+        CONSULTA.registrarDesde(inicio);
+        return cantidad;
+    }
+
+    /**
+     * Describe desde qué conjunto de candidatos partiría la consulta, sin ejecutarla.
+     *
+     * @return por ejemplo {@code "índice por comuna (120 candidatos)"}
+     */
+    public String explicar() {
+        Plan plan = planificar();
+        return plan.descripcion + " (" + plan.candidatos + " candidatos)";
+    }
+
+    private int[] posiciones() {
+        Plan plan = planificar();
+        if (plan.candidatos == 0) {
+            return new int[0];
+        }
+
+        IntStream.Builder resultado = IntStream.builder();
+        for (int i = 0; i < plan.candidatos; i++) {
+            int posicion = (plan.vista != null) ? plan.vista.posicion(i) : i;
+            if (cumple(posicion)) {
+                resultado.add(posicion);
+            }
+        }
+
+        int[] posiciones = resultado.build().toArray();
+        if (plan.desordenado) {
+            // El índice de producción entrega los candidatos por producción
+            Arrays.sort(posiciones);
+        }
+        return posiciones;
+    }
+
+    /**
+     * Elige el índice que entrega menos candidatos.
+     */
+    private Plan planificar() {
+        if (comunasIncompatibles || produccionMinima > produccionMaxima) {
+            return new Plan("condiciones incompatibles", 0, null, false);
+        }
+
+        Plan plan = new Plan("recorrido completo", service.centros().size(), null, false);
+
+        if (comuna != null) {
+            VistaCentros vista = service.vistaComuna(comuna);
+            plan = new Plan("índice por comuna", (vista == null) ? 0 : vista.size(), vista, false);
+        }
+
+        if (produccionMinima != Integer.MIN_VALUE || produccionMaxima != Integer.MAX_VALUE) {
+            int candidatos = service.contarRangoProduccion(produccionMinima, produccionMaxima);
+            // Los candidatos de este índice se visitan en desorden y luego se reordenan,
+            // así que frente a un recorrido completo solo conviene si descarta buena parte
+            int limite = (plan.vista == null) ? plan.candidatos / FACTOR_RECORRIDO : plan.candidatos;
+            if (candidatos < limite) {
+                plan = new Plan("índice de producción", candidatos,
+                        service.vistaRangoProduccion(produccionMinima, produccionMaxima), true);
+            }
+        }
+
+        if (fechaDesde != null) {
+            if (fechaDesde.isAfter(fechaHasta)) {
+                return new Plan("condiciones incompatibles", 0, null, false);
+            }
+
+            IndiceFechas indice = service.indiceFechas();
+            int desde = indice.primeraDesde(fechaDesde.toEpochDay());
+            int hasta = Math.max(desde, indice.primeraSobre(fechaHasta.toEpochDay()));
+            int limite = (plan.vista == null) ? plan.candidatos / FACTOR_RECORRIDO : plan.candidatos;
+            if (hasta - desde < limite) {
+                plan = new Plan("índice de fechas", hasta - desde, indice.tramo(desde, hasta), true);
+            }
+        }
+
+        return plan;
+    }
+
+    private boolean cumple(int posicion) {
+        int produccion = service.produccion(posicion);
+        if (produccion < produccionMinima || produccion > produccionMaxima) {
+            return false;
+        }
+
+        if (condicionComuna != null && !condicionComuna.cumple(posicion)) {
+            return false;
+        }
+
+        for (Condicion condicion : condiciones) {
+            if (!condicion.cumple(posicion)) {
+                return false;
+            }
+        }
+
+        if (!predicados.isEmpty()) {
+            CentroCultivo centro = service.centros().get(posicion);
+            for (Predicate<CentroCultivo> predicado : predicados) {
+                if (!predicado.test(centro)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private record Plan(String descripcion, int candidatos, VistaCentros vista, boolean desordenado) {
+    }
+
+    // ===================== CONDICIONES SIN ÍNDICE ======================
+
+    private interface Condicion {
+        boolean cumple(int posicion);
+    }
+
+    /**
+     * Igualdad de textos normalizados. Como los campos filtrables se repiten mucho, el
+     * resultado se recuerda por cada valor distinto.
+     */
+    private static final class TextoIgual implements Condicion {
+
+        private final IntFunction<String> campo;
+        private final String clave;
+        private final Map<String, Boolean> resultados = new HashMap<>();
+
+        TextoIgual(IntFunction<String> campo, String valor) {
+            this.campo = campo;
+            this.clave = NormalizadorTexto.clave(valor);
+        }
+
+        @Override
+        public boolean cumple(int posicion) {
+            String valor = campo.apply(posicion);
+            return valor != null
+                    && resultados.computeIfAbsent(valor, v -> clave.equals(NormalizadorTexto.clave(v)));
+        }
+    }
+
+    private final class FechaEntre implements Condicion {
+
+        private final LocalDate desde;
+        private final LocalDate hasta;
+        private final Map<String, Boolean> resultados = new HashMap<>();
+
+        FechaEntre(LocalDate desde, LocalDate hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        public boolean cumple(int posicion) {
+            String fecha = service.fechaRuta(posicion);
+            return fecha != null && resultados.computeIfAbsent(fecha, this::enRango);
+        }
+
+        private boolean enRango(String fecha) {
+            try {
+                LocalDate dia = LocalDate.parse(fecha);
+                return !dia.isBefore(desde) && !dia.isAfter(hasta);
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.salmonttcorp.service;
+
+import com.salmonttcorp.model.CentroCultivo;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Índice de los centros con ruta, ordenado por la fecha de la ruta.
+ * <p>
+ * Cada fecha ({@code aaaa-mm-dd}) se interpreta una sola vez por valor distinto y se guarda
+ * como día época ({@link LocalDate#toEpochDay()}) en un {@code int[]}, en paralelo con la
+ * posición del centro. Las consultas por ventana de fechas o "próximas N" se resuelven con
+ * búsqueda binaria y entregan una vista, sin comparar textos ni crear fechas.
+ * <p>
+ * Los centros sin ruta o con una fecha en otro formato no quedan en el índice.
+ * A igual fecha se conserva el orden de la lista original.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+final class IndiceFechas {
+
+    private static final int SIN_FECHA = Integer.MIN_VALUE;
+
+    private final List<CentroCultivo> centros;
+    private final int[] dias;
+    private final int[] posiciones;
+
+    /**
+     * @param centros lista de centros; no debe modificarse mientras el índice esté en uso
+     * @param fecha   fecha de la ruta de cada posición, o {@code null} si no tiene ruta
+     */
+    IndiceFechas(List<CentroCultivo> centros, IntFunction<String> fecha) {
+        this.centros = centros;
+        Map<String, Integer> interpretadas = new HashMap<>();
+
+        long[] claves = new long[centros.size()];
+        int total = 0;
+
+        for (int i = 0; i < centros.size(); i++) {
+            String texto = fecha.apply(i);
+            if (texto == null) {
+                continue;
+            }
+
+            int dia = interpretadas.computeIfAbsent(texto, IndiceFechas::diaEpoca);
+            if (dia != SIN_FECHA) {
+                // Día en los 32 bits altos y posición en los bajos, como en IndiceProduccion
+                claves[total++] = ((long) dia << 32) | i;
+            }
+        }
+
+        Arrays.sort(claves, 0, total);
+
+        this.dias = new int[total];
+        this.posiciones = new int[total];
+        for (int i = 0; i < total; i++) {
+            dias[i] = (int) (claves[i] >>> 32);
+            posiciones[i] = (int) claves[i];
+        }
+    }
+
+    private static int diaEpoca(String fecha) {
+        try {
+            return (int) LocalDate.parse(fecha.trim()).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return SIN_FECHA;
+        }
+    }
+
+    /**
+     * @return primera posición del índice con día mayor o igual a {@code dia}
+     */
+    int primeraDesde(long dia) {
+        int bajo = 0;
+        int alto = dias.length;
+
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (dias[medio] < dia) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+
+        return bajo;
+    }
+
+    /**
+     * @return primera posición del índice con día mayor a {@code dia}
+     */
+    int primeraSobre(long dia) {
+        return primeraDesde(dia + 1);
+    }
+
+    int tamano() {
+        return dias.length;
+    }
+
+    /**
+     * @return día época de la entrada {@code i} del índice
+     */
+    int dia(int i) {
+        return dias[i];
+    }
+
+    /**
+     * @return posición en la lista de centros de la entrada {@code i} del índice
+     */
+    int posicion(int i) {
+        return posiciones[i];
+    }
+
+    /**
+     * @return vista ordenada por fecha de las entradas {@code [desde, hasta)} del índice
+     */
+    VistaCentros tramo(int desde, int hasta) {
+        return new VistaCentros(centros, posiciones, desde, hasta, false);
+    }
+}
@@ -0,0 +1,170 @@
+package com.salmonttcorp.service;
+
+import com.salmonttcorp.model.CentroCultivo;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice ordenado por producción sobre una lista de centros.
+ * <p>
+ * Guarda las producciones ordenadas en un {@code int[]} y, en paralelo, la posición de cada
+ * centro en la lista original (una permutación). Las consultas por umbral o rango se
+ * resuelven con búsqueda binaria y entregan una vista sobre el tramo encontrado, por lo
+ * que cuestan O(log n) más lo que se recorra del resultado, sin cajas {@link Integer}.
+ * <p>
+ * A igual producción se conserva el orden de la lista original.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+final class IndiceProduccion {
+
+    private final List<CentroCultivo> centros;
+    private final int[] producciones;
+    private final int[] posiciones;
+
+    /**
+     * @param centros              lista de centros; no debe modificarse mientras el índice esté en uso
+     * @param produccionPorPosicion producción de cada centro, en el orden de {@code centros}
+     */
+    IndiceProduccion(List<CentroCultivo> centros, int[] produccionPorPosicion) {
+        this.centros = centros;
+        int total = produccionPorPosicion.length;
+
+        // Producción en los 32 bits altos y posición en los bajos: un único sort primitivo
+        // ordena por producción y, a igualdad, por posición original
+        long[] claves = new long[total];
+        for (int i = 0; i < total; i++) {
+            claves[i] = ((long) produccionPorPosicion[i] << 32) | i;
+        }
+        Arrays.sort(claves);
+
+        this.producciones = new int[total];
+        this.posiciones = new int[total];
+        for (int i = 0; i < total; i++) {
+            producciones[i] = (int) (claves[i] >>> 32);
+            posiciones[i] = (int) claves[i];
+        }
+    }
+
+    /**
+     * Actualiza un índice existente después de reemplazar tramos de la lista, sin volver a
+     * ordenarla completa: las entradas conservadas ya están en orden, solo se ordenan las
+     * insertadas y luego se mezclan ambas secuencias.
+     *
+     * @param anterior             índice sobre la lista anterior
+     * @param centros              lista nueva
+     * @param nuevaPosicion        posición en la lista nueva de cada posición anterior, o -1 si se eliminó;
+     *                             debe ser creciente entre las conservadas
+     * @param insertadas           posiciones de la lista nueva que no estaban en la anterior
+     * @param produccionInsertadas producción de cada posición de {@code insertadas}
+     */
+    IndiceProduccion(IndiceProduccion anterior, List<CentroCultivo> centros, int[] nuevaPosicion,
+                     int[] insertadas, int[] produccionInsertadas) {
+        this.centros = centros;
+
+        long[] nuevas = new long[insertadas.length];
+        for (int i = 0; i < nuevas.length; i++) {
+            nuevas[i] = ((long) produccionInsertadas[i] << 32) | insertadas[i];
+        }
+        Arrays.sort(nuevas);
+
+        int conservadas = 0;
+        for (int posicion : nuevaPosicion) {
+            if (posicion >= 0) {
+                conservadas++;
+            }
+        }
+
+        int total = conservadas + nuevas.length;
+        this.producciones = new int[total];
+        this.posiciones = new int[total];
+
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < total; k++) {
+            while (i < anterior.posiciones.length && nuevaPosicion[anterior.posiciones[i]] < 0) {
+                i++;
+            }
+
+            long claveAnterior = (i < anterior.posiciones.length)
+                    ? ((long) anterior.producciones[i] << 32) | nuevaPosicion[anterior.posiciones[i]]
+                    : Long.MAX_VALUE;
+
+            if (j == nuevas.length || claveAnterior < nuevas[j]) {
+                producciones[k] = anterior.producciones[i];
+                posiciones[k] = nuevaPosicion[anterior.posiciones[i]];
+                i++;
+            } else {
+                producciones[k] = (int) (nuevas[j] >>> 32);
+                posiciones[k] = (int) nuevas[j];
+                j++;
+            }
+        }
+    }
+
+    /**
+     * @return primera posición del índice con producción mayor o igual a {@code minimo}
+     */
+    int primeraDesde(int minimo) {
+        int bajo = 0;
+        int alto = producciones.length;
+
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (producciones[medio] < minimo) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+
+        return bajo;
+    }
+
+    /**
+     * @return primera posición del índice con producción mayor a {@code maximo}
+     */
+    int primeraSobre(int maximo) {
+        return maximo == Integer.MAX_VALUE ? producciones.length : primeraDesde(maximo + 1);
+    }
+
+    int tamano() {
+        return producciones.length;
+    }
+
+    /**
+     * @return suma de la producción de todos los centros indexados
+     */
+    long total() {
+        long total = 0;
+        for (int produccion : producciones) {
+            total += produccion;
+        }
+        return total;
+    }
+
+    /**
+     * @return vista ascendente por producción de las posiciones {@code [desde, hasta)} del índice
+     */
+    VistaCentros ascendente(int desde, int hasta) {
+        return new VistaCentros(centros, posiciones, desde, hasta, false);
+    }
+
+    /**
+     * @return vista de las posiciones {@code [desde, hasta)} del índice en el orden de la lista
+     * original; copia y ordena solo las posiciones del tramo
+     */
+    VistaCentros enOrdenOriginal(int desde, int hasta) {
+        int[] tramo = Arrays.copyOfRange(posiciones, desde, Math.max(desde, hasta));
+        Arrays.sort(tramo);
+        return new VistaCentros(centros, tramo);
+    }
+
+    /**
+     * @return vista descendente por producción de las posiciones {@code [desde, hasta)} del índice
+     */
+    VistaCentros descendente(int desde, int hasta) {
+        return new VistaCentros(centros, posiciones, desde, hasta, true);
+    }
+}
@@ -0,0 +1,52 @@
+package com.salmonttcorp.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza textos para usarlos como claves de búsqueda: sin espacios en los extremos,
+ * en minúsculas y sin tildes ni diacríticos, de modo que "Quellón", "QUELLON" y
+ * " quellon " resulten en la misma clave.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+final class NormalizadorTexto {
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    private NormalizadorTexto() {
+    }
+
+    /**
+     * @param texto texto a normalizar; puede ser nulo
+     * @return clave normalizada, o cadena vacía si el texto es nulo
+     */
+    static String clave(String texto) {
+        if (texto == null) {
+            return "";
+        }
+
+        String recortado = texto.trim();
+
+        if (esAsciiMinuscula(recortado)) {
+            return recortado;
+        }
+
+        String sinDiacriticos = DIACRITICOS
+                .matcher(Normalizer.normalize(recortado, Normalizer.Form.NFD))
+                .replaceAll("");
+
+        return sinDiacriticos.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean esAsciiMinuscula(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c > 0x7F || (c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,320 @@
+package com.salmonttcorp.service;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.model.Direccion;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Planifica las visitas de una ventana de fechas: reparte los centros de cada región entre
+ * los responsables de ruta de esa región y arma para cada responsable una secuencia de visitas.
+ * <p>
+ * El proceso es:
+ * <ol>
+ *   <li>Se toman los centros con ruta en la ventana (índice de fechas) que tienen dirección,
+ *       y se agrupan por región.</li>
+ *   <li>En cada región, los centros se ordenan por comuna, calle y número, y ese orden se
+ *       corta en tramos contiguos de igual tamaño, uno por cada responsable con rutas en la
+ *       región: la carga queda pareja y cada responsable recibe centros vecinos.</li>
+ *   <li>Las paradas de cada responsable se cortan, en ese mismo orden, en bloques de hasta
+ *       {@link #TAMANO_BLOQUE} centros. Cada bloque se ordena con vecino más cercano y se mejora
+ *       con 2-opt sobre una matriz local de distancias, y los bloques se encadenan. Todos los
+ *       bloques de todos los responsables se resuelven en paralelo.</li>
+ * </ol>
+ * Los bloques mantienen el costo por responsable lineal en la cantidad de centros (vecino más
+ * cercano y 2-opt son cuadráticos); como los bloques siguen el orden geográfico, las uniones
+ * entre ellos son cortas.
+ * El modelo no guarda coordenadas, por lo que la distancia por defecto
+ * ({@link #distanciaAproximada(Direccion, Direccion)}) es una aproximación a partir de región,
+ * comuna, calle y número; se puede entregar otra medida en el constructor.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class PlanificadorRutas {
+
+    /** Máximo de paradas que se ordenan juntas, con su matriz de distancias. */
+    static final int TAMANO_BLOQUE = 512;
+
+    /** Máximo de pasadas de 2-opt por secuencia. */
+    static final int MAXIMO_PASADAS = 50;
+
+    private final ToDoubleBiFunction<Direccion, Direccion> distancia;
+
+    /**
+     * Crea un planificador con la distancia aproximada por defecto.
+     */
+    public PlanificadorRutas() {
+        this(PlanificadorRutas::distanciaAproximada);
+    }
+
+    /**
+     * @param distancia medida de distancia entre dos direcciones; debe ser simétrica
+     */
+    public PlanificadorRutas(ToDoubleBiFunction<Direccion, Direccion> distancia) {
+        if (distancia == null) {
+            throw new IllegalArgumentException("La medida de distancia no puede ser nula.");
+        }
+        this.distancia = distancia;
+    }
+
+    /**
+     * Secuencia de visitas asignada a un responsable.
+     *
+     * @param region      región de los centros
+     * @param responsable responsable de las visitas
+     * @param paradas     centros en el orden en que se visitan
+     * @param distancia   distancia total del recorrido, sin volver al inicio
+     */
+    public record Recorrido(String region, String responsable, List<CentroCultivo> paradas, double distancia) {
+    }
+
+    /**
+     * Planifica las visitas de los centros con ruta entre las fechas indicadas.
+     *
+     * @param service servicio con los centros cargados
+     * @param desde   primer día de la ventana
+     * @param hasta   último día de la ventana
+     * @return recorridos ordenados por región y responsable
+     */
+    public List<Recorrido> planificar(CentroService service, LocalDate desde, LocalDate hasta) {
+        if (service == null) {
+            throw new IllegalArgumentException("El servicio de centros no puede ser nulo.");
+        }
+
+        Map<String, List<CentroCultivo>> porRegion = new TreeMap<>();
+        for (CentroCultivo centro : service.rutasEntre(desde, hasta)) {
+            if (centro.getDireccion() != null) {
+                porRegion.computeIfAbsent(centro.getDireccion().getRegion(), r -> new ArrayList<>()).add(centro);
+            }
+        }
+
+        List<Asignacion> asignaciones = new ArrayList<>();
+        porRegion.forEach((region, centros) -> asignaciones.addAll(asignar(region, centros)));
+
+        List<List<CentroCultivo>> bloques = new ArrayList<>();
+        for (Asignacion asignacion : asignaciones) {
+            List<CentroCultivo> centros = asignacion.centros();
+            for (int desdeBloque = 0; desdeBloque < centros.size(); desdeBloque += TAMANO_BLOQUE) {
+                bloques.add(centros.subList(desdeBloque, Math.min(centros.size(), desdeBloque + TAMANO_BLOQUE)));
+            }
+        }
+
+        List<List<CentroCultivo>> ordenados = bloques.parallelStream()
+                .map(this::ordenar)
+                .collect(Collectors.toList());
+
+        // Los bloques vuelven en el mismo orden, así que se reparten de vuelta en secuencia
+        List<Recorrido> recorridos = new ArrayList<>(asignaciones.size());
+        int bloque = 0;
+        for (Asignacion asignacion : asignaciones) {
+            List<CentroCultivo> paradas = new ArrayList<>(asignacion.centros().size());
+            while (paradas.size() < asignacion.centros().size()) {
+                paradas.addAll(ordenados.get(bloque++));
+            }
+            recorridos.add(new Recorrido(asignacion.region(), asignacion.responsable(),
+                    List.copyOf(paradas), longitud(paradas)));
+        }
+
+        return recorridos;
+    }
+
+    // ===================== ASIGNACIÓN ======================
+
+    /** Centros de una región asignados a un responsable, aún sin ordenar. */
+    private record Asignacion(String region, String responsable, List<CentroCultivo> centros) {
+    }
+
+    private List<Asignacion> asignar(String region, List<CentroCultivo> centros) {
+        centros.sort(Comparator.comparing((CentroCultivo c) -> c.getDireccion().getComuna())
+                .thenComparing(c -> c.getDireccion().getCalle())
+                .thenComparingLong(c -> numero(c.getDireccion())));
+
+        TreeSet<String> responsables = new TreeSet<>();
+        for (CentroCultivo centro : centros) {
+            responsables.add(centro.getRutaAsociada().getResponsable());
+        }
+
+        // Tramos contiguos del orden geográfico, de tamaño parejo
+        List<Asignacion> asignaciones = new ArrayList<>();
+        int cantidad = responsables.size();
+        int desde = 0;
+        int r = 0;
+
+        for (String responsable : responsables) {
+            int hasta = (int) ((long) centros.size() * ++r / cantidad);
+            if (hasta > desde) {
+                asignaciones.add(new Asignacion(region, responsable, centros.subList(desde, hasta)));
+            }
+            desde = hasta;
+        }
+
+        return asignaciones;
+    }
+
+    // ===================== SECUENCIA ======================
+
+    /**
+     * Ordena un bloque de centros, partiendo por el primero.
+     */
+    private List<CentroCultivo> ordenar(List<CentroCultivo> centros) {
+        Distancias distancias = new Distancias(centros);
+
+        int[] orden = vecinoMasCercano(distancias, centros.size());
+        mejorarDosOpt(distancias, orden);
+
+        List<CentroCultivo> paradas = new ArrayList<>(orden.length);
+        for (int posicion : orden) {
+            paradas.add(centros.get(posicion));
+        }
+        return paradas;
+    }
+
+    private double longitud(List<CentroCultivo> paradas) {
+        double total = 0;
+        for (int i = 1; i < paradas.size(); i++) {
+            total += distancia.applyAsDouble(paradas.get(i - 1).getDireccion(), paradas.get(i).getDireccion());
+        }
+        return total;
+    }
+
+    /**
+     * Construye un recorrido partiendo del primer centro y visitando siempre el más cercano
+     * entre los que faltan.
+     */
+    private static int[] vecinoMasCercano(Distancias distancias, int n) {
+        int[] orden = new int[n];
+        boolean[] visitado = new boolean[n];
+        visitado[0] = true;
+
+        for (int paso = 1; paso < n; paso++) {
+            int actual = orden[paso - 1];
+            int siguiente = -1;
+            double mejor = Double.POSITIVE_INFINITY;
+
+            for (int j = 0; j < n; j++) {
+                if (!visitado[j]) {
+                    double d = distancias.entre(actual, j);
+                    if (d < mejor) {
+                        mejor = d;
+                        siguiente = j;
+                    }
+                }
+            }
+
+            orden[paso] = siguiente;
+            visitado[siguiente] = true;
+        }
+
+        return orden;
+    }
+
+    /**
+     * Mejora el recorrido invirtiendo tramos mientras eso lo acorte (2-opt sobre un camino
+     * abierto, sin regreso al inicio), hasta que no haya mejoras o se alcance
+     * {@link #MAXIMO_PASADAS}.
+     */
+    private static void mejorarDosOpt(Distancias distancias, int[] orden) {
+        int n = orden.length;
+        boolean mejoro = true;
+
+        for (int pasada = 0; pasada < MAXIMO_PASADAS && mejoro; pasada++) {
+            mejoro = false;
+
+            for (int i = 1; i < n - 1; i++) {
+                int anterior = orden[i - 1];
+                double actual = distancias.entre(anterior, orden[i]);
+
+                for (int k = i + 1; k < n; k++) {
+                    double delta = distancias.entre(anterior, orden[k]) - actual;
+                    if (k + 1 < n) {
+                        delta += distancias.entre(orden[i], orden[k + 1]) - distancias.entre(orden[k], orden[k + 1]);
+                    }
+
+                    if (delta < -1e-9) {
+                        invertir(orden, i, k);
+                        actual = distancias.entre(anterior, orden[i]);
+                        mejoro = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void invertir(int[] orden, int desde, int hasta) {
+        while (desde < hasta) {
+            int auxiliar = orden[desde];
+            orden[desde++] = orden[hasta];
+            orden[hasta--] = auxiliar;
+        }
+    }
+
+    /**
+     * Distancias entre los centros de un bloque, precalculadas en una matriz triangular.
+     */
+    private final class Distancias {
+
+        private final double[] matriz;
+
+        Distancias(List<CentroCultivo> centros) {
+            int n = centros.size();
+            this.matriz = new double[n * (n - 1) / 2];
+            for (int i = 1; i < n; i++) {
+                Direccion a = centros.get(i).getDireccion();
+                int fila = i * (i - 1) / 2;
+                for (int j = 0; j < i; j++) {
+                    matriz[fila + j] = distancia.applyAsDouble(a, centros.get(j).getDireccion());
+                }
+            }
+        }
+
+        double entre(int i, int j) {
+            if (i == j) {
+                return 0;
+            }
+            return (i > j) ? matriz[i * (i - 1) / 2 + j] : matriz[j * (j - 1) / 2 + i];
+        }
+    }
+
+    // ===================== DISTANCIA APROXIMADA ======================
+
+    /**
+     * Distancia aproximada entre dos direcciones, a falta de coordenadas: cambiar de región
+     * cuesta 1000, de comuna 100 y de calle 10; en la misma calle se usa la diferencia de
+     * numeración (100 números = 1).
+     */
+    public static double distanciaAproximada(Direccion a, Direccion b) {
+        if (!a.getRegion().equals(b.getRegion())) {
+            return 1000;
+        }
+        if (!a.getComuna().equals(b.getComuna())) {
+            return 100;
+        }
+
+        double numeracion = Math.abs(numero(a) - numero(b)) / 100.0;
+        return a.getCalle().equals(b.getCalle()) ? numeracion : 10 + Math.min(numeracion, 10);
+    }
+
+    /**
+     * @return dígitos iniciales del número de la dirección, o 0 si no comienza con un dígito
+     */
+    private static long numero(Direccion direccion) {
+        String numero = direccion.getNumero();
+        long valor = 0;
+        for (int i = 0; i < numero.length() && i < 18; i++) {
+            char c = numero.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,13 @@
+package com.salmonttcorp.service;
+
+/**
+ * Totales de un grupo de centros de cultivo (una comuna, región o tipo de producto).
+ * <p>
+ * Autor: Víctor Valenzuela
+ *
+ * @param centros    cantidad de centros del grupo
+ * @param produccion suma de la producción de los centros
+ * @param ingresos   suma de {@code produccion * precioProducto} de los centros
+ */
+public record ResumenProduccion(int centros, long produccion, double ingresos) {
+}
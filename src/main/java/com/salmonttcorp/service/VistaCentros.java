@@ -0,0 +1,63 @@
+package com.salmonttcorp.service;
+
+import com.salmonttcorp.model.CentroCultivo;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Vista de solo lectura sobre un tramo de un arreglo de posiciones de una lista de centros.
+ * <p>
+ * Permite que los índices entreguen sus resultados sin copiar centros: la vista solo
+ * traduce cada posición al centro correspondiente al momento de accederlo.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+final class VistaCentros extends AbstractList<CentroCultivo> implements RandomAccess {
+
+    private final List<CentroCultivo> centros;
+    private final int[] posiciones;
+    private final int desde;
+    private final int hasta;
+    private final boolean invertida;
+
+    /**
+     * @param centros    lista de centros a la que apuntan las posiciones
+     * @param posiciones posiciones dentro de {@code centros}
+     * @param desde      primera posición del arreglo incluida
+     * @param hasta      primera posición del arreglo excluida
+     * @param invertida  {@code true} para recorrer el tramo de atrás hacia adelante
+     */
+    VistaCentros(List<CentroCultivo> centros, int[] posiciones, int desde, int hasta, boolean invertida) {
+        this.centros = centros;
+        this.posiciones = posiciones;
+        this.desde = desde;
+        this.hasta = Math.max(desde, hasta);
+        this.invertida = invertida;
+    }
+
+    VistaCentros(List<CentroCultivo> centros, int[] posiciones) {
+        this(centros, posiciones, 0, posiciones.length, false);
+    }
+
+    @Override
+    public CentroCultivo get(int i) {
+        return centros.get(posicion(i));
+    }
+
+    /**
+     * @return posición en la lista de centros del elemento {@code i} de la vista
+     */
+    int posicion(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("Índice " + i + " fuera de rango: " + size());
+        }
+        return posiciones[invertida ? hasta - 1 - i : desde + i];
+    }
+
+    @Override
+    public int size() {
+        return hasta - desde;
+    }
+}
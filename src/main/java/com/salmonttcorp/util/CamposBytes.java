@@ -0,0 +1,68 @@
+package com.salmonttcorp.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link CamposLinea} sobre un rango de bytes UTF-8 de un {@link ByteBuffer},
+ * usada por el lector de archivos proyectados en memoria.
+ * <p>
+ * Los separadores, espacios y dígitos son ASCII, por lo que se reconocen byte a byte sin
+ * decodificar; solo los campos pedidos con {@link #texto(int)} se decodifican a {@link String}.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+class CamposBytes extends CamposLinea {
+
+    private ByteBuffer buffer;
+
+    /** Búfer reutilizable para copiar los bytes de un campo antes de decodificarlo. */
+    private byte[] bytesCampo = new byte[256];
+
+    /**
+     * Posiciona el cursor sobre la línea {@code [desde, hasta)} del búfer.
+     *
+     * @return este mismo cursor, para encadenar llamadas
+     */
+    CamposBytes separar(ByteBuffer buffer, int desde, int hasta) {
+        this.buffer = buffer;
+        separar(desde, hasta);
+        return this;
+    }
+
+    /**
+     * Sigue las comillas del rango indicado, que continúa un registro con un campo entre
+     * comillas abierto.
+     *
+     * @return {@code true} si el registro sigue abierto al final del rango
+     * @see CamposLinea#sigueEntreComillas(int, int)
+     */
+    boolean sigueEntreComillas(ByteBuffer buffer, int desde, int hasta) {
+        this.buffer = buffer;
+        return sigueEntreComillas(desde, hasta);
+    }
+
+    /**
+     * @return {@code true} si el rango indicado del búfer solo contiene espacios o está vacío
+     */
+    boolean esBlanco(ByteBuffer buffer, int desde, int hasta) {
+        this.buffer = buffer;
+        return esBlanco(desde, hasta);
+    }
+
+    @Override
+    protected int caracter(int posicion) {
+        return buffer.get(posicion) & 0xFF;
+    }
+
+    @Override
+    protected String crearTexto(int desde, int hasta) {
+        int largo = hasta - desde;
+        if (largo > bytesCampo.length) {
+            bytesCampo = new byte[Math.max(largo, bytesCampo.length * 2)];
+        }
+
+        buffer.get(desde, bytesCampo, 0, largo);
+        return new String(bytesCampo, 0, largo, StandardCharsets.UTF_8);
+    }
+}
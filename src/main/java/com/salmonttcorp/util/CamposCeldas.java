@@ -0,0 +1,47 @@
+package com.salmonttcorp.util;
+
+/**
+ * {@link CamposLinea} sobre valores que llegan ya separados, por ejemplo las celdas de una
+ * fila de planilla.
+ * <p>
+ * Los valores se copian uno tras otro en un búfer de caracteres reutilizable y se ubican como
+ * campos sin buscar separadores, así que un {@code ';'} dentro de un valor no parte el campo.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+class CamposCeldas extends CamposLinea {
+
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    /**
+     * Comienza una fila nueva, sin campos.
+     *
+     * @return este mismo cursor, para encadenar llamadas
+     */
+    CamposCeldas limpiar() {
+        buffer.setLength(0);
+        limpiarCampos();
+        return this;
+    }
+
+    /**
+     * Agrega el valor de la siguiente columna; {@code null} cuenta como campo vacío.
+     */
+    void agregar(CharSequence valor) {
+        int desde = buffer.length();
+        if (valor != null) {
+            buffer.append(valor);
+        }
+        agregarCampo(desde, buffer.length());
+    }
+
+    @Override
+    protected int caracter(int posicion) {
+        return buffer.charAt(posicion);
+    }
+
+    @Override
+    protected String crearTexto(int desde, int hasta) {
+        return buffer.substring(desde, hasta);
+    }
+}
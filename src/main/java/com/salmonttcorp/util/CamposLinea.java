@@ -0,0 +1,567 @@
+package com.salmonttcorp.util;
+
+/**
+ * Cursor reutilizable sobre los campos de una línea separada por punto y coma.
+ * <p>
+ * Reemplaza a {@code linea.split(";")} + {@code trim()}: en vez de crear un arreglo y un
+ * {@link String} por campo, registra la posición de inicio y fin de cada campo sobre el
+ * búfer original (texto o bytes) y solo crea un {@link String} cuando se pide con
+ * {@link #texto(int)}. Los campos numéricos se leen directamente desde el búfer con
+ * {@link #entero(int)} y {@link #decimal(int)}, sin pasar por subcadenas.
+ * <p>
+ * Las posiciones ya vienen recortadas (sin espacios en los extremos), con el mismo criterio
+ * de {@link String#trim()}. La cantidad de columnas sigue la regla de {@code split(";")}:
+ * los campos vacíos del final no se cuentan.
+ * <p>
+ * En los CSV ({@link #usarComillas(boolean)}) los campos pueden ir entre comillas dobles, como en
+ * RFC 4180: dentro de ellas un {@code ';'} no separa y {@code ""} representa una comilla. Las
+ * comillas solo abren un campo citado al comienzo del campo; en medio de un texto son un carácter
+ * más. Si la línea termina con unas comillas abiertas ({@link #comillaAbierta()}), el campo
+ * continúa en la línea siguiente: el lector sigue las comillas de cada línea nueva con
+ * {@link #sigueEntreComillas(int, int)} y separa el registro completo una sola vez. Un registro
+ * que no se cierra en {@value #MAXIMO_LINEAS_REGISTRO} líneas o {@value #MAXIMO_LARGO_REGISTRO}
+ * caracteres se da por mal cerrado.
+ * <p>
+ * Con {@link #mapear(int[])} las columnas que se piden se traducen a las del archivo, para los
+ * CSV cuyo encabezado trae las columnas en otro orden o solo se quiere leer algunas.
+ * <p>
+ * Una instancia se reutiliza línea a línea y no es segura para uso concurrente;
+ * cada lector mantiene la suya. Por lo mismo, el diccionario de {@link #textoFrecuente(int)}
+ * vive lo que dura la carga del lector.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+abstract class CamposLinea {
+
+    private static final char SEPARADOR = ';';
+    private static final char COMILLA = '"';
+
+    /** Estados de un campo según sus comillas. */
+    private static final byte SIN_COMILLAS = 0;
+    private static final byte CITADO = 1;
+    private static final byte CITADO_CON_ESCAPES = 2;
+
+    /** Líneas que puede abarcar un registro con un campo entre comillas. */
+    static final int MAXIMO_LINEAS_REGISTRO = 100;
+
+    /** Largo máximo, en caracteres o bytes, de un registro de varias líneas. */
+    static final int MAXIMO_LARGO_REGISTRO = 1 << 20;
+
+    /** Potencias de diez exactamente representables como {@code double}. */
+    private static final double[] POTENCIAS_DIEZ = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Mayor mantisa que un {@code double} representa sin pérdida (2^53). */
+    private static final long MANTISA_EXACTA = 1L << 53;
+
+    /** Largo máximo de un texto para considerarlo en el diccionario de textos frecuentes. */
+    private static final int LARGO_MAXIMO_FRECUENTE = 64;
+
+    /** Cantidad máxima de textos distintos que guarda el diccionario. */
+    private static final int MAXIMO_FRECUENTES = 4096;
+
+    private int[] inicio = new int[GestorDatos.COLUMNAS_COMPLETAS];
+    private int[] fin = new int[GestorDatos.COLUMNAS_COMPLETAS];
+    private byte[] comillas = new byte[GestorDatos.COLUMNAS_COMPLETAS];
+    private int columnas;
+    private boolean conComillas;
+    private boolean comillaAbierta;
+
+    /** Columna de la línea para cada columna pedida, o {@code null} si coinciden. */
+    private int[] mapa;
+    /** {@code alcance[k]}: columnas que debe tener la línea para cubrir las pedidas 0..k. */
+    private int[] alcance;
+    private int ubicados;
+    private int columnaNumerica = -1;
+
+    /*
+     * Diccionario de textos frecuentes de esta carga (tabla hash de direccionamiento abierto).
+     * Cada clave guarda las unidades (caracteres o bytes) del campo tal como están en el
+     * búfer, para poder buscarlo sin crear antes el String.
+     */
+    private char[][] clavesFrecuentes = new char[64][];
+    private int[] hashesFrecuentes = new int[64];
+    private String[] valoresFrecuentes = new String[64];
+    private int frecuentes;
+
+    /**
+     * Retorna el carácter (o byte sin signo) en la posición indicada del búfer actual.
+     */
+    protected abstract int caracter(int posicion);
+
+    /**
+     * Crea el texto del rango {@code [desde, hasta)} del búfer actual.
+     */
+    protected abstract String crearTexto(int desde, int hasta);
+
+    /**
+     * Ubica los campos del rango {@code [desde, hasta)} del búfer actual.
+     */
+    protected void separar(int desde, int hasta) {
+        int campos = 0;
+        int columnasConDatos = 0;
+        int inicioActual = desde;
+        comillaAbierta = false;
+
+        // Contenido del campo actual si va entre comillas
+        byte estado = SIN_COMILLAS;
+        int inicioCitado = 0;
+        int finCitado = 0;
+
+        for (int i = desde; i <= hasta; i++) {
+            if (i < hasta) {
+                int c = caracter(i);
+
+                if (c == COMILLA && conComillas && estado == SIN_COMILLAS && esBlanco(inicioActual, i)) {
+                    inicioCitado = i + 1;
+                    int cierre = buscarCierre(inicioCitado, hasta);
+                    estado = (cierre < 0) ? CITADO_CON_ESCAPES : CITADO;
+                    finCitado = Math.abs(cierre) - 1;
+                    // Se sigue desde la comilla de cierre hasta el separador
+                    i = Math.min(finCitado, hasta - 1);
+                    continue;
+                }
+                if (c != SEPARADOR) {
+                    continue;
+                }
+            }
+
+            if (campos == inicio.length) {
+                crecer();
+            }
+            inicio[campos] = (estado == SIN_COMILLAS) ? inicioActual : inicioCitado;
+            fin[campos] = (estado == SIN_COMILLAS) ? i : finCitado;
+            comillas[campos] = estado;
+            campos++;
+
+            if (i > inicioActual) {
+                columnasConDatos = campos;
+            }
+            inicioActual = i + 1;
+            estado = SIN_COMILLAS;
+        }
+
+        columnas = columnasConDatos;
+
+        for (int c = 0; c < columnas; c++) {
+            if (comillas[c] == SIN_COMILLAS) {
+                recortar(c);
+            }
+        }
+    }
+
+    /**
+     * Busca la comilla que cierra un campo citado cuyo contenido empieza en {@code desde}.
+     *
+     * @return posición de la comilla de cierre más uno, negativa si el contenido tiene comillas
+     * dobles ({@code ""}); si la línea termina sin cerrarlas, {@code hasta + 1} y se marca
+     * {@link #comillaAbierta()}
+     */
+    private int buscarCierre(int desde, int hasta) {
+        boolean escapes = false;
+        int i = desde;
+
+        while (i < hasta) {
+            if (caracter(i) == COMILLA) {
+                if (i + 1 < hasta && caracter(i + 1) == COMILLA) {
+                    escapes = true;
+                    i += 2;
+                    continue;
+                }
+                return escapes ? -(i + 1) : i + 1;
+            }
+            i++;
+        }
+
+        comillaAbierta = true;
+        return escapes ? -(hasta + 1) : hasta + 1;
+    }
+
+    /**
+     * Indica si los campos pueden ir entre comillas. Solo los CSV las usan; en los TXT una
+     * comilla es un carácter más del campo.
+     */
+    void usarComillas(boolean conComillas) {
+        this.conComillas = conComillas;
+    }
+
+    /**
+     * @return {@code true} si la línea terminó dentro de un campo entre comillas
+     */
+    boolean comillaAbierta() {
+        return comillaAbierta;
+    }
+
+    /**
+     * Sigue las comillas de {@code [desde, hasta)}, la continuación de un registro que quedó
+     * dentro de un campo entre comillas, con las mismas reglas de {@link #separar(int, int)} pero
+     * sin ubicar campos. Los campos ubicados antes dejan de ser válidos.
+     *
+     * @return {@code true} si el registro sigue dentro de un campo entre comillas al final del rango
+     */
+    protected boolean sigueEntreComillas(int desde, int hasta) {
+        boolean dentro = true;
+        // Si el campo actual fuera de comillas solo tiene espacios hasta ahora
+        boolean campoBlanco = false;
+        int i = desde;
+
+        while (i < hasta) {
+            int c = caracter(i);
+
+            if (dentro) {
+                if (c == COMILLA) {
+                    if (i + 1 < hasta && caracter(i + 1) == COMILLA) {
+                        i += 2;
+                        continue;
+                    }
+                    dentro = false;
+                }
+            } else if (c == SEPARADOR) {
+                campoBlanco = true;
+            } else if (c == COMILLA && campoBlanco) {
+                dentro = true;
+            } else if (c > ' ') {
+                campoBlanco = false;
+            }
+            i++;
+        }
+
+        return dentro;
+    }
+
+    /**
+     * Comienza una línea cuyos campos se ubican uno a uno con {@link #agregarCampo(int, int)},
+     * para los lectores que separan los campos por su cuenta (celdas de una planilla).
+     */
+    protected void limpiarCampos() {
+        columnas = 0;
+        ubicados = 0;
+    }
+
+    /**
+     * Ubica el siguiente campo de la línea en el rango {@code [desde, hasta)} del búfer actual,
+     * con la misma regla de {@link #separar(int, int)}: se recorta, y si está vacío solo cuenta
+     * como columna cuando le sigue otro campo con datos.
+     */
+    protected void agregarCampo(int desde, int hasta) {
+        if (ubicados == inicio.length) {
+            crecer();
+        }
+        inicio[ubicados] = desde;
+        fin[ubicados] = hasta;
+        comillas[ubicados] = SIN_COMILLAS;
+        recortar(ubicados);
+        ubicados++;
+
+        if (hasta > desde) {
+            columnas = ubicados;
+        }
+    }
+
+    private void crecer() {
+        int[] nuevoInicio = new int[inicio.length * 2];
+        int[] nuevoFin = new int[fin.length * 2];
+        System.arraycopy(inicio, 0, nuevoInicio, 0, inicio.length);
+        System.arraycopy(fin, 0, nuevoFin, 0, fin.length);
+        inicio = nuevoInicio;
+        fin = nuevoFin;
+        comillas = java.util.Arrays.copyOf(comillas, comillas.length * 2);
+    }
+
+    private void recortar(int c) {
+        int desde = inicio[c];
+        int hasta = fin[c];
+
+        while (desde < hasta && caracter(desde) <= ' ') {
+            desde++;
+        }
+        while (hasta > desde && caracter(hasta - 1) <= ' ') {
+            hasta--;
+        }
+
+        inicio[c] = desde;
+        fin[c] = hasta;
+    }
+
+    /**
+     * Indica si el rango {@code [desde, hasta)} contiene solo espacios o está vacío.
+     */
+    protected boolean esBlanco(int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            if (caracter(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indica en qué columna de la línea está cada columna que se pedirá a {@link #texto(int)},
+     * {@link #entero(int)}, etc. Con {@code null} se vuelve a leer cada columna en su posición.
+     *
+     * @param mapa {@code mapa[i]} es la columna de la línea de la columna pedida {@code i}
+     */
+    void mapear(int[] mapa) {
+        this.mapa = mapa;
+        this.alcance = null;
+
+        if (mapa != null) {
+            alcance = new int[mapa.length];
+            int maximo = 0;
+            for (int i = 0; i < mapa.length; i++) {
+                maximo = Math.max(maximo, mapa[i] + 1);
+                alcance[i] = maximo;
+            }
+        }
+    }
+
+    /**
+     * @return cantidad de columnas de la línea actual; con un {@link #mapear(int[]) mapa},
+     * cuántas de las columnas pedidas, desde la primera, están presentes en la línea
+     */
+    int columnas() {
+        if (mapa == null) {
+            return columnas;
+        }
+
+        int presentes = 0;
+        while (presentes < alcance.length && alcance[presentes] <= columnas) {
+            presentes++;
+        }
+        return presentes;
+    }
+
+    /**
+     * @return cantidad de columnas de la línea actual, sin considerar el mapa
+     */
+    int columnasLinea() {
+        return columnas;
+    }
+
+    /**
+     * @return posición en la línea de la columna pedida
+     */
+    private int campo(int columna) {
+        return (mapa == null) ? columna : mapa[columna];
+    }
+
+    /**
+     * @return el campo indicado como texto, sin espacios en los extremos (salvo que vaya entre
+     * comillas, en cuyo caso se respeta tal cual)
+     */
+    String texto(int columna) {
+        int c = campo(columna);
+        String texto = crearTexto(inicio[c], fin[c]);
+        return (comillas[c] == CITADO_CON_ESCAPES) ? texto.replace("\"\"", "\"") : texto;
+    }
+
+    /**
+     * Retorna el campo indicado como texto, reutilizando la misma instancia de {@link String}
+     * para los valores que ya aparecieron en esta carga.
+     * <p>
+     * Pensado para columnas de baja cardinalidad (comuna, región, tipo de producto,
+     * responsable...), que se repiten millones de veces en una exportación: el campo se busca
+     * directamente sobre el búfer y solo se crea un {@link String} la primera vez que aparece.
+     * El diccionario es compartido por todas las columnas y se limita a
+     * {@value #MAXIMO_FRECUENTES} textos de hasta {@value #LARGO_MAXIMO_FRECUENTE} caracteres;
+     * fuera de eso se comporta como {@link #texto(int)}. Una columna con muchos valores distintos
+     * lo llenaría y dejaría fuera a las demás, así que no conviene usarlo con ellas.
+     *
+     * @return el campo sin espacios en los extremos
+     */
+    String textoFrecuente(int columna) {
+        int c = campo(columna);
+        int desde = inicio[c];
+        int hasta = fin[c];
+
+        if (hasta - desde > LARGO_MAXIMO_FRECUENTE || comillas[c] == CITADO_CON_ESCAPES) {
+            return texto(columna);
+        }
+
+        int hash = 0;
+        for (int i = desde; i < hasta; i++) {
+            hash = 31 * hash + caracter(i);
+        }
+
+        int mascara = clavesFrecuentes.length - 1;
+        int ranura = (hash ^ (hash >>> 16)) & mascara;
+
+        while (clavesFrecuentes[ranura] != null) {
+            if (hashesFrecuentes[ranura] == hash && mismasUnidades(clavesFrecuentes[ranura], desde, hasta)) {
+                return valoresFrecuentes[ranura];
+            }
+            ranura = (ranura + 1) & mascara;
+        }
+
+        String valor = texto(columna);
+
+        if (frecuentes < MAXIMO_FRECUENTES) {
+            char[] unidades = new char[hasta - desde];
+            for (int i = desde; i < hasta; i++) {
+                unidades[i - desde] = (char) caracter(i);
+            }
+
+            clavesFrecuentes[ranura] = unidades;
+            hashesFrecuentes[ranura] = hash;
+            valoresFrecuentes[ranura] = valor;
+            frecuentes++;
+
+            if (frecuentes * 2 > clavesFrecuentes.length) {
+                ampliarFrecuentes();
+            }
+        }
+
+        return valor;
+    }
+
+    private boolean mismasUnidades(char[] unidades, int desde, int hasta) {
+        if (unidades.length != hasta - desde) {
+            return false;
+        }
+        for (int i = 0; i < unidades.length; i++) {
+            if (unidades[i] != caracter(desde + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ampliarFrecuentes() {
+        char[][] claves = clavesFrecuentes;
+        int[] hashes = hashesFrecuentes;
+        String[] valores = valoresFrecuentes;
+
+        clavesFrecuentes = new char[claves.length * 2][];
+        hashesFrecuentes = new int[claves.length * 2];
+        valoresFrecuentes = new String[claves.length * 2];
+        int mascara = clavesFrecuentes.length - 1;
+
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] == null) {
+                continue;
+            }
+
+            int ranura = (hashes[i] ^ (hashes[i] >>> 16)) & mascara;
+            while (clavesFrecuentes[ranura] != null) {
+                ranura = (ranura + 1) & mascara;
+            }
+
+            clavesFrecuentes[ranura] = claves[i];
+            hashesFrecuentes[ranura] = hashes[i];
+            valoresFrecuentes[ranura] = valores[i];
+        }
+    }
+
+    /**
+     * Lee el campo indicado como entero en base 10, directamente desde el búfer.
+     *
+     * @throws NumberFormatException con el mismo mensaje que {@link Integer#parseInt(String)}
+     */
+    int entero(int columna) {
+        int c = campo(columna);
+        columnaNumerica = c;
+        int desde = inicio[c];
+        int hasta = fin[c];
+        int i = desde;
+
+        if (i == hasta) {
+            throw errorNumerico(columna);
+        }
+
+        boolean negativo = false;
+        int primero = caracter(i);
+        if (primero == '-' || primero == '+') {
+            negativo = primero == '-';
+            i++;
+            if (i == hasta) {
+                throw errorNumerico(columna);
+            }
+        }
+
+        // Se acumula en negativo para cubrir Integer.MIN_VALUE, igual que Integer.parseInt
+        int limite = negativo ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int resultado = 0;
+
+        for (; i < hasta; i++) {
+            int digito = caracter(i) - '0';
+            if (digito < 0 || digito > 9 || resultado < limite / 10) {
+                throw errorNumerico(columna);
+            }
+            resultado *= 10;
+            if (resultado < limite + digito) {
+                throw errorNumerico(columna);
+            }
+            resultado -= digito;
+        }
+
+        return negativo ? resultado : -resultado;
+    }
+
+    /**
+     * Lee el campo indicado como decimal.
+     * <p>
+     * Los valores de la forma {@code [signo]dígitos[.dígitos]} con hasta 15 dígitos significativos
+     * se calculan directamente desde el búfer; como mantisa y potencia de diez son exactas,
+     * la división da el mismo resultado que {@link Double#parseDouble(String)}. Cualquier otro
+     * formato (exponentes, "NaN", etc.) se delega en {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException si el campo no es un número válido
+     */
+    double decimal(int columna) {
+        int campo = campo(columna);
+        columnaNumerica = campo;
+        int desde = inicio[campo];
+        int hasta = fin[campo];
+        int i = desde;
+
+        boolean negativo = false;
+        if (i < hasta && (caracter(i) == '-' || caracter(i) == '+')) {
+            negativo = caracter(i) == '-';
+            i++;
+        }
+
+        long mantisa = 0;
+        int digitos = 0;
+        int decimales = 0;
+        boolean punto = false;
+
+        for (; i < hasta; i++) {
+            int c = caracter(i);
+            if (c >= '0' && c <= '9') {
+                mantisa = mantisa * 10 + (c - '0');
+                digitos++;
+                if (punto) {
+                    decimales++;
+                }
+            } else if (c == '.' && !punto) {
+                punto = true;
+            } else {
+                break;
+            }
+        }
+
+        boolean rapido = i == hasta && digitos > 0 && digitos <= 15
+                && mantisa < MANTISA_EXACTA && decimales < POTENCIAS_DIEZ.length;
+
+        if (!rapido) {
+            return Double.parseDouble(texto(columna));
+        }
+
+        double valor = mantisa / POTENCIAS_DIEZ[decimales];
+        return negativo ? -valor : valor;
+    }
+
+    /**
+     * @return última columna leída con {@link #entero(int)} o {@link #decimal(int)}, como
+     * posición en la línea; tras un {@link NumberFormatException}, la del valor inválido
+     */
+    int columnaNumerica() {
+        return columnaNumerica;
+    }
+
+    private NumberFormatException errorNumerico(int columna) {
+        return new NumberFormatException("For input string: \"" + texto(columna) + "\"");
+    }
+}
@@ -0,0 +1,72 @@
+package com.salmonttcorp.util;
+
+/**
+ * {@link CamposLinea} sobre una línea ya leída como {@link String}, usada por los lectores
+ * basados en {@link java.io.BufferedReader}.
+ * <p>
+ * Cada campo de texto se obtiene con un único {@link String#substring(int, int)} ya recortado;
+ * no se crean arreglos intermedios ni copias por {@code trim()}.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+class CamposTexto extends CamposLinea {
+
+    private String linea = "";
+    private int desde;
+    private int hasta;
+
+    /**
+     * Posiciona el cursor sobre una nueva línea.
+     *
+     * @param linea línea completa, sin el salto de línea
+     * @return este mismo cursor, para encadenar llamadas
+     */
+    CamposTexto separar(String linea) {
+        return separar(linea, 0, linea.length());
+    }
+
+    /**
+     * Posiciona el cursor sobre la línea {@code [desde, hasta)} de un texto mayor,
+     * por ejemplo un bloque completo del archivo, sin extraerla como {@link String}.
+     *
+     * @return este mismo cursor, para encadenar llamadas
+     */
+    CamposTexto separar(String texto, int desde, int hasta) {
+        this.linea = texto;
+        this.desde = desde;
+        this.hasta = hasta;
+        separar(desde, hasta);
+        return this;
+    }
+
+    /**
+     * Sigue las comillas de una línea que continúa un registro con un campo entre comillas
+     * abierto; el registro completo se separa después con {@link #separar(String)}.
+     *
+     * @return {@code true} si el registro sigue abierto al final de la línea
+     * @see CamposLinea#sigueEntreComillas(int, int)
+     */
+    boolean sigueEntreComillas(String linea) {
+        this.linea = linea;
+        this.desde = 0;
+        this.hasta = linea.length();
+        return sigueEntreComillas(0, hasta);
+    }
+
+    /**
+     * @return {@code true} si la línea actual está vacía o solo contiene espacios
+     */
+    boolean esBlanca() {
+        return esBlanco(desde, hasta);
+    }
+
+    @Override
+    protected int caracter(int posicion) {
+        return linea.charAt(posicion);
+    }
+
+    @Override
+    protected String crearTexto(int desde, int hasta) {
+        return linea.substring(desde, hasta);
+    }
+}
@@ -0,0 +1,281 @@
+package com.salmonttcorp.util;
+
+import com.salmonttcorp.metricas.MedicionCarga;
+import com.salmonttcorp.metricas.Metricas;
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.service.CentroService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Carga un archivo de centros en disco y lo mantiene al día volviendo a leer solo lo que cambió.
+ * <p>
+ * El archivo se divide en bloques de {@link #LINEAS_POR_BLOQUE} líneas y se recuerda, por cada
+ * bloque, su tramo de bytes, un hash de su contenido y cuántos centros aportó. Al recargar:
+ * <ul>
+ *   <li>si el tamaño y la fecha de modificación no cambiaron, no se lee nada;</li>
+ *   <li>si no, el archivo se recorre calculando los hashes (sin interpretar las líneas) y solo
+ *       se interpretan los bloques cuyo hash cambió y los agregados después del último byte
+ *       conocido;</li>
+ *   <li>los centros de esos bloques se aplican sobre el servicio actual con
+ *       {@link CentroService#aplicarCambios(List)}, que actualiza sus índices sin reconstruirlos.</li>
+ * </ul>
+ * Como los bloques se cuentan en líneas, editar una línea (aunque cambie su largo) solo invalida
+ * su bloque; insertar o borrar líneas en medio del archivo invalida los bloques siguientes.
+ * Por lo mismo, aquí un campo entre comillas no puede contener saltos de línea.
+ * <p>
+ * Lo que se ahorra es la lectura e interpretación de las líneas que no cambiaron. Cada recarga
+ * con cambios sigue costando O(n) en la cantidad total de centros: el hash recorre el archivo
+ * completo y {@link CentroService#aplicarCambios(List)} copia la lista y renumera las posiciones
+ * de sus índices, aunque haya cambiado una sola línea.
+ * <p>
+ * Las filas rechazadas se registran en el {@link RegistroRechazos} del {@link GestorDatos}
+ * recibido, que también interpreta las líneas.
+ * <p>
+ * Una instancia sigue a un único archivo y no es segura para uso concurrente: las recargas deben
+ * hacerse desde un mismo hilo. Los servicios que entrega sí pueden consultarse desde varios hilos.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public class CargaIncremental {
+
+    static final int LINEAS_POR_BLOQUE = 4096;
+
+    private static final int TAMANO_LECTURA = 1 << 20;
+
+    private final Path archivo;
+    private final boolean desdeCsv;
+    private final GestorDatos gestor;
+
+    private List<Bloque> bloques = List.of();
+    private long tamano = -1;
+    private FileTime modificado;
+    private CentroService service = new CentroService(List.of());
+
+    /**
+     * Sigue el archivo con un {@link GestorDatos} propio.
+     *
+     * @param archivo archivo en disco; el formato se detecta por la extensión
+     */
+    public CargaIncremental(Path archivo) {
+        this(new GestorDatos(), archivo);
+    }
+
+    /**
+     * @param gestor  gestor que interpreta las líneas y registra los rechazos de cada recarga
+     * @param archivo archivo en disco; el formato se detecta por la extensión
+     */
+    public CargaIncremental(GestorDatos gestor, Path archivo) {
+        if (gestor == null) {
+            throw new IllegalArgumentException("El gestor de datos no puede ser nulo.");
+        }
+        if (archivo == null) {
+            throw new IllegalArgumentException("La ruta del archivo no puede estar vacía.");
+        }
+        this.gestor = gestor;
+        this.archivo = archivo;
+        this.desdeCsv = archivo.getFileName().toString().toLowerCase().endsWith(".csv");
+    }
+
+    /**
+     * @return servicio con el último estado cargado del archivo
+     */
+    public CentroService actual() {
+        return service;
+    }
+
+    /**
+     * @return posición siguiente al último byte leído del archivo
+     */
+    public long desplazamiento() {
+        return bloques.isEmpty() ? 0 : bloques.get(bloques.size() - 1).fin();
+    }
+
+    /**
+     * Lee los cambios del archivo desde la carga anterior y los aplica sobre el servicio actual.
+     * La primera llamada carga el archivo completo.
+     * <p>
+     * Si el archivo no se puede leer o la recarga falla por cualquier otro error, se informa y
+     * se conserva el servicio actual; la siguiente llamada vuelve a intentarlo.
+     *
+     * @return servicio actualizado; el mismo de {@link #actual()} si el archivo no cambió
+     */
+    public CentroService recargar() {
+        try {
+            long tamanoActual = Files.size(archivo);
+            FileTime modificadoActual = Files.getLastModifiedTime(archivo);
+
+            if (tamanoActual == tamano && modificadoActual.equals(modificado)) {
+                return service;
+            }
+
+            RegistroRechazos.Marca marca = gestor.getRechazos().marcar();
+
+            // Si la lectura falla, la medición se cierra como fallida
+            try (MedicionCarga medicion = Metricas.globales().iniciarCarga("incremental", tamanoActual)) {
+                List<Bloque> nuevos = calcularBloques();
+                medicion.fase("hash");
+                List<CentroService.Reemplazo> cambios = compararBloques(nuevos);
+                medicion.fase("interpretacion");
+                CentroService actualizado = service.aplicarCambios(cambios);
+                medicion.fase("aplicacion");
+                medicion.terminar(cambios.stream().mapToLong(c -> c.centros().size()).sum());
+                service = actualizado;
+                bloques = nuevos;
+                tamano = tamanoActual;
+                modificado = modificadoActual;
+            } finally {
+                gestor.getRechazos().resumir(marca, desdeCsv ? "CSV" : "TXT");
+            }
+
+        } catch (IOException e) {
+            System.out.println("Error general al recargar " + (desdeCsv ? "CSV" : "TXT")
+                    + " desde disco: " + e.getMessage());
+        } catch (RuntimeException | Error e) {
+            // Como en RecargaAutomatica: el estado anterior queda intacto y se puede reintentar
+            System.out.println("Error al recargar " + archivo + ": " + e
+                    + ". Se mantiene el servicio anterior.");
+        }
+
+        return service;
+    }
+
+    /**
+     * Compara los bloques nuevos con los anteriores y vuelve a interpretar los que cambiaron.
+     * Completa en cada bloque nuevo la cantidad de centros que aporta.
+     *
+     * @return reemplazos a aplicar sobre el servicio, expresados en posiciones del servicio actual
+     */
+    private List<CentroService.Reemplazo> compararBloques(List<Bloque> nuevos) throws IOException {
+        List<CentroService.Reemplazo> cambios = new ArrayList<>();
+        int posicion = 0;
+
+        for (int i = 0; i < Math.max(bloques.size(), nuevos.size()); i++) {
+            Bloque anterior = (i < bloques.size()) ? bloques.get(i) : null;
+            Bloque nuevo = (i < nuevos.size()) ? nuevos.get(i) : null;
+            int centrosAnteriores = (anterior != null) ? anterior.centros : 0;
+
+            if (nuevo != null && nuevo.mismoContenido(anterior)) {
+                nuevo.centros = centrosAnteriores;
+            } else {
+                List<CentroCultivo> centros = (nuevo != null) ? interpretar(nuevo) : List.of();
+                cambios.add(new CentroService.Reemplazo(posicion, posicion + centrosAnteriores, centros));
+                if (nuevo != null) {
+                    nuevo.centros = centros.size();
+                }
+            }
+
+            posicion += centrosAnteriores;
+        }
+
+        return cambios;
+    }
+
+    private List<CentroCultivo> interpretar(Bloque bloque) throws IOException {
+        List<CentroCultivo> centros = new ArrayList<>();
+
+        new LectorMapeado(gestor).recorrer(archivo, desdeCsv, bloque.inicio(), bloque.fin(), bloque.primeraLinea(),
+                (campos, numeroLinea, tipoArchivo) -> {
+                    CentroCultivo centro = gestor.procesarCampos(campos, numeroLinea, tipoArchivo);
+                    if (centro != null) {
+                        centros.add(centro);
+                    }
+                });
+
+        return centros;
+    }
+
+    /**
+     * Recorre el archivo completo dividiéndolo en bloques de {@link #LINEAS_POR_BLOQUE} líneas
+     * y calculando el hash de cada uno. Solo busca saltos de línea; no interpreta los campos.
+     */
+    private List<Bloque> calcularBloques() throws IOException {
+        List<Bloque> resultado = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_LECTURA);
+        byte[] bytes = buffer.array();
+        CRC32C hash = new CRC32C();
+
+        long inicioBloque = 0;
+        long leidos = 0;
+        int lineasBloque = 0;
+        int primeraLinea = 1;
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            int cantidad;
+            while ((cantidad = canal.read(buffer)) != -1) {
+                int inicioTramo = 0;
+
+                for (int i = 0; i < cantidad; i++) {
+                    if (bytes[i] == '\n' && ++lineasBloque == LINEAS_POR_BLOQUE) {
+                        hash.update(bytes, inicioTramo, i + 1 - inicioTramo);
+                        long finBloque = leidos + i + 1;
+                        resultado.add(new Bloque(inicioBloque, finBloque, primeraLinea, hash.getValue()));
+
+                        hash.reset();
+                        inicioTramo = i + 1;
+                        inicioBloque = finBloque;
+                        primeraLinea += lineasBloque;
+                        lineasBloque = 0;
+                    }
+                }
+
+                hash.update(bytes, inicioTramo, cantidad - inicioTramo);
+                leidos += cantidad;
+                buffer.clear();
+            }
+        }
+
+        if (leidos > inicioBloque) {
+            // Último bloque, incompleto; si luego se agregan líneas, su hash cambia y se vuelve a leer
+            resultado.add(new Bloque(inicioBloque, leidos, primeraLinea, hash.getValue()));
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Tramo {@code [inicio, fin)} del archivo que contiene un bloque de líneas.
+     */
+    private static final class Bloque {
+
+        private final long inicio;
+        private final long fin;
+        private final int primeraLinea;
+        private final long hash;
+
+        /** Centros válidos que aportó el bloque. */
+        private int centros;
+
+        Bloque(long inicio, long fin, int primeraLinea, long hash) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.primeraLinea = primeraLinea;
+            this.hash = hash;
+        }
+
+        long inicio() {
+            return inicio;
+        }
+
+        long fin() {
+            return fin;
+        }
+
+        int primeraLinea() {
+            return primeraLinea;
+        }
+
+        boolean mismoContenido(Bloque otro) {
+            return otro != null && otro.hash == hash && otro.fin - otro.inicio == fin - inicio;
+        }
+    }
+}
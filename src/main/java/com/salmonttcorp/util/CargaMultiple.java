@@ -0,0 +1,454 @@
+package com.salmonttcorp.util;
+
+import com.salmonttcorp.metricas.MedicionCarga;
+import com.salmonttcorp.metricas.Metricas;
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.model.Ruta;
+import com.salmonttcorp.service.CentroService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Carga en un único {@link CentroService} todos los archivos de centros de una carpeta o de un
+ * patrón glob, por ejemplo uno por región ({@code datos/regiones/*.csv}).
+ * <p>
+ * El trabajo se reparte en un grupo de hilos acotado, en tres pasos:
+ * <ol>
+ *   <li>cada archivo se interpreta en su propio hilo con {@link GestorDatos}, como CSV, TXT o
+ *       XLSX según su extensión;</li>
+ *   <li>los centros de cada archivo se reparten en particiones según el hash de su
+ *       {@code nombreCentro};</li>
+ *   <li>cada partición resuelve por separado los nombres repetidos con la política
+ *       {@link Duplicados} indicada. Como un mismo nombre cae siempre en la misma partición,
+ *       los hilos no comparten ningún mapa.</li>
+ * </ol>
+ * Los archivos se procesan en orden alfabético de ruta y el resultado conserva ese orden y el
+ * de sus líneas: de cada nombre repetido queda solo el centro elegido, en su propia posición.
+ * A igual valor según la política, gana el que aparece después.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public class CargaMultiple {
+
+    /**
+     * Criterio para elegir, entre los centros con el mismo nombre, el que se conserva.
+     */
+    public enum Duplicados {
+
+        /**
+         * El de la ruta más reciente según {@link Ruta#getFecha()} ({@code aaaa-mm-dd}). Los
+         * centros sin ruta o con una fecha en otro formato cuentan como los más antiguos.
+         */
+        ULTIMA_RUTA,
+
+        /**
+         * El de mayor producción.
+         */
+        MAYOR_PRODUCCION
+    }
+
+    /** Particiones por hilo, para repartir mejor los nombres entre hilos. */
+    private static final int PARTICIONES_POR_HILO = 4;
+
+    private static final String[] EXTENSIONES = {".csv", ".txt", ".xlsx"};
+
+    private static final Metricas METRICAS = Metricas.globales();
+    private static final LongAdder DUPLICADOS = METRICAS.contador("carga.multiple.duplicados");
+
+    private final GestorDatos gestor;
+    private final Duplicados politica;
+    private final int hilos;
+
+    /**
+     * Carga con tantos hilos como procesadores disponibles.
+     */
+    public CargaMultiple(GestorDatos gestor, Duplicados politica) {
+        this(gestor, politica, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param gestor   gestor con el que se interpreta cada archivo; sus rechazos reúnen los de todos
+     * @param politica criterio para resolver los nombres de centro repetidos
+     * @param hilos    máximo de hilos que se usan a la vez
+     */
+    public CargaMultiple(GestorDatos gestor, Duplicados politica, int hilos) {
+        if (gestor == null) {
+            throw new IllegalArgumentException("El gestor de datos no puede ser nulo.");
+        }
+        if (politica == null) {
+            throw new IllegalArgumentException("La política de duplicados no puede ser nula.");
+        }
+        if (hilos < 1) {
+            throw new IllegalArgumentException("La cantidad de hilos debe ser al menos 1.");
+        }
+        this.gestor = gestor;
+        this.politica = politica;
+        this.hilos = hilos;
+    }
+
+    /**
+     * Carga y une los archivos indicados.
+     *
+     * @param origen carpeta (se leen sus archivos {@code .csv}, {@code .txt} y {@code .xlsx}, sin
+     *               entrar en subcarpetas), un patrón glob como {@code datos/*.csv} o
+     *               <code>datos/**&#47;*.csv</code>, o un único archivo
+     * @return servicio con los centros de todos los archivos, sin nombres repetidos
+     * @throws IllegalArgumentException si el origen está vacío o no tiene archivos
+     */
+    public CentroService cargar(String origen) {
+        List<Path> archivos = buscarArchivos(origen);
+
+        long bytes = archivos.stream().mapToLong(GestorDatos::tamano).sum();
+        RegistroRechazos.Marca marca = gestor.getRechazos().marcar();
+        List<CentroCultivo> unidos;
+
+        ExecutorService grupo = Executors.newFixedThreadPool(hilos, new Hilos());
+        try (MedicionCarga medicion = METRICAS.iniciarCarga("multiple", bytes)) {
+            List<List<CentroCultivo>> porArchivo = leer(grupo, archivos);
+            medicion.fase("lectura");
+
+            unidos = unir(grupo, porArchivo);
+            medicion.fase("union");
+            medicion.terminar(unidos.size());
+        } finally {
+            grupo.shutdownNow();
+            gestor.getRechazos().resumir(marca, "ARCHIVOS");
+        }
+
+        return new CentroService(unidos);
+    }
+
+    // ===================== ARCHIVOS ======================
+
+    /**
+     * @return archivos del origen, ordenados por ruta
+     */
+    static List<Path> buscarArchivos(String origen) {
+        if (origen == null || origen.isBlank()) {
+            throw new IllegalArgumentException("La carpeta o patrón de archivos no puede estar vacío.");
+        }
+
+        List<Path> archivos;
+
+        try {
+            int comodin = primerComodin(origen);
+
+            if (comodin < 0) {
+                Path ruta = Path.of(origen);
+                if (Files.isRegularFile(ruta)) {
+                    return List.of(ruta);
+                }
+                if (!Files.isDirectory(ruta)) {
+                    throw new IllegalArgumentException("No se encontró la carpeta: " + origen);
+                }
+
+                try (Stream<Path> contenido = Files.list(ruta)) {
+                    archivos = contenido.filter(Files::isRegularFile)
+                            .filter(CargaMultiple::tieneExtensionConocida)
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+            } else {
+                // Se recorre desde la carpeta anterior al primer comodín
+                int separador = Math.max(origen.lastIndexOf('/', comodin), origen.lastIndexOf('\\', comodin));
+                Path base = Path.of((separador < 0) ? "." : origen.substring(0, separador + 1));
+                String patron = origen.substring(separador + 1);
+                PathMatcher coincide = FileSystems.getDefault().getPathMatcher("glob:" + patron);
+                int profundidad = patron.contains("**") ? Integer.MAX_VALUE : patron.split("[/\\\\]").length;
+
+                if (!Files.isDirectory(base)) {
+                    throw new IllegalArgumentException("No se encontró la carpeta: " + base);
+                }
+
+                try (Stream<Path> contenido = Files.walk(base, profundidad)) {
+                    archivos = contenido.filter(Files::isRegularFile)
+                            .filter(archivo -> coincide.matches(base.relativize(archivo)))
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recorrer " + origen + ": " + e.getMessage(), e);
+        }
+
+        if (archivos.isEmpty()) {
+            throw new IllegalArgumentException("No se encontraron archivos de centros en " + origen);
+        }
+        return archivos;
+    }
+
+    private static int primerComodin(String origen) {
+        for (int i = 0; i < origen.length(); i++) {
+            char c = origen.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean tieneExtensionConocida(Path archivo) {
+        String nombre = archivo.getFileName().toString().toLowerCase();
+        for (String extension : EXTENSIONES) {
+            if (nombre.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Interpreta cada archivo en un hilo del grupo. Un archivo que no puede leerse se informa
+     * y aporta una lista vacía, sin detener la carga de los demás.
+     */
+    private List<List<CentroCultivo>> leer(ExecutorService grupo, List<Path> archivos) {
+        List<Callable<List<CentroCultivo>>> tareas = new ArrayList<>(archivos.size());
+
+        for (Path archivo : archivos) {
+            tareas.add(() -> {
+                String tipo = GestorDatos.tipoArchivo(archivo);
+                try {
+                    return gestor.leerCentros(archivo, tipo);
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Error general al cargar " + tipo + " " + archivo + ": " + e.getMessage());
+                    return List.of();
+                }
+            });
+        }
+
+        return ejecutar(grupo, tareas);
+    }
+
+    // ===================== UNIÓN ======================
+
+    /**
+     * Une las listas de todos los archivos dejando un centro por nombre.
+     */
+    private List<CentroCultivo> unir(ExecutorService grupo, List<List<CentroCultivo>> porArchivo) {
+        int particiones = hilos * PARTICIONES_POR_HILO;
+
+        // 1) Cada archivo ordena sus filas por partición
+        List<Callable<Reparto>> repartos = new ArrayList<>(porArchivo.size());
+        for (List<CentroCultivo> centros : porArchivo) {
+            repartos.add(() -> new Reparto(centros, particiones));
+        }
+        List<Reparto> repartidos = ejecutar(grupo, repartos);
+
+        // 2) Cada partición elige un centro por nombre y marca su fila como conservada
+        boolean[][] conservar = new boolean[porArchivo.size()][];
+        for (int a = 0; a < conservar.length; a++) {
+            conservar[a] = new boolean[porArchivo.get(a).size()];
+        }
+
+        List<Callable<Integer>> elecciones = new ArrayList<>(particiones);
+        for (int p = 0; p < particiones; p++) {
+            int particion = p;
+            elecciones.add(() -> elegir(particion, porArchivo, repartidos, conservar));
+        }
+        int descartados = ejecutar(grupo, elecciones).stream().mapToInt(Integer::intValue).sum();
+        DUPLICADOS.add(descartados);
+
+        // 3) Cada archivo entrega sus filas conservadas, en su orden original
+        List<Callable<List<CentroCultivo>>> filtros = new ArrayList<>(porArchivo.size());
+        for (int a = 0; a < conservar.length; a++) {
+            List<CentroCultivo> centros = porArchivo.get(a);
+            boolean[] filas = conservar[a];
+            filtros.add(() -> {
+                List<CentroCultivo> conservados = new ArrayList<>(filas.length);
+                for (int i = 0; i < filas.length; i++) {
+                    if (filas[i]) {
+                        conservados.add(centros.get(i));
+                    }
+                }
+                return conservados;
+            });
+        }
+
+        List<List<CentroCultivo>> filtrados = ejecutar(grupo, filtros);
+        List<CentroCultivo> unidos = new ArrayList<>(filtrados.stream().mapToInt(List::size).sum());
+        filtrados.forEach(unidos::addAll);
+        return unidos;
+    }
+
+    /**
+     * Resuelve los nombres de una partición recorriendo los archivos y sus filas en orden.
+     * Solo escribe en las filas de su partición, por lo que las particiones no se pisan.
+     *
+     * @return cantidad de centros descartados por repetidos
+     */
+    private int elegir(int particion, List<List<CentroCultivo>> porArchivo, List<Reparto> repartos,
+                       boolean[][] conservar) {
+        Map<String, Elegido> elegidos = new HashMap<>();
+        Map<String, Long> fechas = new HashMap<>();
+        int descartados = 0;
+
+        for (int a = 0; a < porArchivo.size(); a++) {
+            List<CentroCultivo> centros = porArchivo.get(a);
+            Reparto reparto = repartos.get(a);
+
+            for (int i = reparto.inicio[particion]; i < reparto.inicio[particion + 1]; i++) {
+                int fila = reparto.filas[i];
+                CentroCultivo centro = centros.get(fila);
+                Elegido actual = elegidos.get(centro.getNombreCentro());
+
+                if (actual == null) {
+                    elegidos.put(centro.getNombreCentro(), new Elegido(a, fila, centro));
+                    continue;
+                }
+
+                descartados++;
+                long valor = valor(centro, fechas);
+                if (!actual.conValor) {
+                    actual.valor = valor(actual.centro, fechas);
+                    actual.conValor = true;
+                }
+
+                if (valor >= actual.valor) {
+                    actual.archivo = a;
+                    actual.fila = fila;
+                    actual.centro = centro;
+                    actual.valor = valor;
+                }
+            }
+        }
+
+        for (Elegido elegido : elegidos.values()) {
+            conservar[elegido.archivo][elegido.fila] = true;
+        }
+        return descartados;
+    }
+
+    /**
+     * @return valor del centro según la política: día época de la ruta o producción
+     */
+    private long valor(CentroCultivo centro, Map<String, Long> fechas) {
+        if (politica == Duplicados.MAYOR_PRODUCCION) {
+            return centro.getProduccion();
+        }
+
+        Ruta ruta = centro.getRutaAsociada();
+        if (ruta == null || ruta.getFecha() == null) {
+            return Long.MIN_VALUE;
+        }
+        return fechas.computeIfAbsent(ruta.getFecha(), CargaMultiple::diaEpoca);
+    }
+
+    private static long diaEpoca(String fecha) {
+        try {
+            return LocalDate.parse(fecha.trim()).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Ejecuta las tareas en el grupo y entrega sus resultados en el mismo orden.
+     */
+    private static <T> List<T> ejecutar(ExecutorService grupo, List<Callable<T>> tareas) {
+        try {
+            List<T> resultados = new ArrayList<>(tareas.size());
+            for (Future<T> tarea : grupo.invokeAll(tareas)) {
+                resultados.add(tarea.get());
+            }
+            return resultados;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("La carga de archivos fue interrumpida.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Error al cargar los archivos: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Filas de un archivo ordenadas por partición: las de la partición {@code p} son
+     * {@code filas[inicio[p]]} a {@code filas[inicio[p + 1] - 1]}, en orden creciente.
+     */
+    private static final class Reparto {
+
+        private final int[] inicio;
+        private final int[] filas;
+
+        Reparto(List<CentroCultivo> centros, int particiones) {
+            int[] particionDe = new int[centros.size()];
+            inicio = new int[particiones + 1];
+
+            for (int i = 0; i < particionDe.length; i++) {
+                particionDe[i] = particion(centros.get(i).getNombreCentro(), particiones);
+                inicio[particionDe[i] + 1]++;
+            }
+            for (int p = 0; p < particiones; p++) {
+                inicio[p + 1] += inicio[p];
+            }
+
+            filas = new int[particionDe.length];
+            int[] siguiente = inicio.clone();
+            for (int i = 0; i < particionDe.length; i++) {
+                filas[siguiente[particionDe[i]]++] = i;
+            }
+        }
+
+        private static int particion(String nombre, int particiones) {
+            int hash = nombre.hashCode();
+            return Math.floorMod(hash ^ (hash >>> 16), particiones);
+        }
+    }
+
+    /**
+     * Centro elegido hasta ahora para un nombre. El valor según la política se calcula recién
+     * cuando aparece un repetido.
+     */
+    private static final class Elegido {
+
+        private int archivo;
+        private int fila;
+        private CentroCultivo centro;
+        private long valor;
+        private boolean conValor;
+
+        Elegido(int archivo, int fila, CentroCultivo centro) {
+            this.archivo = archivo;
+            this.fila = fila;
+            this.centro = centro;
+        }
+    }
+
+    /**
+     * Hilos del grupo, con nombre y como demonio para no impedir que la aplicación termine.
+     */
+    private static final class Hilos implements ThreadFactory {
+
+        private final AtomicInteger numero = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable tarea) {
+            Thread hilo = new Thread(tarea, "salmontt-carga-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        }
+    }
+}
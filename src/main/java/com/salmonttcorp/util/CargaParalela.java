@@ -0,0 +1,216 @@
+package com.salmonttcorp.util;
+
+import com.salmonttcorp.model.CentroCultivo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Carga un archivo de centros dividiéndolo en bloques de bytes alineados a saltos de línea
+ * y procesando cada bloque en paralelo sobre el {@link java.util.concurrent.ForkJoinPool} común.
+ * <p>
+ * La carga se hace en dos pasadas paralelas:
+ * 1) Se cuentan los saltos de línea de cada bloque para conocer el número de la primera línea
+ *    de cada uno, de modo que los mensajes de error informen el {@code numeroLinea} real.
+ * 2) Se procesa cada bloque con {@link GestorDatos#procesarCampos}, ubicando los campos con
+ *    {@link CamposBytes} directamente sobre el bloque proyectado, como {@link LectorMapeado}:
+ *    el bloque no se copia ni se decodifica entero, solo los campos de texto de cada fila.
+ * <p>
+ * Los resultados se unen respetando el orden original de las líneas del archivo.
+ * <p>
+ * En los CSV el encabezado se lee antes de repartir los bloques, para que todos ubiquen las
+ * columnas por nombre ({@link EncabezadoCsv}). Los bloques se cortan en cualquier salto de
+ * línea, por lo que aquí un campo entre comillas no puede contener saltos de línea; la carga
+ * secuencial sí los admite.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+class CargaParalela {
+
+    /** Tamaño mínimo de un bloque; bajo este valor no compensa repartir el trabajo. */
+    private static final long TAMANO_MINIMO_BLOQUE = 4L * 1024 * 1024;
+
+    /** Tamaño máximo de un bloque, limitado por lo que admite {@link FileChannel#map}. */
+    private static final long TAMANO_MAXIMO_BLOQUE = 1L << 30;
+
+    private static final byte SALTO_LINEA = '\n';
+    private static final byte RETORNO_CARRO = '\r';
+
+    private final GestorDatos gestor;
+
+    CargaParalela(GestorDatos gestor) {
+        this.gestor = gestor;
+    }
+
+    /**
+     * Carga todas las líneas del archivo en paralelo.
+     *
+     * @param archivo  archivo en el sistema de archivos
+     * @param desdeCsv {@code true} si la primera línea es encabezado
+     * @return lista de centros en el mismo orden que las líneas del archivo
+     * @throws IOException si el archivo no puede leerse
+     */
+    List<CentroCultivo> cargar(Path archivo, boolean desdeCsv) throws IOException {
+        int[] mapa = desdeCsv ? EncabezadoCsv.leer(archivo) : null;
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long[] limites = calcularLimites(canal);
+            int bloques = limites.length - 1;
+
+            try {
+                // 1) Conteo de líneas por bloque para numerar correctamente
+                long[] lineasPorBloque = IntStream.range(0, bloques)
+                        .parallel()
+                        .mapToLong(i -> contarLineas(canal, limites[i], limites[i + 1]))
+                        .toArray();
+
+                int[] primeraLinea = new int[bloques];
+                long acumulado = 1;
+                for (int i = 0; i < bloques; i++) {
+                    primeraLinea[i] = (int) acumulado;
+                    acumulado += lineasPorBloque[i];
+                }
+
+                // 2) Procesamiento de cada bloque, conservando el orden del archivo
+                List<List<CentroCultivo>> parciales = IntStream.range(0, bloques)
+                        .parallel()
+                        .mapToObj(i -> procesarBloque(canal, limites[i], limites[i + 1],
+                                primeraLinea[i], desdeCsv, mapa))
+                        .collect(Collectors.toList());
+
+                int total = parciales.stream().mapToInt(List::size).sum();
+                List<CentroCultivo> datos = new ArrayList<>(total);
+                parciales.forEach(datos::addAll);
+                return datos;
+
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Divide el archivo en bloques de tamaño similar, moviendo cada límite hasta justo
+     * después del siguiente salto de línea para no cortar ninguna línea.
+     *
+     * @return posiciones de inicio de cada bloque, terminando con el tamaño del archivo
+     */
+    private long[] calcularLimites(FileChannel canal) throws IOException {
+        long tamano = canal.size();
+        int nucleos = Runtime.getRuntime().availableProcessors();
+
+        long bloques = Math.max(1, Math.min(nucleos * 4L, tamano / TAMANO_MINIMO_BLOQUE));
+        bloques = Math.max(bloques, (tamano + TAMANO_MAXIMO_BLOQUE - 1) / TAMANO_MAXIMO_BLOQUE);
+
+        List<Long> limites = new ArrayList<>();
+        limites.add(0L);
+
+        for (long i = 1; i < bloques; i++) {
+            long aproximado = tamano * i / bloques;
+            long limite = siguienteInicioDeLinea(canal, aproximado);
+
+            if (limite > limites.get(limites.size() - 1) && limite < tamano) {
+                limites.add(limite);
+            }
+        }
+
+        limites.add(tamano);
+        return limites.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long siguienteInicioDeLinea(FileChannel canal, long desde) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        long posicion = desde;
+
+        while (canal.read(buffer, posicion) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                if (buffer.get() == SALTO_LINEA) {
+                    return posicion + buffer.position();
+                }
+            }
+            posicion += buffer.limit();
+            buffer.clear();
+        }
+
+        return canal.size();
+    }
+
+    private long contarLineas(FileChannel canal, long inicio, long fin) {
+        MappedByteBuffer bloque = mapear(canal, inicio, fin);
+        long lineas = 0;
+
+        while (bloque.hasRemaining()) {
+            if (bloque.get() == SALTO_LINEA) {
+                lineas++;
+            }
+        }
+
+        return lineas;
+    }
+
+    private List<CentroCultivo> procesarBloque(FileChannel canal, long inicio, long fin,
+                                               int primeraLinea, boolean desdeCsv, int[] mapa) {
+        // Los campos se ubican sobre el bloque proyectado, sin copiarlo ni decodificarlo entero
+        MappedByteBuffer bloque = mapear(canal, inicio, fin);
+
+        List<CentroCultivo> datos = new ArrayList<>();
+        CamposBytes campos = new CamposBytes();
+        campos.mapear(mapa);
+        campos.usarComillas(desdeCsv);
+        String tipoArchivo = desdeCsv ? "CSV" : "TXT";
+
+        int numeroLinea = primeraLinea;
+        int inicioLinea = 0;
+        int largo = bloque.limit();
+
+        while (inicioLinea < largo) {
+            int finLinea = buscarSaltoLinea(bloque, inicioLinea, largo);
+
+            int finContenido = finLinea;
+            if (finContenido > inicioLinea && bloque.get(finContenido - 1) == RETORNO_CARRO) {
+                finContenido--;
+            }
+
+            boolean esEncabezado = desdeCsv && numeroLinea == 1;
+            if (!esEncabezado && !campos.esBlanco(bloque, inicioLinea, finContenido)) {
+                campos.separar(bloque, inicioLinea, finContenido);
+                CentroCultivo centro = gestor.procesarCampos(campos, numeroLinea, tipoArchivo);
+                if (centro != null) {
+                    datos.add(centro);
+                }
+            }
+
+            numeroLinea++;
+            inicioLinea = finLinea + 1;
+        }
+
+        return datos;
+    }
+
+    private static int buscarSaltoLinea(MappedByteBuffer bloque, int desde, int limite) {
+        for (int i = desde; i < limite; i++) {
+            if (bloque.get(i) == SALTO_LINEA) {
+                return i;
+            }
+        }
+        return limite;
+    }
+
+    private MappedByteBuffer mapear(FileChannel canal, long inicio, long fin) {
+        try {
+            return canal.map(FileChannel.MapMode.READ_ONLY, inicio, fin - inicio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
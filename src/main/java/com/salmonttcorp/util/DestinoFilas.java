@@ -0,0 +1,21 @@
+package com.salmonttcorp.util;
+
+/**
+ * Receptor de las líneas que entrega un lector, ya separadas en campos.
+ * <p>
+ * Permite que un mismo lector alimente distintas representaciones: objetos
+ * {@link com.salmonttcorp.model.CentroCultivo} o filas de una
+ * {@link com.salmonttcorp.model.TablaCentros}.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+@FunctionalInterface
+interface DestinoFilas {
+
+    /**
+     * @param campos      cursor sobre los campos de la línea; solo es válido durante la llamada
+     * @param numeroLinea número de la línea en el archivo, para los mensajes de error
+     * @param tipoArchivo "CSV" o "TXT"
+     */
+    void procesar(CamposLinea campos, int numeroLinea, String tipoArchivo);
+}
@@ -0,0 +1,151 @@
+package com.salmonttcorp.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Interpreta el encabezado de un CSV de centros para ubicar las columnas por nombre.
+ * <p>
+ * Los nombres se comparan sin distinguir mayúsculas, tildes ni espacios en los extremos, con
+ * los de {@link #COLUMNAS} ({@code nombreCentro;comuna;produccion;...}), los mismos que escribe
+ * {@link ExportadorCentros}.
+ * Así se aceptan archivos con las columnas en otro orden o con columnas adicionales, que se
+ * ignoran. Si el encabezado no trae los nombres de las 6 columnas básicas, el archivo se lee
+ * por posición, como siempre.
+ * <p>
+ * El resultado es un mapa para {@link CamposLinea#mapear(int[])}: por cada columna que se leerá,
+ * su posición en las líneas del archivo.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+final class EncabezadoCsv {
+
+    /** Nombres de las columnas en el orden habitual de los archivos de centros. */
+    static final String[] COLUMNAS = {
+            "nombreCentro", "comuna", "produccion", "nombreProducto", "tipoProducto", "precioProducto",
+            "calle", "numero", "region", "nomRuta", "responsableRuta", "fechaRuta"
+    };
+
+    private EncabezadoCsv() {
+    }
+
+    /**
+     * Ubica las columnas del modelo en el encabezado, para cargar centros completos o básicos.
+     *
+     * @param encabezado campos de la primera línea del archivo, sin mapa
+     * @return mapa de las 12 columnas (o de las 6 básicas si el archivo solo trae esas), o
+     * {@code null} si el archivo se lee por posición
+     */
+    static int[] mapear(CamposLinea encabezado) {
+        int[] mapa = new int[GestorDatos.COLUMNAS_COMPLETAS];
+        int encontradas = 0;
+
+        while (encontradas < mapa.length) {
+            int posicion = buscar(encabezado, COLUMNAS[encontradas]);
+            if (posicion < 0) {
+                break;
+            }
+            mapa[encontradas++] = posicion;
+        }
+
+        if (encontradas < GestorDatos.COLUMNAS_SIMPLE) {
+            return null;
+        }
+
+        int largo = (encontradas == GestorDatos.COLUMNAS_COMPLETAS) ? encontradas : GestorDatos.COLUMNAS_SIMPLE;
+        boolean enOrden = encabezado.columnas() == largo;
+        for (int i = 0; i < largo && enOrden; i++) {
+            enOrden = mapa[i] == i;
+        }
+
+        // El encabezado habitual no necesita mapa: se evita la traducción en cada campo
+        return enOrden ? null : Arrays.copyOf(mapa, largo);
+    }
+
+    /**
+     * Ubica solo las columnas indicadas, en el orden en que se pidieron.
+     *
+     * @param encabezado campos de la primera línea del archivo, sin mapa; {@code null} para los
+     *                   archivos sin encabezado (TXT), cuyas columnas siguen el orden habitual
+     * @param columnas   nombres de las columnas a leer
+     * @throws IllegalArgumentException si alguna columna no existe en el archivo
+     */
+    static int[] proyectar(CamposLinea encabezado, List<String> columnas) {
+        int[] mapa = new int[columnas.size()];
+
+        for (int i = 0; i < mapa.length; i++) {
+            String nombre = columnas.get(i);
+            mapa[i] = (encabezado != null) ? buscar(encabezado, nombre) : buscar(nombre);
+
+            if (mapa[i] < 0) {
+                throw new IllegalArgumentException("La columna " + nombre + " no existe en el encabezado del archivo.");
+            }
+        }
+
+        return mapa;
+    }
+
+    /**
+     * Lee la primera línea de un CSV en disco y ubica las columnas del modelo. Se usa en las
+     * lecturas que no empiezan por el encabezado, como los bloques de una carga paralela.
+     *
+     * @return el mismo resultado que {@link #mapear(CamposLinea)}, o {@code null} si el archivo
+     * está vacío
+     */
+    static int[] leer(Path archivo) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea = reader.readLine();
+            if (linea == null) {
+                return null;
+            }
+
+            CamposTexto campos = new CamposTexto();
+            campos.usarComillas(true);
+            return mapear(campos.separar(linea));
+        }
+    }
+
+    /**
+     * @return posición de la columna en el encabezado, o -1 si no está
+     */
+    private static int buscar(CamposLinea encabezado, String nombre) {
+        String buscado = normalizar(nombre);
+
+        for (int i = 0; i < encabezado.columnas(); i++) {
+            if (normalizar(encabezado.texto(i)).equals(buscado)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return posición de la columna en el orden habitual, o -1 si no es una columna del modelo
+     */
+    private static int buscar(String nombre) {
+        String buscado = normalizar(nombre);
+
+        for (int i = 0; i < COLUMNAS.length; i++) {
+            if (normalizar(COLUMNAS[i]).equals(buscado)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String normalizar(String nombre) {
+        if (nombre == null) {
+            return "";
+        }
+
+        // La marca de orden de bytes de algunos CSV exportados desde Excel queda en el primer nombre
+        String limpio = nombre.replace("\uFEFF", "").trim().toLowerCase();
+        return Normalizer.normalize(limpio, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+}
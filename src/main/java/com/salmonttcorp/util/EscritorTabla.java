@@ -0,0 +1,338 @@
+package com.salmonttcorp.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Escribe tablas de texto con columnas de ancho fijo, con la misma salida que
+ * {@code printf("%-20s | %-15s | %-11d | %-10.1f%n", ...)} pero sin interpretar un formato
+ * por cada fila.
+ * <p>
+ * Los anchos de columna se fijan una vez con {@link #columnas(int...)}; luego cada celda se
+ * escribe y se rellena con espacios directamente en un bloque de caracteres reutilizable, que
+ * se codifica y se envía al canal cada {@link #TAMANO_BLOQUE} caracteres. Números y
+ * separadores se escriben sin crear textos intermedios.
+ * <p>
+ * Uso:
+ * <pre>
+ * try (EscritorTabla salida = EscritorTabla.consola()) {
+ *     salida.columnas(20, 11, 10);
+ *     salida.texto("CENTRO").texto("PRODUCCIÓN").texto("PRECIO").finFila();
+ *     salida.texto(c.getNombreCentro()).entero(c.getProduccion()).decimal(precio, 1).finFila();
+ * }
+ * </pre>
+ * Los números usan los símbolos de {@link Locale#getDefault(Locale.Category)}, igual que
+ * {@code printf}. No es seguro para uso desde varios hilos.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class EscritorTabla implements Flushable, Closeable {
+
+    /** Caracteres que se acumulan antes de escribir en el canal. */
+    static final int TAMANO_BLOQUE = 1 << 16;
+
+    private static final String SEPARADOR = " | ";
+    private static final String FIN_LINEA = System.lineSeparator();
+
+    /** Sobre este valor un decimal ya no se escribe sin pasar por {@link String#format}. */
+    private static final double LIMITE_DECIMAL = 1e15;
+    private static final long[] POTENCIAS = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final WritableByteChannel canal;
+    private final boolean cerrarCanal;
+    private final CharsetEncoder codificador;
+
+    private final char[] bloque = new char[TAMANO_BLOQUE];
+    private int usados;
+    private final ByteBuffer bytes;
+    private final char[] digitos = new char[20];
+
+    private final Locale locale;
+    private final boolean digitosLatinos;
+    private final char separadorDecimal;
+
+    private int[] anchos = new int[0];
+    private int columna;
+
+    /**
+     * @param canal   destino de la salida
+     * @param charset codificación de los caracteres
+     */
+    public EscritorTabla(WritableByteChannel canal, Charset charset) {
+        this(canal, charset, true);
+    }
+
+    private EscritorTabla(WritableByteChannel canal, Charset charset, boolean cerrarCanal) {
+        if (canal == null || charset == null) {
+            throw new IllegalArgumentException("El canal y la codificación no pueden ser nulos.");
+        }
+        this.canal = canal;
+        this.cerrarCanal = cerrarCanal;
+
+        // Igual que PrintStream: los caracteres que no se pueden codificar se reemplazan
+        this.codificador = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (TAMANO_BLOQUE * codificador.maxBytesPerChar()));
+
+        this.locale = Locale.getDefault(Locale.Category.FORMAT);
+        DecimalFormatSymbols simbolos = DecimalFormatSymbols.getInstance(locale);
+        this.digitosLatinos = simbolos.getZeroDigit() == '0';
+        this.separadorDecimal = simbolos.getDecimalSeparator();
+    }
+
+    /**
+     * Escritor sobre {@link System#out}, con su misma codificación. Al cerrarlo se vacía el
+     * bloque pendiente, pero {@code System.out} queda abierto.
+     */
+    public static EscritorTabla consola() {
+        // Propiedades con las que la JVM define la codificación de System.out
+        String nombre = System.getProperty("stdout.encoding", System.getProperty("sun.stdout.encoding"));
+        Charset charset = (nombre != null && Charset.isSupported(nombre)) ? Charset.forName(nombre) : Charset.defaultCharset();
+        return new EscritorTabla(Channels.newChannel(System.out), charset, false);
+    }
+
+    // ===================== FILAS ======================
+
+    /**
+     * Fija los anchos de las columnas de las filas siguientes. Cada celda se alinea a la
+     * izquierda y se rellena con espacios hasta su ancho; las celdas se separan con {@code " | "}.
+     *
+     * @param anchos ancho mínimo de cada columna
+     */
+    public EscritorTabla columnas(int... anchos) {
+        this.anchos = anchos.clone();
+        this.columna = 0;
+        return this;
+    }
+
+    /**
+     * Escribe la siguiente celda con un texto; {@code null} se escribe como {@code "null"}.
+     */
+    public EscritorTabla texto(String valor) {
+        String texto = String.valueOf(valor);
+        iniciarCelda();
+        escribir(texto);
+        rellenar(texto.length());
+        return this;
+    }
+
+    /**
+     * Escribe la siguiente celda con un entero, como {@code %d}.
+     */
+    public EscritorTabla entero(long valor) {
+        if (!digitosLatinos) {
+            return texto(String.format(locale, "%d", valor));
+        }
+
+        iniciarCelda();
+        int largo = escribirEntero(valor);
+        rellenar(largo);
+        return this;
+    }
+
+    /**
+     * Escribe la siguiente celda con un decimal, como {@code %.Nf} con {@code N = decimales}.
+     *
+     * @param decimales cantidad de decimales, entre 0 y 6
+     */
+    public EscritorTabla decimal(double valor, int decimales) {
+        if (decimales < 0 || decimales >= POTENCIAS.length) {
+            throw new IllegalArgumentException("La cantidad de decimales debe estar entre 0 y " + (POTENCIAS.length - 1) + ".");
+        }
+
+        long escala = POTENCIAS[decimales];
+        double escalado = valor * escala;
+
+        // Si el valor escalado es entero no hay que redondear: ese entero ya es el resultado
+        // de printf. Los negativos, NaN, infinitos y valores enormes van por String.format.
+        if (!digitosLatinos || Double.doubleToRawLongBits(valor) < 0
+                || !(escalado < LIMITE_DECIMAL) || escalado != Math.rint(escalado)) {
+            return texto(String.format(locale, "%." + decimales + "f", valor));
+        }
+
+        long unidades = (long) escalado;
+        iniciarCelda();
+        int largo = escribirEntero(unidades / escala);
+
+        if (decimales > 0) {
+            caracter(separadorDecimal);
+            long fraccion = unidades % escala;
+            for (long potencia = escala / 10; potencia > 0; potencia /= 10) {
+                caracter((char) ('0' + (fraccion / potencia) % 10));
+            }
+            largo += 1 + decimales;
+        }
+
+        rellenar(largo);
+        return this;
+    }
+
+    /**
+     * Termina la fila actual.
+     */
+    public EscritorTabla finFila() {
+        escribir(FIN_LINEA);
+        columna = 0;
+        return this;
+    }
+
+    /**
+     * Escribe una línea completa, fuera de las columnas (títulos, separadores, líneas en blanco).
+     */
+    public EscritorTabla linea(String texto) {
+        escribir(String.valueOf(texto));
+        return finFila();
+    }
+
+    private void iniciarCelda() {
+        if (columna > 0) {
+            escribir(SEPARADOR);
+        }
+    }
+
+    private void rellenar(int largo) {
+        int ancho = (columna < anchos.length) ? anchos[columna] : 0;
+        columna++;
+
+        int faltan = ancho - largo;
+        while (faltan > 0) {
+            if (usados == bloque.length) {
+                vaciarBloque(false);
+            }
+            int n = Math.min(faltan, bloque.length - usados);
+            Arrays.fill(bloque, usados, usados + n, ' ');
+            usados += n;
+            faltan -= n;
+        }
+    }
+
+    // ===================== BLOQUE ======================
+
+    private void escribir(String texto) {
+        int largo = texto.length();
+        int desde = 0;
+
+        while (desde < largo) {
+            if (usados == bloque.length) {
+                vaciarBloque(false);
+            }
+            int n = Math.min(largo - desde, bloque.length - usados);
+            texto.getChars(desde, desde + n, bloque, usados);
+            usados += n;
+            desde += n;
+        }
+    }
+
+    private void caracter(char c) {
+        if (usados == bloque.length) {
+            vaciarBloque(false);
+        }
+        bloque[usados++] = c;
+    }
+
+    /**
+     * @return cantidad de caracteres escritos
+     */
+    private int escribirEntero(long valor) {
+        if (valor == Long.MIN_VALUE) {
+            String texto = Long.toString(valor);
+            escribir(texto);
+            return texto.length();
+        }
+
+        boolean negativo = valor < 0;
+        long resto = Math.abs(valor);
+        int posicion = digitos.length;
+
+        do {
+            digitos[--posicion] = (char) ('0' + resto % 10);
+            resto /= 10;
+        } while (resto > 0);
+
+        if (negativo) {
+            digitos[--posicion] = '-';
+        }
+
+        int largo = digitos.length - posicion;
+        if (usados + largo > bloque.length) {
+            vaciarBloque(false);
+        }
+        System.arraycopy(digitos, posicion, bloque, usados, largo);
+        usados += largo;
+        return largo;
+    }
+
+    /**
+     * Codifica el bloque y lo escribe en el canal. Si el bloque termina en la primera mitad
+     * de un par sustituto, esa mitad queda para el bloque siguiente (salvo al final).
+     */
+    private void vaciarBloque(boolean fin) {
+        CharBuffer entrada = CharBuffer.wrap(bloque, 0, usados);
+
+        try {
+            CoderResult resultado;
+            do {
+                resultado = codificador.encode(entrada, bytes, fin);
+                enviar();
+            } while (resultado.isOverflow());
+
+            if (fin) {
+                while (codificador.flush(bytes).isOverflow()) {
+                    enviar();
+                }
+                enviar();
+                codificador.reset();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int pendientes = entrada.remaining();
+        System.arraycopy(bloque, entrada.position(), bloque, 0, pendientes);
+        usados = pendientes;
+    }
+
+    private void enviar() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            canal.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    // ===================== CIERRE ======================
+
+    /**
+     * Escribe en el canal lo acumulado hasta ahora.
+     */
+    @Override
+    public void flush() {
+        vaciarBloque(true);
+    }
+
+    @Override
+    public void close() {
+        flush();
+        if (cerrarCanal) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
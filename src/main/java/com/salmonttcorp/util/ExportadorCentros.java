@@ -0,0 +1,390 @@
+package com.salmonttcorp.util;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.model.Direccion;
+import com.salmonttcorp.model.Producto;
+import com.salmonttcorp.model.Ruta;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Exporta centros de cultivo a CSV, JSON Lines o XLSX, escribiendo cada centro a medida que
+ * se recorre la colección.
+ * <p>
+ * Ningún formato acumula los centros ni el documento completo, así que la memoria usada no
+ * depende de la cantidad exportada:
+ * <ul>
+ *   <li>CSV y JSON Lines escriben por un {@link BufferedWriter};</li>
+ *   <li>XLSX usa {@link SXSSFWorkbook}, que mantiene en memoria solo las últimas
+ *       {@link #VENTANA_FILAS} filas y baja el resto a un archivo temporal comprimido. Sobre
+ *       {@link #FILAS_POR_HOJA} centros se continúa en una hoja nueva.</li>
+ * </ul>
+ * Como las consultas de {@link com.salmonttcorp.service.CentroService} entregan vistas sobre
+ * la colección, se pueden exportar sin copiarlas:
+ * <pre>
+ * new ExportadorCentros().exportar(service.buscarPorComuna("Quellón"), Path.of("quellon.xlsx"));
+ * </pre>
+ * Las columnas son las del formato completo de {@link GestorDatos}. El CSV usa punto y coma
+ * y encabezado, así que se puede volver a cargar, igual que el XLSX. Como {@link GestorDatos}
+ * solo acepta calle, número y región junto con una ruta, los centros sin ruta se escriben en CSV
+ * y XLSX con las 6 columnas del formato simple, y al recargarlos quedan sin dirección, como
+ * cualquier fila de ese formato. JSON Lines sí incluye todos los campos.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class ExportadorCentros {
+
+    /** Filas de la hoja que {@link SXSSFWorkbook} mantiene en memoria. */
+    static final int VENTANA_FILAS = 100;
+
+    /** Centros por hoja XLSX: el máximo de filas de Excel, menos el encabezado. */
+    static final int FILAS_POR_HOJA = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    private static final int TAMANO_BUFFER = 1 << 16;
+
+    static final String[] ENCABEZADO = EncabezadoCsv.COLUMNAS;
+
+    /**
+     * Formatos de exportación.
+     */
+    public enum Formato {
+        CSV, JSONL, XLSX;
+
+        /**
+         * Deduce el formato desde la extensión del archivo: {@code .csv}, {@code .jsonl}
+         * (o {@code .ndjson}) y {@code .xlsx}.
+         */
+        public static Formato deArchivo(Path archivo) {
+            String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+
+            if (nombre.endsWith(".csv")) {
+                return CSV;
+            }
+            if (nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson")) {
+                return JSONL;
+            }
+            if (nombre.endsWith(".xlsx")) {
+                return XLSX;
+            }
+            throw new IllegalArgumentException("Extensión de exportación no reconocida: " + nombre
+                    + ". Use .csv, .jsonl o .xlsx.");
+        }
+    }
+
+    /**
+     * Exporta a un archivo, con el formato que indica su extensión.
+     *
+     * @see #exportar(Iterable, Path, Formato)
+     */
+    public long exportar(Iterable<? extends CentroCultivo> centros, Path archivo) throws IOException {
+        if (archivo == null) {
+            throw new IllegalArgumentException("La ruta de exportación no puede estar vacía.");
+        }
+        return exportar(centros, archivo, Formato.deArchivo(archivo));
+    }
+
+    /**
+     * Exporta a un archivo. Se escribe primero {@code <archivo>.parcial} en la misma carpeta y
+     * luego se reemplaza el destino, para no dejar un archivo a medias si la exportación falla.
+     *
+     * @param centros centros a exportar, en el orden en que se recorren
+     * @param archivo archivo de destino
+     * @param formato formato de salida
+     * @return cantidad de centros exportados
+     */
+    public long exportar(Iterable<? extends CentroCultivo> centros, Path archivo, Formato formato) throws IOException {
+        if (archivo == null) {
+            throw new IllegalArgumentException("La ruta de exportación no puede estar vacía.");
+        }
+
+        Path destino = archivo.toAbsolutePath();
+        Files.createDirectories(destino.getParent());
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".parcial");
+
+        try {
+            long exportados;
+            try (OutputStream salida = Files.newOutputStream(temporal)) {
+                exportados = exportar(centros, salida, formato);
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return exportados;
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Exporta a un flujo de salida, que queda abierto.
+     *
+     * @param centros centros a exportar, en el orden en que se recorren
+     * @param salida  destino de la exportación
+     * @param formato formato de salida
+     * @return cantidad de centros exportados
+     */
+    public long exportar(Iterable<? extends CentroCultivo> centros, OutputStream salida, Formato formato) throws IOException {
+        if (centros == null || salida == null || formato == null) {
+            throw new IllegalArgumentException("Los centros, la salida y el formato no pueden ser nulos.");
+        }
+
+        switch (formato) {
+            case CSV:
+                return exportarCsv(centros, salida);
+            case JSONL:
+                return exportarJsonl(centros, salida);
+            default:
+                return exportarXlsx(centros, salida);
+        }
+    }
+
+    // ===================== CSV ======================
+
+    private long exportarCsv(Iterable<? extends CentroCultivo> centros, OutputStream salida) throws IOException {
+        CSVFormat formato = CSVFormat.DEFAULT.builder()
+                .setDelimiter(';')
+                .setHeader(ENCABEZADO)
+                .build();
+
+        Writer writer = escritor(salida);
+        CSVPrinter printer = new CSVPrinter(writer, formato);
+        long exportados = 0;
+
+        for (CentroCultivo c : centros) {
+            Producto producto = c.getProducto();
+            printer.print(c.getNombreCentro());
+            printer.print(comuna(c));
+            printer.print(c.getProduccion());
+            printer.print(producto.getNombreProducto());
+            printer.print(producto.getTipoProducto());
+            printer.print(numero(producto.getPrecioProducto()));
+
+            // El cargador solo acepta la dirección completa junto con una ruta
+            Ruta ruta = c.getRutaAsociada();
+            if (ruta != null) {
+                Direccion direccion = c.getDireccion();
+                printer.print((direccion != null) ? direccion.getCalle() : null);
+                printer.print((direccion != null) ? direccion.getNumero() : null);
+                printer.print((direccion != null) ? direccion.getRegion() : null);
+                printer.print(ruta.getNomRuta());
+                printer.print(ruta.getResponsable());
+                printer.print(ruta.getFecha());
+            }
+
+            printer.println();
+            exportados++;
+        }
+
+        // Se vacía sin cerrar, para no cerrar la salida recibida
+        printer.flush();
+        return exportados;
+    }
+
+    // ===================== JSON LINES ======================
+
+    private long exportarJsonl(Iterable<? extends CentroCultivo> centros, OutputStream salida) throws IOException {
+        Writer writer = escritor(salida);
+        long exportados = 0;
+
+        for (CentroCultivo c : centros) {
+            Producto producto = c.getProducto();
+            Direccion direccion = c.getDireccion();
+            Ruta ruta = c.getRutaAsociada();
+
+            writer.write('{');
+            campoJson(writer, 0, c.getNombreCentro());
+            campoJson(writer, 1, comuna(c));
+            nombreJson(writer, 2);
+            writer.write(Integer.toString(c.getProduccion()));
+            campoJson(writer, 3, producto.getNombreProducto());
+            campoJson(writer, 4, producto.getTipoProducto());
+            nombreJson(writer, 5);
+            double precio = producto.getPrecioProducto();
+            writer.write(Double.isFinite(precio) ? numero(precio) : "null");
+            campoJson(writer, 6, (direccion != null) ? direccion.getCalle() : null);
+            campoJson(writer, 7, (direccion != null) ? direccion.getNumero() : null);
+            campoJson(writer, 8, (direccion != null) ? direccion.getRegion() : null);
+            campoJson(writer, 9, (ruta != null) ? ruta.getNomRuta() : null);
+            campoJson(writer, 10, (ruta != null) ? ruta.getResponsable() : null);
+            campoJson(writer, 11, (ruta != null) ? ruta.getFecha() : null);
+            writer.write("}\n");
+            exportados++;
+        }
+
+        writer.flush();
+        return exportados;
+    }
+
+    private static void nombreJson(Writer writer, int columna) throws IOException {
+        if (columna > 0) {
+            writer.write(',');
+        }
+        writer.write('"');
+        writer.write(ENCABEZADO[columna]);
+        writer.write("\":");
+    }
+
+    private static void campoJson(Writer writer, int columna, String valor) throws IOException {
+        nombreJson(writer, columna);
+        if (valor == null) {
+            writer.write("null");
+        } else {
+            textoJson(writer, valor);
+        }
+    }
+
+    /**
+     * Escribe un texto JSON entre comillas, escapando comillas, barras y caracteres de control.
+     */
+    private static void textoJson(Writer writer, String valor) throws IOException {
+        writer.write('"');
+        int desde = 0;
+
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+
+            writer.write(valor, desde, i - desde);
+            desde = i + 1;
+
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    writer.write(String.format("\\u%04x", (int) c));
+            }
+        }
+
+        writer.write(valor, desde, valor.length() - desde);
+        writer.write('"');
+    }
+
+    // ===================== XLSX ======================
+
+    private long exportarXlsx(Iterable<? extends CentroCultivo> centros, OutputStream salida) throws IOException {
+        try (SXSSFWorkbook libro = new SXSSFWorkbook(VENTANA_FILAS)) {
+            libro.setCompressTempFiles(true);
+
+            Font negrita = libro.createFont();
+            negrita.setBold(true);
+            CellStyle estiloEncabezado = libro.createCellStyle();
+            estiloEncabezado.setFont(negrita);
+
+            SXSSFSheet hoja = null;
+            int fila = 0;
+            long exportados = 0;
+
+            for (CentroCultivo c : centros) {
+                if (hoja == null || fila > FILAS_POR_HOJA) {
+                    String nombre = (hoja == null) ? "Centros" : "Centros " + (libro.getNumberOfSheets() + 1);
+                    hoja = nuevaHoja(libro, nombre, estiloEncabezado);
+                    fila = 1;
+                }
+
+                Producto producto = c.getProducto();
+                Direccion direccion = c.getDireccion();
+                Ruta ruta = c.getRutaAsociada();
+
+                Row row = hoja.createRow(fila++);
+                celda(row, 0, c.getNombreCentro());
+                celda(row, 1, comuna(c));
+                row.createCell(2).setCellValue(c.getProduccion());
+                celda(row, 3, producto.getNombreProducto());
+                celda(row, 4, producto.getTipoProducto());
+                row.createCell(5).setCellValue(producto.getPrecioProducto());
+                if (ruta != null) {
+                    if (direccion != null) {
+                        celda(row, 6, direccion.getCalle());
+                        celda(row, 7, direccion.getNumero());
+                        celda(row, 8, direccion.getRegion());
+                    }
+                    celda(row, 9, ruta.getNomRuta());
+                    celda(row, 10, ruta.getResponsable());
+                    celda(row, 11, ruta.getFecha());
+                }
+                exportados++;
+            }
+
+            if (hoja == null) {
+                nuevaHoja(libro, "Centros", estiloEncabezado);
+            }
+
+            libro.write(salida);
+            salida.flush();
+            return exportados;
+        }
+    }
+
+    private static SXSSFSheet nuevaHoja(SXSSFWorkbook libro, String nombre, CellStyle estiloEncabezado) {
+        SXSSFSheet hoja = libro.createSheet(nombre);
+        hoja.createFreezePane(0, 1);
+
+        Row encabezado = hoja.createRow(0);
+        for (int i = 0; i < ENCABEZADO.length; i++) {
+            encabezado.createCell(i).setCellValue(ENCABEZADO[i]);
+            encabezado.getCell(i).setCellStyle(estiloEncabezado);
+            hoja.setColumnWidth(i, 20 * 256);
+        }
+        return hoja;
+    }
+
+    private static void celda(Row row, int columna, String valor) {
+        if (valor != null) {
+            row.createCell(columna).setCellValue(valor);
+        }
+    }
+
+    // ===================== AUXILIARES ======================
+
+    private static Writer escritor(OutputStream salida) {
+        return new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+    }
+
+    /**
+     * La comuna se guarda en la dirección; los centros del formato simple no la conservan.
+     */
+    private static String comuna(CentroCultivo c) {
+        return (c.getDireccion() != null) ? c.getDireccion().getComuna() : null;
+    }
+
+    /**
+     * Escribe los precios enteros sin decimales ({@code 8500} en vez de {@code 8500.0}),
+     * como vienen en los archivos de entrada.
+     */
+    private static String numero(double valor) {
+        if (valor == Math.rint(valor) && Math.abs(valor) < 1e15) {
+            return Long.toString((long) valor);
+        }
+        return Double.toString(valor);
+    }
+}
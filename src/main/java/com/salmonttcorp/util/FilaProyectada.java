@@ -0,0 +1,83 @@
+package com.salmonttcorp.util;
+
+/**
+ * Fila de un archivo de centros reducida a las columnas pedidas a
+ * {@link GestorDatos#recorrerColumnas}, en el orden en que se pidieron.
+ * <p>
+ * Es una vista sobre la línea que se está leyendo: solo es válida dentro de la acción que la
+ * recibe, y sus valores se leen directamente del archivo al pedirlos. Las columnas que no se
+ * pidieron no se convierten nunca a {@link String} ni a número.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class FilaProyectada {
+
+    private final int columnas;
+    private CamposLinea campos;
+    private int linea;
+
+    FilaProyectada(int columnas) {
+        this.columnas = columnas;
+    }
+
+    FilaProyectada ubicar(CamposLinea campos, int linea) {
+        this.campos = campos;
+        this.linea = linea;
+        return this;
+    }
+
+    /**
+     * @return cantidad de columnas pedidas
+     */
+    public int columnas() {
+        return columnas;
+    }
+
+    /**
+     * @return número de línea de la fila en el archivo
+     */
+    public int linea() {
+        return linea;
+    }
+
+    /**
+     * @return la columna indicada como texto, sin espacios en los extremos
+     */
+    public String texto(int columna) {
+        validar(columna);
+        return campos.texto(columna);
+    }
+
+    /**
+     * Igual que {@link #texto(int)}, pero reutiliza la misma instancia para los valores que se
+     * repiten en el archivo. Conviene para columnas como comuna, región o tipo de producto.
+     */
+    public String textoFrecuente(int columna) {
+        validar(columna);
+        return campos.textoFrecuente(columna);
+    }
+
+    /**
+     * @throws NumberFormatException si la columna no es un entero válido; la fila se informa
+     *                               como rechazada si la excepción no se captura
+     */
+    public int entero(int columna) {
+        validar(columna);
+        return campos.entero(columna);
+    }
+
+    /**
+     * @throws NumberFormatException si la columna no es un número válido; la fila se informa
+     *                               como rechazada si la excepción no se captura
+     */
+    public double decimal(int columna) {
+        validar(columna);
+        return campos.decimal(columna);
+    }
+
+    private void validar(int columna) {
+        if (columna < 0 || columna >= columnas) {
+            throw new IndexOutOfBoundsException("Columna " + columna + " fuera de las " + columnas + " pedidas.");
+        }
+    }
+}
@@ -1,16 +1,34 @@
 package com.salmonttcorp.util;
 
+import com.salmonttcorp.metricas.MedicionCarga;
+import com.salmonttcorp.metricas.Metricas;
 import com.salmonttcorp.model.CentroCultivo;
 import com.salmonttcorp.model.Direccion;
+import com.salmonttcorp.model.InstantaneaCentros;
 import com.salmonttcorp.model.Producto;
 import com.salmonttcorp.model.Ruta;
+import com.salmonttcorp.model.TablaCentros;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Clase responsable de la carga de datos de centros de cultivo desde archivos de texto.
@@ -18,6 +36,7 @@ import java.util.List;
  * Soporta archivos:
  * txt sin encabezado, separado por punto y coma.
  * csv con encabezado en la primera línea, separado por punto y coma.
+ * xlsx con encabezado en la primera fila de cada hoja y una columna por campo ({@link LectorXlsx}).
  * <p>
  * Formatos admitidos por línea:
  * 1) Formato simple con la información de centro y producto (6 columnas):
@@ -27,17 +46,53 @@ import java.util.List;
  *    nombreCentro; comuna; produccion; nombreProducto; tipoProducto; precioProducto;
  *    calle; número; region; nomRuta; responsableRuta; fechaRuta
  * <p>
+ * Cada carga registra en {@link Metricas} su tiempo, filas, bytes y memoria asignada bajo
+ * {@code carga.<tipo>}. Las líneas omitidas se registran en un {@link RegistroRechazos}, que
+ * las cuenta por causa, las puede escribir en un archivo de rechazos y solo muestra algunas en
+ * consola, con un resumen al terminar la carga.
+ * <p>
  * Autor: Víctor Valenzuela
  */
 public class GestorDatos {
 
-    private static final int COLUMNAS_SIMPLE = 6;
-    private static final int COLUMNAS_COMPLETAS = 12;
+    static final int COLUMNAS_SIMPLE = 6;
+    static final int COLUMNAS_COMPLETAS = 12;
+
+    private static final Metricas METRICAS = Metricas.globales();
+
+    private final RegistroRechazos rechazos;
+
+    /**
+     * Gestor con su propio registro de rechazos, sin archivo de rechazos.
+     */
+    public GestorDatos() {
+        this(new RegistroRechazos());
+    }
+
+    /**
+     * @param rechazos registro donde se anotan las líneas omitidas de todas las cargas
+     */
+    public GestorDatos(RegistroRechazos rechazos) {
+        if (rechazos == null) {
+            throw new IllegalArgumentException("El registro de rechazos no puede ser nulo.");
+        }
+        this.rechazos = rechazos;
+    }
+
+    /**
+     * @return registro de las líneas omitidas por las cargas de este gestor
+     */
+    public RegistroRechazos getRechazos() {
+        return rechazos;
+    }
 
     /**
      * Carga los datos desde el archivo indicado, detectando el formato según la extensión.
      *
-     * @param rutaArchivo nombre del archivo en la carpeta resources
+     * Si no existe un recurso con ese nombre pero sí un archivo en disco,
+     * se carga con {@link #cargarDesdeArchivo(Path)}.
+     *
+     * @param rutaArchivo nombre del archivo en la carpeta resources, o ruta en disco
      * @return lista de centros de cultivo cargados. Si ocurre un error, puede retornar una lista vacía.
      */
     public List<CentroCultivo> cargarDatos(String rutaArchivo) {
@@ -45,7 +100,15 @@ public class GestorDatos {
             throw new IllegalArgumentException("La ruta del archivo no puede estar vacía.");
         }
 
-        if (rutaArchivo.toLowerCase().endsWith(".csv")) {
+        if (getClass().getClassLoader().getResource(rutaArchivo) == null
+                && Files.isRegularFile(Path.of(rutaArchivo))) {
+            // No es un recurso, pero sí un archivo en disco
+            return cargarDesdeArchivo(Path.of(rutaArchivo));
+        }
+
+        if (esXlsx(rutaArchivo)) {
+            return cargarDesdeXlsx(rutaArchivo);
+        } else if (rutaArchivo.toLowerCase().endsWith(".csv")) {
             return cargarDesdeCsv(rutaArchivo);
         } else {
             // Por defecto se considera TXT
@@ -53,102 +116,712 @@ public class GestorDatos {
         }
     }
 
-    // ===================== TXT ======================
+    /**
+     * Carga los datos de forma perezosa, entregando un {@link Stream} que lee y construye
+     * cada centro recién cuando se consume.
+     * <p>
+     * A diferencia de {@link #cargarDatos(String)}, el archivo nunca se materializa completo
+     * en memoria: solo vive la línea que se está procesando, por lo que filtros al estilo de
+     * {@code CentroService} pueden aplicarse mientras los datos llegan, por ejemplo:
+     * <pre>
+     * try (Stream&lt;CentroCultivo&gt; centros = gestor.cargarStream("datosCentros.csv")) {
+     *     centros.filter(c -&gt; c.getProduccion() &gt;= 1500).forEach(...);
+     * }
+     * </pre>
+     * El stream mantiene el archivo abierto, por lo que debe cerrarse (try-with-resources).
+     * Las líneas inválidas se informan y omiten igual que en la carga completa.
+     *
+     * @param rutaArchivo nombre del archivo en la carpeta resources, o ruta en disco
+     * @return stream secuencial y ordenado de centros de cultivo
+     * @throws IllegalArgumentException si la ruta está vacía, el archivo no existe o es una
+     *                                  planilla XLSX, que se carga con {@link #cargarDatos(String)}
+     */
+    public Stream<CentroCultivo> cargarStream(String rutaArchivo) {
+        if (rutaArchivo == null || rutaArchivo.isBlank()) {
+            throw new IllegalArgumentException("La ruta del archivo no puede estar vacía.");
+        }
 
-    private List<CentroCultivo> cargarDesdeTxt(String rutaArchivo) {
+        if (esXlsx(rutaArchivo)) {
+            throw new IllegalArgumentException("Las planillas XLSX no se leen como stream: use cargarDatos. " + rutaArchivo);
+        }
+
+        boolean desdeCsv = rutaArchivo.toLowerCase().endsWith(".csv");
+        InputStream inputStream = abrirArchivo(rutaArchivo);
+
+        if (inputStream == null) {
+            throw new IllegalArgumentException("No se encontró el archivo "
+                    + (desdeCsv ? "CSV" : "TXT") + ": " + rutaArchivo);
+        }
+
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        // La carga se mide desde que se abre hasta que se cierra el stream
+        MedicionCarga medicion = METRICAS.iniciarCarga("stream", tamano(resolverRecursoEnDisco(rutaArchivo)));
+        RegistroRechazos.Marca marca = rechazos.marcar();
+        LectorCentros lector = new LectorCentros(reader, desdeCsv);
+
+        return StreamSupport.stream(lector, false)
+                .onClose(() -> {
+                    // Si la lectura falló, la medición se cierra sin terminar y queda como fallida
+                    if (!lector.fallido) {
+                        medicion.terminar(lector.entregados);
+                    }
+                    medicion.close();
+                    rechazos.resumir(marca, lector.tipoArchivo);
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Recorre el archivo entregando cada centro a la acción indicada, sin acumularlos en una lista.
+     *
+     * @param rutaArchivo nombre del archivo en la carpeta resources
+     * @param accion      acción a ejecutar por cada centro válido
+     */
+    public void procesarDatos(String rutaArchivo, Consumer<CentroCultivo> accion) {
+        try (Stream<CentroCultivo> centros = cargarStream(rutaArchivo)) {
+            centros.forEach(accion);
+        }
+    }
+
+    /**
+     * Carga los datos desde un archivo del sistema de archivos, proyectándolo en memoria.
+     * <p>
+     * Pensado para exportaciones grandes en disco local que no forman parte del classpath.
+     * El archivo se recorre directamente como bytes, buscando separadores y saltos de línea
+     * sin decodificar las líneas completas; solo se decodifican los campos de las líneas válidas.
+     * El formato se detecta por la extensión igual que en {@link #cargarDatos(String)}; las
+     * planillas XLSX se recorren con {@link LectorXlsx}.
+     *
+     * @param archivo ruta del archivo en disco
+     * @return lista de centros de cultivo cargados. Si ocurre un error, puede retornar una lista vacía.
+     */
+    public List<CentroCultivo> cargarDesdeArchivo(Path archivo) {
+        if (archivo == null) {
+            throw new IllegalArgumentException("La ruta del archivo no puede estar vacía.");
+        }
+
+        String tipo = tipoArchivo(archivo);
         List<CentroCultivo> datos = new ArrayList<>();
+        RegistroRechazos.Marca marca = rechazos.marcar();
+
+        try (MedicionCarga medicion = METRICAS.iniciarCarga(
+                LectorXlsx.TIPO_ARCHIVO.equals(tipo) ? "xlsx" : "archivo", tamano(archivo))) {
+            if (!Files.isRegularFile(archivo)) {
+                throw new IllegalArgumentException("No se encontró el archivo " + tipo + ": " + archivo);
+            }
 
-        try (InputStream inputStream = getClass().getClassLoader()
-                .getResourceAsStream(rutaArchivo)) {
+            datos = leerCentros(archivo, tipo);
+            medicion.terminar(datos.size());
 
-            if (inputStream == null) {
-                throw new IllegalArgumentException("No se encontró el archivo TXT: " + rutaArchivo);
+        } catch (Exception e) {
+            System.out.println("Error general al cargar " + tipo + " desde disco: " + e.getMessage());
+        }
+
+        rechazos.resumir(marca, tipo);
+        return datos;
+    }
+
+    /**
+     * Recorre un archivo en disco y retorna sus centros válidos, sin medir la carga ni
+     * resumir sus rechazos; lo usan las cargas que reúnen varios archivos.
+     *
+     * @param tipo tipo del archivo según {@link #tipoArchivo(Path)}
+     * @throws IOException si el archivo no puede leerse
+     */
+    List<CentroCultivo> leerCentros(Path archivo, String tipo) throws IOException {
+        List<CentroCultivo> datos = new ArrayList<>();
+
+        recorrerArchivo(archivo, tipo, (campos, numeroLinea, tipoArchivo) -> {
+            CentroCultivo centro = procesarCampos(campos, numeroLinea, tipoArchivo);
+            if (centro != null) {
+                datos.add(centro);
             }
+        });
 
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+        return datos;
+    }
 
-                String linea;
-                int numeroLinea = 0;
+    /**
+     * Carga los datos en una {@link TablaCentros} columnar.
+     * <p>
+     * Si el archivo está en disco, cada línea se vuelca directamente en las columnas sin
+     * construir objetos {@link CentroCultivo}; si es un recurso empaquetado, se carga como
+     * lista y se convierte.
+     *
+     * @param rutaArchivo nombre del archivo en la carpeta resources, o ruta en disco
+     * @return tabla con los centros válidos. Si ocurre un error, puede retornar una tabla vacía.
+     */
+    public TablaCentros cargarTabla(String rutaArchivo) {
+        if (rutaArchivo == null || rutaArchivo.isBlank()) {
+            throw new IllegalArgumentException("La ruta del archivo no puede estar vacía.");
+        }
 
-                while ((linea = reader.readLine()) != null) {
-                    numeroLinea++;
+        Path archivo = resolverRecursoEnDisco(rutaArchivo);
 
-                    if (linea.trim().isEmpty()) {
-                        continue;
-                    }
+        if (archivo == null) {
+            return TablaCentros.desde(cargarDatos(rutaArchivo));
+        }
 
-                    procesarLinea(datos, linea, numeroLinea, false);
-                }
+        return cargarTablaDesdeArchivo(archivo);
+    }
+
+    /**
+     * Carga un archivo en disco en una {@link TablaCentros} columnar, recorriéndolo con el
+     * lector proyectado en memoria y sin construir objetos del modelo.
+     *
+     * @param archivo ruta del archivo en disco
+     * @return tabla con los centros válidos. Si ocurre un error, puede retornar una tabla vacía.
+     */
+    public TablaCentros cargarTablaDesdeArchivo(Path archivo) {
+        if (archivo == null) {
+            throw new IllegalArgumentException("La ruta del archivo no puede estar vacía.");
+        }
+
+        String tipo = tipoArchivo(archivo);
+        TablaCentros.Acumulador tabla = new TablaCentros.Acumulador();
+        TablaCentros construida;
+        RegistroRechazos.Marca marca = rechazos.marcar();
+
+        try (MedicionCarga medicion = METRICAS.iniciarCarga("tabla", tamano(archivo))) {
+            if (!Files.isRegularFile(archivo)) {
+                throw new IllegalArgumentException("No se encontró el archivo " + tipo + ": " + archivo);
             }
 
+            recorrerArchivo(archivo, tipo,
+                    (campos, numeroLinea, tipoArchivo) -> agregarFila(tabla, campos, numeroLinea, tipoArchivo));
+            medicion.fase("recorrido");
+            construida = tabla.construir();
+            medicion.fase("construccion");
+            medicion.terminar(construida.filas());
+
+        } catch (Exception e) {
+            System.out.println("Error general al cargar " + tipo + " desde disco: " + e.getMessage());
+            // Se entregan las filas leídas antes del error
+            construida = tabla.construir();
+        }
+
+        rechazos.resumir(marca, tipo);
+        return construida;
+    }
+
+    // ===================== COLUMNAS ======================
+
+    /**
+     * Recorre un archivo CSV o TXT en disco leyendo solo las columnas indicadas, sin construir
+     * centros. En los CSV las columnas se buscan por nombre en el encabezado; en los TXT siguen
+     * el orden habitual ({@code nombreCentro;comuna;produccion;...}).
+     * <p>
+     * Pensado para consultas que necesitan pocas columnas de una exportación grande, por
+     * ejemplo la producción por comuna: las demás columnas solo se recorren para ubicar los
+     * separadores, sin decodificarlas ni convertirlas.
+     * <p>
+     * Las líneas que no tienen todas las columnas pedidas se informan y omiten, igual que si
+     * la acción lanza {@link NumberFormatException} o {@link IllegalArgumentException} al leer
+     * un valor.
+     *
+     * @param archivo  ruta del archivo en disco
+     * @param columnas nombres de las columnas a leer, en el orden en que se consultarán
+     * @param accion   acción a ejecutar por cada fila; la fila solo es válida durante la llamada
+     * @return cantidad de filas entregadas a la acción
+     * @throws IllegalArgumentException si no se indican columnas, el archivo es una planilla o
+     *                                  alguna columna no existe en su encabezado
+     */
+    public long recorrerColumnas(Path archivo, List<String> columnas, Consumer<FilaProyectada> accion) {
+        if (archivo == null) {
+            throw new IllegalArgumentException("La ruta del archivo no puede estar vacía.");
+        }
+        if (columnas == null || columnas.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una columna.");
+        }
+
+        String tipo = tipoArchivo(archivo);
+        if (LectorXlsx.TIPO_ARCHIVO.equals(tipo)) {
+            throw new IllegalArgumentException("Las planillas XLSX no se recorren por columnas: use cargarDatos. " + archivo);
+        }
+        if (!Files.isRegularFile(archivo)) {
+            throw new IllegalArgumentException("No se encontró el archivo " + tipo + ": " + archivo);
+        }
+
+        FilaProyectada fila = new FilaProyectada(columnas.size());
+        long[] entregadas = {0};
+        RegistroRechazos.Marca marca = rechazos.marcar();
+
+        try (MedicionCarga medicion = METRICAS.iniciarCarga("columnas", tamano(archivo))) {
+            LectorMapeado lector = new LectorMapeado(this);
+            lector.proyectar(columnas);
+            lector.recorrer(archivo, "CSV".equals(tipo), (campos, numeroLinea, tipoArchivo) -> {
+                if (campos.columnas() != columnas.size()) {
+                    informarColumnasFaltantes(campos.columnasLinea(), numeroLinea, tipoArchivo);
+                    return;
+                }
+
+                try {
+                    accion.accept(fila.ubicar(campos, numeroLinea));
+                    entregadas[0]++;
+                } catch (IllegalArgumentException e) {
+                    informarErrorFila(e, "(COLUMNAS)", "", campos, numeroLinea, tipoArchivo);
+                }
+            });
+            medicion.terminar(entregadas[0]);
+
+        } catch (IOException e) {
+            System.out.println("Error general al recorrer " + tipo + " desde disco: " + e.getMessage());
+        } finally {
+            rechazos.resumir(marca, tipo);
+        }
+
+        return entregadas[0];
+    }
+
+    /**
+     * Registra una línea CSV que abre comillas sin cerrarlas. Solo se omite esa línea: las
+     * siguientes, que el lector juntó buscando el cierre, se vuelven a leer por separado.
+     */
+    void informarComillasSinCerrar(int numeroLinea, String tipoArchivo) {
+        boolean mostrar = rechazos.registrar(new RegistroRechazos.Rechazo(tipoArchivo, numeroLinea,
+                RegistroRechazos.Causa.COMILLAS, -1, "Comillas sin cerrar"));
+
+        if (mostrar) {
+            System.out.println("[" + tipoArchivo + "] Línea " + numeroLinea
+                    + " abre comillas que no se cierran. Línea omitida.");
+        }
+    }
+
+    private void informarColumnasFaltantes(int columnas, int numeroLinea, String tipoArchivo) {
+        boolean mostrar = rechazos.registrar(new RegistroRechazos.Rechazo(tipoArchivo, numeroLinea,
+                RegistroRechazos.Causa.COLUMNAS, -1, "Tiene " + columnas + " columnas"));
+
+        if (mostrar) {
+            System.out.println("[" + tipoArchivo + "] Línea " + numeroLinea +
+                    " tiene " + columnas + " columnas y no incluye todas las pedidas. Línea omitida.");
+        }
+    }
+
+    // ===================== INSTANTÁNEAS BINARIAS ======================
+
+    /**
+     * Guarda la tabla en una instantánea binaria ({@link InstantaneaCentros}), para que los
+     * próximos arranques la abran con {@link #cargarInstantanea(Path)} en vez de volver a
+     * interpretar el archivo de texto.
+     *
+     * @param tabla   tabla a guardar
+     * @param archivo ruta de la instantánea en disco
+     * @return {@code true} si la instantánea se escribió completa
+     */
+    public boolean guardarInstantanea(TablaCentros tabla, Path archivo) {
+        if (archivo == null) {
+            throw new IllegalArgumentException("La ruta de la instantánea no puede estar vacía.");
+        }
+
+        try {
+            InstantaneaCentros.escribir(tabla, archivo);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error al guardar la instantánea " + archivo + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Abre una instantánea binaria proyectándola en memoria.
+     *
+     * @param archivo ruta de la instantánea en disco
+     * @return tabla guardada en la instantánea. Si el archivo no existe, es de otra versión
+     * o está dañado, informa el error y retorna una tabla vacía.
+     */
+    public TablaCentros cargarInstantanea(Path archivo) {
+        if (archivo == null) {
+            throw new IllegalArgumentException("La ruta de la instantánea no puede estar vacía.");
+        }
+
+        try (MedicionCarga medicion = METRICAS.iniciarCarga("instantanea", tamano(archivo))) {
+            TablaCentros tabla = InstantaneaCentros.leer(archivo);
+            medicion.terminar(tabla.filas());
+            return tabla;
+        } catch (IOException e) {
+            System.out.println("Error al cargar la instantánea " + archivo + ": " + e.getMessage());
+            return new TablaCentros.Acumulador().construir();
+        }
+    }
+
+    // ===================== EXPORTACIÓN ======================
+
+    /**
+     * Exporta centros a un archivo CSV, JSON Lines o XLSX según su extensión, sin acumularlos
+     * en memoria ({@link ExportadorCentros}).
+     *
+     * @param centros centros a exportar, por ejemplo el resultado de una consulta del servicio
+     * @param archivo ruta del archivo de destino ({@code .csv}, {@code .jsonl} o {@code .xlsx})
+     * @return cantidad de centros exportados, o {@code -1} si la exportación falló
+     */
+    public long exportar(Iterable<? extends CentroCultivo> centros, Path archivo) {
+        try {
+            return new ExportadorCentros().exportar(centros, archivo);
+        } catch (IOException e) {
+            System.out.println("Error al exportar a " + archivo + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Carga los datos repartiendo el archivo en bloques que se procesan en paralelo
+     * en todos los núcleos disponibles.
+     * <p>
+     * El archivo se divide en rangos de bytes alineados a saltos de línea; cada rango se
+     * procesa con la misma lógica que {@link #cargarDatos(String)} y los resultados se unen
+     * en el orden original. Las líneas omitidas conservan su número de línea real, aunque
+     * pueden registrarse intercaladas entre bloques.
+     * <p>
+     * Requiere que el recurso esté en el sistema de archivos (no dentro de un .jar) y no sea una
+     * planilla XLSX; en caso contrario se recurre a la carga secuencial.
+     *
+     * @param rutaArchivo nombre del archivo en la carpeta resources
+     * @return lista de centros de cultivo cargados, en el orden del archivo
+     */
+    public List<CentroCultivo> cargarDatosEnParalelo(String rutaArchivo) {
+        if (rutaArchivo == null || rutaArchivo.isBlank()) {
+            throw new IllegalArgumentException("La ruta del archivo no puede estar vacía.");
+        }
+
+        boolean desdeCsv = rutaArchivo.toLowerCase().endsWith(".csv");
+        Path archivo = resolverRecursoEnDisco(rutaArchivo);
+
+        if (archivo == null || esXlsx(rutaArchivo)) {
+            // Una planilla no se puede partir en rangos de bytes
+            return cargarDatos(rutaArchivo);
+        }
+
+        RegistroRechazos.Marca marca = rechazos.marcar();
+
+        try (MedicionCarga medicion = METRICAS.iniciarCarga("paralela", tamano(archivo))) {
+            List<CentroCultivo> datos = new CargaParalela(this).cargar(archivo, desdeCsv);
+            medicion.terminar(datos.size());
+            return datos;
+        } catch (Exception e) {
+            System.out.println("Error general al cargar " + (desdeCsv ? "CSV" : "TXT")
+                    + " en paralelo: " + e.getMessage());
+        } finally {
+            rechazos.resumir(marca, desdeCsv ? "CSV" : "TXT");
+        }
+
+        return new ArrayList<>();
+    }
+
+    // ===================== TXT ======================
+
+    private List<CentroCultivo> cargarDesdeTxt(String rutaArchivo) {
+        try (Stream<CentroCultivo> centros = cargarStream(rutaArchivo)) {
+            return centros.collect(Collectors.toCollection(ArrayList::new));
         } catch (Exception e) {
             System.out.println("Error general al cargar TXT: " + e.getMessage());
         }
 
-        return datos;
+        return new ArrayList<>();
     }
 
     // ===================== CSV ======================
 
     private List<CentroCultivo> cargarDesdeCsv(String rutaArchivo) {
-        List<CentroCultivo> datos = new ArrayList<>();
+        try (Stream<CentroCultivo> centros = cargarStream(rutaArchivo)) {
+            return centros.collect(Collectors.toCollection(ArrayList::new));
+        } catch (Exception e) {
+            System.out.println("Error general al cargar CSV: " + e.getMessage());
+        }
+
+        return new ArrayList<>();
+    }
+
+    // ===================== XLSX ======================
+
+    /**
+     * Carga una planilla del classpath o del disco. Si está en el sistema de archivos se lee
+     * desde ahí con {@link #cargarDesdeArchivo(Path)}; si está dentro de un .jar, desde el recurso.
+     */
+    private List<CentroCultivo> cargarDesdeXlsx(String rutaArchivo) {
+        Path archivo = resolverRecursoEnDisco(rutaArchivo);
 
-        try (InputStream inputStream = getClass().getClassLoader()
-                .getResourceAsStream(rutaArchivo)) {
+        if (archivo != null) {
+            return cargarDesdeArchivo(archivo);
+        }
+
+        List<CentroCultivo> datos = new ArrayList<>();
+        RegistroRechazos.Marca marca = rechazos.marcar();
 
+        try (MedicionCarga medicion = METRICAS.iniciarCarga("xlsx", 0);
+             InputStream inputStream = abrirArchivo(rutaArchivo)) {
             if (inputStream == null) {
-                throw new IllegalArgumentException("No se encontró el archivo CSV: " + rutaArchivo);
+                throw new IllegalArgumentException("No se encontró el archivo XLSX: " + rutaArchivo);
             }
 
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            new LectorXlsx().recorrer(inputStream, (campos, numeroLinea, tipoArchivo) -> {
+                CentroCultivo centro = procesarCampos(campos, numeroLinea, tipoArchivo);
+                if (centro != null) {
+                    datos.add(centro);
+                }
+            });
+            medicion.terminar(datos.size());
+
+        } catch (Exception e) {
+            System.out.println("Error general al cargar XLSX: " + e.getMessage());
+        }
+
+        rechazos.resumir(marca, LectorXlsx.TIPO_ARCHIVO);
+        return datos;
+    }
+
+    /**
+     * Recorre un archivo en disco con el lector que corresponde a su tipo.
+     */
+    private void recorrerArchivo(Path archivo, String tipo, DestinoFilas destino) throws IOException {
+        if (LectorXlsx.TIPO_ARCHIVO.equals(tipo)) {
+            new LectorXlsx().recorrer(archivo, destino);
+        } else {
+            new LectorMapeado(this).recorrer(archivo, "CSV".equals(tipo), destino);
+        }
+    }
+
+    /**
+     * @return {@code "XLSX"}, {@code "CSV"} o {@code "TXT"} según la extensión del archivo
+     */
+    static String tipoArchivo(Path archivo) {
+        String nombre = archivo.getFileName().toString().toLowerCase();
+
+        if (esXlsx(nombre)) {
+            return LectorXlsx.TIPO_ARCHIVO;
+        }
+        return nombre.endsWith(".csv") ? "CSV" : "TXT";
+    }
+
+    private static boolean esXlsx(String nombre) {
+        return nombre.toLowerCase().endsWith(".xlsx");
+    }
+
+    // ===================== RECURSOS ======================
+
+    /**
+     * Abre un recurso del classpath o, si no existe, un archivo en disco con ese nombre.
+     *
+     * @return stream del archivo, o {@code null} si no existe en ninguno de los dos
+     */
+    private InputStream abrirArchivo(String rutaArchivo) {
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream(rutaArchivo);
+
+        if (inputStream != null) {
+            return inputStream;
+        }
+
+        Path archivo = Path.of(rutaArchivo);
+        if (!Files.isRegularFile(archivo)) {
+            return null;
+        }
+
+        try {
+            return Files.newInputStream(archivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Obtiene la ruta en disco de un recurso del classpath o, si no es un recurso,
+     * de un archivo del sistema de archivos.
+     *
+     * @return ruta del archivo, o {@code null} si no existe o está empaquetado en un .jar
+     */
+    private Path resolverRecursoEnDisco(String rutaArchivo) {
+        URL url = getClass().getClassLoader().getResource(rutaArchivo);
+
+        if (url == null) {
+            Path archivo = Path.of(rutaArchivo);
+            return Files.isRegularFile(archivo) ? archivo : null;
+        }
+
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+
+        try {
+            return Path.of(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return tamaño del archivo en bytes, o 0 si no se conoce
+     */
+    static long tamano(Path archivo) {
+        try {
+            return (archivo != null && Files.isRegularFile(archivo)) ? Files.size(archivo) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // ===================== LECTURA PEREZOSA ======================
 
+    /**
+     * Spliterator que lee una línea a la vez y la convierte en centro de cultivo.
+     * Lleva la cuenta de líneas para los mensajes de error y, en CSV, ubica las columnas según
+     * el encabezado. Si una línea termina dentro de un campo entre comillas, se le agregan las
+     * siguientes hasta cerrarlas.
+     */
+    private class LectorCentros extends Spliterators.AbstractSpliterator<CentroCultivo> {
+
+        private final BufferedReader reader;
+        private final boolean desdeCsv;
+        private final String tipoArchivo;
+        private final CamposTexto campos = new CamposTexto();
+        /** Líneas ya leídas de un registro mal cerrado, que se vuelven a leer como líneas normales. */
+        private final Deque<String> pendientes = new ArrayDeque<>();
+        private int numeroLinea = 0;
+        private long entregados = 0;
+        private boolean fallido = false;
+
+        LectorCentros(BufferedReader reader, boolean desdeCsv) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.reader = reader;
+            this.desdeCsv = desdeCsv;
+            this.tipoArchivo = desdeCsv ? "CSV" : "TXT";
+            campos.usarComillas(desdeCsv);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CentroCultivo> accion) {
+            try {
                 String linea;
-                int numeroLinea = 0;
-                boolean esPrimeraLinea = true;
 
-                while ((linea = reader.readLine()) != null) {
+                while ((linea = leerLinea()) != null) {
                     numeroLinea++;
 
-                    if (esPrimeraLinea) {
-                        // Se asume encabezado y se omite
-                        esPrimeraLinea = false;
+                    if (desdeCsv && numeroLinea == 1) {
+                        campos.mapear(EncabezadoCsv.mapear(campos.separar(linea)));
+                        continue;
+                    }
+
+                    int primeraLinea = numeroLinea;
+                    if (campos.separar(linea).comillaAbierta() && !completarRegistro(linea)) {
+                        informarComillasSinCerrar(primeraLinea, tipoArchivo);
                         continue;
                     }
 
-                    if (linea.trim().isEmpty()) {
+                    if (campos.esBlanca()) {
                         continue;
                     }
 
-                    procesarLinea(datos, linea, numeroLinea, true);
+                    CentroCultivo centro = procesarCampos(campos, primeraLinea, tipoArchivo);
+
+                    if (centro != null) {
+                        entregados++;
+                        accion.accept(centro);
+                        return true;
+                    }
                 }
+
+                return false;
+
+            } catch (IOException e) {
+                fallido = true;
+                throw new UncheckedIOException(e);
             }
+        }
 
-        } catch (Exception e) {
-            System.out.println("Error general al cargar CSV: " + e.getMessage());
+        private String leerLinea() throws IOException {
+            String linea = pendientes.poll();
+            return (linea != null) ? linea : reader.readLine();
         }
 
-        return datos;
+        /**
+         * Junta a la línea indicada las siguientes hasta cerrar sus comillas y deja el cursor
+         * sobre el registro completo. Cada línea nueva solo se recorre para seguir las comillas;
+         * el registro se separa una vez, al final.
+         *
+         * @return {@code false} si las comillas no se cierran antes del fin del archivo ni dentro
+         * de los límites de {@link CamposLinea}; las líneas leídas quedan pendientes
+         */
+        private boolean completarRegistro(String primera) throws IOException {
+            StringBuilder registro = new StringBuilder(primera);
+            List<String> siguientes = new ArrayList<>();
+            boolean abierta = true;
+            String siguiente;
+
+            while (abierta && siguientes.size() + 1 < CamposLinea.MAXIMO_LINEAS_REGISTRO
+                    && registro.length() <= CamposLinea.MAXIMO_LARGO_REGISTRO
+                    && (siguiente = leerLinea()) != null) {
+                siguientes.add(siguiente);
+                registro.append('\n').append(siguiente);
+                abierta = campos.sigueEntreComillas(siguiente);
+            }
+
+            if (abierta) {
+                for (int i = siguientes.size() - 1; i >= 0; i--) {
+                    pendientes.addFirst(siguientes.get(i));
+                }
+                return false;
+            }
+
+            numeroLinea += siguientes.size();
+            campos.separar(registro.toString());
+            return true;
+        }
     }
 
     // ===================== PROCESAMIENTO COMÚN ======================
 
-    private void procesarLinea(List<CentroCultivo> datos,
-                               String linea,
-                               int numeroLinea,
-                               boolean desdeCsv) {
+    /**
+     * Convierte una línea en un centro de cultivo según su cantidad de columnas.
+     * <p>
+     * Crea un cursor nuevo en cada llamada; los lectores que procesan muchas líneas
+     * reutilizan el suyo con {@link #procesarCampos(CamposLinea, int, String)}.
+     *
+     * @return el centro construido, o {@code null} si la línea fue omitida
+     */
+    CentroCultivo procesarLinea(String linea,
+                                int numeroLinea,
+                                boolean desdeCsv) {
 
         String tipoArchivo = desdeCsv ? "CSV" : "TXT";
-        String[] partes = linea.split(";");
+        CamposTexto campos = new CamposTexto();
+        campos.usarComillas(desdeCsv);
+        return procesarCampos(campos.separar(linea), numeroLinea, tipoArchivo);
+    }
 
-        if (partes.length == COLUMNAS_SIMPLE) {
-            crearCentroBasico(datos, partes, numeroLinea, tipoArchivo);
-        } else if (partes.length == COLUMNAS_COMPLETAS) {
-            crearCentroCompleto(datos, partes, numeroLinea, tipoArchivo);
+    /**
+     * Construye un centro a partir de los campos ya ubicados de una línea.
+     * <p>
+     * Comuna, producto, tipo, región y responsable se leen con
+     * {@link CamposLinea#textoFrecuente(int)}. Calle, número, nombre de ruta y fecha no: tienen
+     * muchos valores distintos y llenarían el diccionario, que es uno solo para todas las columnas.
+     *
+     * @return el centro construido, o {@code null} si la línea fue omitida
+     */
+    CentroCultivo procesarCampos(CamposLinea campos,
+                                 int numeroLinea,
+                                 String tipoArchivo) {
+
+        if (campos.columnas() == COLUMNAS_SIMPLE) {
+            return crearCentroBasico(campos, numeroLinea, tipoArchivo);
+        } else if (campos.columnas() == COLUMNAS_COMPLETAS) {
+            return crearCentroCompleto(campos, numeroLinea, tipoArchivo);
         } else {
+            informarColumnasInvalidas(campos.columnasLinea(), numeroLinea, tipoArchivo);
+            return null;
+        }
+    }
+
+    void informarColumnasInvalidas(int columnas, int numeroLinea, String tipoArchivo) {
+        boolean mostrar = rechazos.registrar(new RegistroRechazos.Rechazo(tipoArchivo, numeroLinea,
+                RegistroRechazos.Causa.COLUMNAS, -1, "Tiene " + columnas + " columnas"));
+
+        if (mostrar) {
             System.out.println("[" + tipoArchivo + "] Línea " + numeroLinea +
-                    " tiene " + partes.length + " columnas. " +
+                    " tiene " + columnas + " columnas. " +
                     "Solo se aceptan " + COLUMNAS_SIMPLE + " o " + COLUMNAS_COMPLETAS +
                     ". Línea omitida.");
         }
@@ -157,62 +830,55 @@ public class GestorDatos {
     /**
      * Crea un centro usando solo la información básica (sin dirección ni ruta).
      */
-    private void crearCentroBasico(List<CentroCultivo> datos,
-                                   String[] partes,
-                                   int numeroLinea,
-                                   String tipoArchivo) {
+    private CentroCultivo crearCentroBasico(CamposLinea campos,
+                                            int numeroLinea,
+                                            String tipoArchivo) {
         try {
-            String nombreCentro = partes[0].trim();
-            String comuna = partes[1].trim();
-            int produccion = Integer.parseInt(partes[2].trim());
-            String nombreProducto = partes[3].trim();
-            String tipoProducto = partes[4].trim();
-            double precioProducto = Double.parseDouble(partes[5].trim());
+            String nombreCentro = campos.texto(0);
+            String comuna = campos.textoFrecuente(1);
+            int produccion = campos.entero(2);
+            String nombreProducto = campos.textoFrecuente(3);
+            String tipoProducto = campos.textoFrecuente(4);
+            double precioProducto = campos.decimal(5);
 
             Producto producto = new Producto(nombreProducto, tipoProducto, precioProducto);
             CentroCultivo centro = new CentroCultivo(nombreCentro, comuna, producto, produccion);
 
-            datos.add(centro);
+            return centro;
 
-        } catch (NumberFormatException nfe) {
-            System.out.println("[" + tipoArchivo + "] (BÁSICO) Error de formato numérico en línea "
-                    + numeroLinea + ": " + nfe.getMessage() + ". Línea omitida.");
-        } catch (IllegalArgumentException iae) {
-            System.out.println("[" + tipoArchivo + "] (BÁSICO) Datos inválidos en línea "
-                    + numeroLinea + ": " + iae.getMessage() + ". Línea omitida.");
         } catch (Exception e) {
-            System.out.println("[" + tipoArchivo + "] (BÁSICO) Error inesperado en línea "
-                    + numeroLinea + ": " + e.getMessage() + ". Línea omitida.");
+            informarErrorFila(e, false, campos, numeroLinea, tipoArchivo);
         }
+
+        return null;
     }
 
     /**
      * Crea un centro usando información completa: producto, dirección y ruta asociada.
      */
-    private void crearCentroCompleto(List<CentroCultivo> datos,
-                                     String[] partes,
-                                     int numeroLinea,
-                                     String tipoArchivo) {
+    private CentroCultivo crearCentroCompleto(CamposLinea campos,
+                                              int numeroLinea,
+                                              String tipoArchivo) {
         try {
             // Básico
-            String nombreCentro = partes[0].trim();
-            String comuna = partes[1].trim();
-            int produccion = Integer.parseInt(partes[2].trim());
-            String nombreProducto = partes[3].trim();
-            String tipoProducto = partes[4].trim();
-            double precioProducto = Double.parseDouble(partes[5].trim());
+            String nombreCentro = campos.texto(0);
+            String comuna = campos.textoFrecuente(1);
+            int produccion = campos.entero(2);
+            String nombreProducto = campos.textoFrecuente(3);
+            String tipoProducto = campos.textoFrecuente(4);
+            double precioProducto = campos.decimal(5);
 
             // Dirección (usa comuna de columna [1])
-            String calle = partes[6].trim();
-            String numero = partes[7].trim();
-            String region = partes[8].trim();
+            String calle = campos.texto(6);
+            String numero = campos.texto(7);
+            String region = campos.textoFrecuente(8);
 
             Direccion direccion = new Direccion(calle, numero, comuna, region);
 
             // Ruta asociada
-            String nomRuta = partes[9].trim();
-            String responsableRuta = partes[10].trim();
-            String fechaRuta = partes[11].trim();
+            String nomRuta = campos.texto(9);
+            String responsableRuta = campos.textoFrecuente(10);
+            String fechaRuta = campos.texto(11);
 
             Ruta ruta = new Ruta(nomRuta, responsableRuta, fechaRuta, direccion);
 
@@ -221,19 +887,96 @@ public class GestorDatos {
                     nombreCentro, producto, produccion, direccion, ruta
             );
 
-            datos.add(centro);
+            return centro;
+
+        } catch (Exception e) {
+            informarErrorFila(e, true, campos, numeroLinea, tipoArchivo);
+        }
+
+        return null;
+    }
+
+    /**
+     * Agrega una línea como fila de una tabla columnar, sin construir objetos del modelo.
+     * Las líneas inválidas se informan y omiten igual que en la carga de centros.
+     */
+    void agregarFila(TablaCentros.Acumulador tabla,
+                     CamposLinea campos,
+                     int numeroLinea,
+                     String tipoArchivo) {
+
+        boolean completo = campos.columnas() == COLUMNAS_COMPLETAS;
+
+        if (!completo && campos.columnas() != COLUMNAS_SIMPLE) {
+            informarColumnasInvalidas(campos.columnasLinea(), numeroLinea, tipoArchivo);
+            return;
+        }
 
-        } catch (NumberFormatException nfe) {
-            System.out.println("[" + tipoArchivo + "] (COMPLETO) Error de formato numérico en línea "
-                    + numeroLinea + ": " + nfe.getMessage() +
-                    ". Revise producción y precio. Línea omitida.");
-        } catch (IllegalArgumentException iae) {
-            System.out.println("[" + tipoArchivo + "] (COMPLETO) Datos inválidos en línea "
-                    + numeroLinea + ": " + iae.getMessage() + ". Línea omitida.");
+        try {
+            if (completo) {
+                tabla.agregarCompleto(campos.texto(0), campos.textoFrecuente(1), campos.entero(2),
+                        campos.textoFrecuente(3), campos.textoFrecuente(4), campos.decimal(5),
+                        campos.texto(6), campos.texto(7), campos.textoFrecuente(8),
+                        campos.texto(9), campos.textoFrecuente(10), campos.texto(11));
+            } else {
+                tabla.agregarBasico(campos.texto(0), campos.textoFrecuente(1), campos.entero(2),
+                        campos.textoFrecuente(3), campos.textoFrecuente(4), campos.decimal(5));
+            }
         } catch (Exception e) {
-            System.out.println("[" + tipoArchivo + "] (COMPLETO) Error inesperado en línea "
+            informarErrorFila(e, completo, campos, numeroLinea, tipoArchivo);
+        }
+    }
+
+    /**
+     * Registra una línea omitida por un error al construir el centro; en consola solo se
+     * muestra si el registro de rechazos lo permite.
+     */
+    private void informarErrorFila(Exception e,
+                                   boolean completo,
+                                   CamposLinea campos,
+                                   int numeroLinea,
+                                   String tipoArchivo) {
+
+        informarErrorFila(e, completo ? "(COMPLETO)" : "(BÁSICO)",
+                completo ? ". Revise producción y precio" : "", campos, numeroLinea, tipoArchivo);
+    }
+
+    /**
+     * @param formato    forma de la línea que se muestra en el mensaje, por ejemplo {@code (BÁSICO)}
+     * @param sugerencia texto que se agrega a los errores de formato numérico
+     */
+    private void informarErrorFila(Exception e,
+                                   String formato,
+                                   String sugerencia,
+                                   CamposLinea campos,
+                                   int numeroLinea,
+                                   String tipoArchivo) {
+
+        RegistroRechazos.Causa causa;
+        int columna = -1;
+
+        if (e instanceof NumberFormatException) {
+            causa = RegistroRechazos.Causa.NUMERO;
+            columna = campos.columnaNumerica();
+        } else if (e instanceof IllegalArgumentException) {
+            causa = RegistroRechazos.Causa.DATOS;
+        } else {
+            causa = RegistroRechazos.Causa.OTROS;
+        }
+
+        if (!rechazos.registrar(new RegistroRechazos.Rechazo(tipoArchivo, numeroLinea, causa, columna, e.getMessage()))) {
+            return;
+        }
+
+        if (causa == RegistroRechazos.Causa.NUMERO) {
+            System.out.println("[" + tipoArchivo + "] " + formato + " Error de formato numérico en línea "
+                    + numeroLinea + ": " + e.getMessage() + sugerencia + ". Línea omitida.");
+        } else if (causa == RegistroRechazos.Causa.DATOS) {
+            System.out.println("[" + tipoArchivo + "] " + formato + " Datos inválidos en línea "
+                    + numeroLinea + ": " + e.getMessage() + ". Línea omitida.");
+        } else {
+            System.out.println("[" + tipoArchivo + "] " + formato + " Error inesperado en línea "
                     + numeroLinea + ": " + e.getMessage() + ". Línea omitida.");
         }
     }
 }
-
@@ -0,0 +1,213 @@
+package com.salmonttcorp.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Lector de archivos de centros en disco que trabaja directamente sobre el archivo
+ * proyectado en memoria con {@link FileChannel#map}.
+ * <p>
+ * En lugar de decodificar cada línea completa a {@link String} y luego separarla con
+ * {@code split(";")}, recorre los bytes buscando {@code '\n'} y ubica los campos con
+ * {@link CamposBytes}, que solo decodifica los campos de texto de las líneas con una
+ * cantidad de columnas válida y lee los numéricos directamente desde los bytes.
+ * Las líneas rechazadas por cantidad de columnas no generan ningún {@link String}.
+ * <p>
+ * Los archivos de varios GB se recorren en ventanas de {@link #TAMANO_VENTANA} bytes,
+ * ya que un único {@link MappedByteBuffer} no puede superar los 2 GB.
+ * <p>
+ * En los CSV el encabezado se interpreta con {@link EncabezadoCsv}, de modo que las columnas
+ * pueden venir en cualquier orden; con {@link #proyectar(List)} solo se ubican las columnas
+ * pedidas. En los CSV un campo entre comillas puede contener saltos de línea: la línea se
+ * extiende hasta que se cierran las comillas y se entrega con el número de su primera línea.
+ * Si no se cierran dentro de los límites de {@link CamposLinea}, solo se omite la primera línea
+ * y las siguientes se leen por separado.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+class LectorMapeado {
+
+    private static final long TAMANO_VENTANA = 256L * 1024 * 1024;
+
+    private static final byte SALTO_LINEA = '\n';
+    private static final byte RETORNO_CARRO = '\r';
+
+    /** Cursor reutilizado para ubicar los campos de cada línea sin copiarlos. */
+    private final CamposBytes campos = new CamposBytes();
+
+    /** Gestor que registra los registros con comillas sin cerrar. */
+    private final GestorDatos gestor;
+
+    /** Columnas pedidas con {@link #proyectar(List)}, o {@code null} para las del modelo. */
+    private List<String> columnas;
+
+    LectorMapeado(GestorDatos gestor) {
+        this.gestor = gestor;
+    }
+
+    /**
+     * Lee solo las columnas indicadas, por nombre: el destino recibe los campos en ese orden.
+     * En los TXT, que no tienen encabezado, los nombres siguen el orden habitual de columnas.
+     */
+    void proyectar(List<String> columnas) {
+        this.columnas = columnas;
+    }
+
+    /**
+     * Recorre el archivo entregando los campos de cada línea no vacía al destino indicado.
+     *
+     * @param archivo  archivo en el sistema de archivos
+     * @param desdeCsv {@code true} si la primera línea es encabezado
+     * @param destino  receptor de cada línea, que decide cómo construirla
+     * @throws IOException si el archivo no puede leerse
+     */
+    void recorrer(Path archivo, boolean desdeCsv, DestinoFilas destino) throws IOException {
+        recorrer(archivo, desdeCsv, 0, Long.MAX_VALUE, 1, destino);
+    }
+
+    /**
+     * Recorre solo el tramo de bytes {@code [desde, hasta)} del archivo, que debe comenzar
+     * en un inicio de línea. Se usa en las recargas incrementales para volver a leer solo
+     * los bloques que cambiaron.
+     *
+     * @param desde        posición del primer byte del tramo
+     * @param hasta        posición siguiente al último byte del tramo; se acota al tamaño del archivo
+     * @param primeraLinea número de la primera línea del tramo dentro del archivo
+     */
+    void recorrer(Path archivo, boolean desdeCsv, long desde, long hasta, int primeraLinea,
+                  DestinoFilas destino) throws IOException {
+        String tipoArchivo = desdeCsv ? "CSV" : "TXT";
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = Math.min(canal.size(), hasta);
+            long inicioVentana = desde;
+            int numeroLinea = primeraLinea - 1;
+            campos.usarComillas(desdeCsv);
+
+            if (!desdeCsv) {
+                campos.mapear((columnas != null) ? EncabezadoCsv.proyectar(null, columnas) : null);
+            } else if (desde > 0) {
+                // El tramo no incluye el encabezado: se lee aparte
+                leerEncabezado(canal);
+            }
+
+            while (inicioVentana < tamano) {
+                long largoVentana = Math.min(TAMANO_VENTANA, tamano - inicioVentana);
+                boolean ultimaVentana = inicioVentana + largoVentana == tamano;
+                MappedByteBuffer ventana = canal.map(FileChannel.MapMode.READ_ONLY,
+                        inicioVentana, largoVentana);
+
+                int limite = ventana.limit();
+                int inicioLinea = 0;
+
+                while (inicioLinea < limite) {
+                    int finLinea = buscarSaltoLinea(ventana, inicioLinea, limite);
+
+                    if (finLinea == limite && !ultimaVentana) {
+                        // Línea cortada por la ventana: se vuelve a proyectar desde su inicio
+                        break;
+                    }
+
+                    numeroLinea++;
+
+                    if (desdeCsv && numeroLinea == 1) {
+                        leerEncabezado(ventana, inicioLinea, finLinea);
+                        inicioLinea = finLinea + 1;
+                        continue;
+                    }
+
+                    // Un campo entre comillas puede seguir en las líneas siguientes
+                    int lineasExtra = 0;
+                    if (separarLinea(ventana, inicioLinea, finLinea)) {
+                        boolean abierta = true;
+                        int finRegistro = finLinea;
+
+                        while (abierta && finRegistro < limite
+                                && lineasExtra + 1 < CamposLinea.MAXIMO_LINEAS_REGISTRO
+                                && finRegistro - inicioLinea <= CamposLinea.MAXIMO_LARGO_REGISTRO) {
+                            int finSiguiente = buscarSaltoLinea(ventana, finRegistro + 1, limite);
+                            abierta = campos.sigueEntreComillas(ventana, finRegistro + 1, finSiguiente);
+                            finRegistro = finSiguiente;
+                            lineasExtra++;
+                        }
+
+                        if (finRegistro == limite && !ultimaVentana) {
+                            // El registro quedó cortado por la ventana: se vuelve a leer completo
+                            numeroLinea--;
+                            break;
+                        }
+
+                        if (abierta) {
+                            gestor.informarComillasSinCerrar(numeroLinea, tipoArchivo);
+                            inicioLinea = finLinea + 1;
+                            continue;
+                        }
+
+                        finLinea = finRegistro;
+                        separarLinea(ventana, inicioLinea, finLinea);
+                    }
+
+                    if (!campos.esBlanco(ventana, inicioLinea, finLinea)) {
+                        destino.procesar(campos, numeroLinea, tipoArchivo);
+                    }
+
+                    numeroLinea += lineasExtra;
+                    inicioLinea = finLinea + 1;
+                }
+
+                if (inicioLinea == 0 && !ultimaVentana) {
+                    throw new IOException("La línea " + (numeroLinea + 1) + " supera el tamaño máximo de "
+                            + TAMANO_VENTANA + " bytes.");
+                }
+
+                inicioVentana += Math.min(inicioLinea, limite);
+            }
+        }
+    }
+
+    private int buscarSaltoLinea(MappedByteBuffer buffer, int desde, int limite) {
+        for (int i = desde; i < limite; i++) {
+            if (buffer.get(i) == SALTO_LINEA) {
+                return i;
+            }
+        }
+        return limite;
+    }
+
+    /**
+     * Ubica los campos de la línea {@code [inicio, fin)}, sin decodificar ninguno; el destino
+     * decodifica solo los campos de texto que pida.
+     *
+     * @return {@code true} si la línea termina dentro de un campo entre comillas
+     */
+    private boolean separarLinea(MappedByteBuffer buffer, int inicio, int fin) {
+        if (fin > inicio && buffer.get(fin - 1) == RETORNO_CARRO) {
+            fin--;
+        }
+
+        return campos.separar(buffer, inicio, fin).comillaAbierta();
+    }
+
+    /**
+     * Interpreta la línea {@code [inicio, fin)} como encabezado y deja el cursor mapeado a las
+     * columnas del modelo o a las pedidas con {@link #proyectar(List)}.
+     */
+    private void leerEncabezado(MappedByteBuffer buffer, int inicio, int fin) {
+        campos.mapear(null);
+        separarLinea(buffer, inicio, fin);
+        campos.mapear((columnas != null) ? EncabezadoCsv.proyectar(campos, columnas) : EncabezadoCsv.mapear(campos));
+    }
+
+    /**
+     * Lee el encabezado desde el comienzo del archivo, para los tramos que empiezan más adelante.
+     */
+    private void leerEncabezado(FileChannel canal) throws IOException {
+        long largo = Math.min(canal.size(), TAMANO_VENTANA);
+        MappedByteBuffer inicio = canal.map(FileChannel.MapMode.READ_ONLY, 0, largo);
+        leerEncabezado(inicio, 0, buscarSaltoLinea(inicio, 0, inicio.limit()));
+    }
+}
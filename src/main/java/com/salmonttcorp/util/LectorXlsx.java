@@ -0,0 +1,320 @@
+package com.salmonttcorp.util;
+
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JRuntimeException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Lector de planillas {@code .xlsx} con la API de eventos de POI ({@link XSSFReader} + SAX).
+ * <p>
+ * A diferencia de {@code XSSFWorkbook}, no construye el modelo del libro: {@link XSSFReader}
+ * entrega el XML de cada hoja, que se recorre con SAX, y cada fila se entrega al
+ * {@link DestinoFilas} en cuanto termina, con un {@link CamposCeldas} reutilizado. La memoria no
+ * crece con la cantidad de filas; solo se mantienen los estilos y la tabla de textos
+ * compartidos del libro, más un arreglo fijo con los últimos textos compartidos leídos.
+ * <p>
+ * Se recorren todas las hojas en orden. La primera fila de cada hoja se toma como encabezado,
+ * igual que la primera línea de un CSV, y las columnas siguen el mismo orden de 6 o 12 campos.
+ * Las celdas vacías que faltan en el XML cuentan como campos vacíos; los números se entregan
+ * como los mostraría Excel sin formato ({@code 463}, {@code 1695.5}) y las fechas en formato
+ * ISO ({@code 2025-01-10}). El número de línea de los mensajes es el número de fila de la hoja.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+class LectorXlsx {
+
+    static final String TIPO_ARCHIVO = "XLSX";
+
+    /** Textos compartidos recientes que guarda cada hoja; potencia de dos. */
+    private static final int TEXTOS_RECIENTES = 1024;
+
+    /**
+     * Recorre la planilla en disco entregando cada fila no vacía al destino indicado.
+     *
+     * @throws IOException si el archivo no puede leerse o no es una planilla válida; los errores
+     *                     de formato que POI informa sin verificar también se entregan así
+     */
+    void recorrer(Path archivo, DestinoFilas destino) throws IOException {
+        try (OPCPackage paquete = OPCPackage.open(archivo.toFile(), PackageAccess.READ)) {
+            recorrer(paquete, destino);
+        } catch (OpenXML4JException | OpenXML4JRuntimeException | UnsupportedFileFormatException | POIXMLException e) {
+            throw new IOException("No es una planilla XLSX válida: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Igual que {@link #recorrer(Path, DestinoFilas)}, para planillas que no están en disco
+     * (recursos dentro de un .jar). POI copia el contenido comprimido en memoria.
+     */
+    void recorrer(InputStream entrada, DestinoFilas destino) throws IOException {
+        try (OPCPackage paquete = OPCPackage.open(entrada)) {
+            recorrer(paquete, destino);
+        } catch (OpenXML4JException | OpenXML4JRuntimeException | UnsupportedFileFormatException | POIXMLException e) {
+            throw new IOException("No es una planilla XLSX válida: " + e.getMessage(), e);
+        }
+    }
+
+    private void recorrer(OPCPackage paquete, DestinoFilas destino) throws IOException, OpenXML4JException {
+        XSSFReader lector = new XSSFReader(paquete);
+
+        try {
+            HojaXlsx hoja = new HojaXlsx(new ReadOnlySharedStringsTable(paquete, false), lector.getStylesTable(), destino);
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(hoja);
+
+            Iterator<InputStream> hojas = lector.getSheetsData();
+            while (hojas.hasNext()) {
+                try (InputStream datos = hojas.next()) {
+                    hoja.iniciar();
+                    parser.parse(new InputSource(datos));
+                }
+            }
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("Error al leer la planilla: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recorre el XML de una hoja ({@code <row>}, {@code <c>}, {@code <v>}, {@code <is><t>})
+     * armando cada fila en un {@link CamposCeldas}, y la entrega al destino al cerrar la fila.
+     * <p>
+     * Reemplaza a {@code XSSFSheetXMLHandler} de POI, que por cada celda de texto en línea crea
+     * un {@code XSSFRichTextString} (y sus objetos XMLBeans) y formatea cada número con
+     * {@code DataFormatter}: aquí el valor se acumula en un {@link StringBuilder} reutilizado y
+     * se copia directo al cursor.
+     */
+    private static class HojaXlsx extends DefaultHandler {
+
+        private final SharedStrings textos;
+        private final StylesTable estilos;
+        private final DestinoFilas destino;
+
+        private final CamposCeldas campos = new CamposCeldas();
+        private final StringBuilder valor = new StringBuilder(64);
+
+        /*
+         * Últimos textos compartidos leídos, en un arreglo de tamaño fijo indexado por el índice
+         * del texto módulo TEXTOS_RECIENTES. getItemAt crea un XSSFRichTextString en cada
+         * llamada; así los valores que se repiten seguido (comuna, región...) se leen una vez,
+         * sin copiar la tabla de textos del libro.
+         */
+        private final int[] indicesRecientes = new int[TEXTOS_RECIENTES];
+        private final String[] textosRecientes = new String[TEXTOS_RECIENTES];
+        /** Por índice de estilo, si su formato es de fecha. */
+        private final Map<Integer, Boolean> estilosFecha = new HashMap<>();
+
+        private boolean encabezado;
+        private int fila;
+        private int columnaSiguiente;
+
+        private String tipoCelda;
+        private String estiloCelda;
+        private boolean enCelda;
+        private boolean capturando;
+        private boolean enFonetica;
+
+        HojaXlsx(SharedStrings textos, StylesTable estilos, DestinoFilas destino) {
+            this.textos = textos;
+            this.estilos = estilos;
+            this.destino = destino;
+        }
+
+        /**
+         * Prepara la lectura de una hoja nueva, cuya primera fila es el encabezado.
+         */
+        void iniciar() {
+            encabezado = true;
+            fila = 0;
+        }
+
+        @Override
+        public void startElement(String uri, String nombreLocal, String nombre, Attributes atributos) {
+            switch (nombreLocal) {
+                case "row":
+                    String r = atributos.getValue("r");
+                    fila = (r != null) ? Integer.parseInt(r) : fila + 1;
+                    campos.limpiar();
+                    columnaSiguiente = 0;
+                    break;
+                case "c":
+                    String referencia = atributos.getValue("r");
+                    int columna = (referencia != null) ? columna(referencia) : columnaSiguiente;
+                    while (columnaSiguiente < columna) {
+                        campos.agregar(null);
+                        columnaSiguiente++;
+                    }
+                    tipoCelda = atributos.getValue("t");
+                    estiloCelda = atributos.getValue("s");
+                    valor.setLength(0);
+                    enCelda = true;
+                    break;
+                case "v":
+                    capturando = enCelda;
+                    break;
+                case "t":
+                    // Texto en línea; las guías fonéticas (<rPh>) no son parte del valor
+                    capturando = enCelda && !enFonetica;
+                    break;
+                case "rPh":
+                    enFonetica = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] caracteres, int desde, int largo) {
+            if (capturando) {
+                valor.append(caracteres, desde, largo);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String nombreLocal, String nombre) {
+            switch (nombreLocal) {
+                case "v":
+                case "t":
+                    capturando = false;
+                    break;
+                case "rPh":
+                    enFonetica = false;
+                    break;
+                case "c":
+                    campos.agregar(valorCelda());
+                    columnaSiguiente++;
+                    enCelda = false;
+                    break;
+                case "row":
+                    terminarFila();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void terminarFila() {
+            if (encabezado) {
+                // Se asume encabezado y se omite
+                encabezado = false;
+                return;
+            }
+
+            if (campos.columnas() > 0) {
+                destino.procesar(campos, fila, TIPO_ARCHIVO);
+            }
+        }
+
+        /**
+         * @return valor de la celda actual como lo mostraría Excel sin formato
+         */
+        private CharSequence valorCelda() {
+            if (tipoCelda == null || "n".equals(tipoCelda)) {
+                return (valor.length() == 0) ? valor : numero();
+            }
+
+            switch (tipoCelda) {
+                case "s":
+                    int indice = Integer.parseInt(valor.toString().trim());
+                    return textoCompartido(indice);
+                case "b":
+                    return "1".equals(valor.toString()) ? "TRUE" : "FALSE";
+                default:
+                    // inlineStr, str (resultado de fórmula) y e (error)
+                    return valor;
+            }
+        }
+
+        private String textoCompartido(int indice) {
+            int ranura = indice & (TEXTOS_RECIENTES - 1);
+            if (textosRecientes[ranura] == null || indicesRecientes[ranura] != indice) {
+                indicesRecientes[ranura] = indice;
+                textosRecientes[ranura] = textos.getItemAt(indice).getString();
+            }
+            return textosRecientes[ranura];
+        }
+
+        /**
+         * Los números se guardan en el XML como {@code double} ({@code 2524.0}); se entregan
+         * sin los ceros decimales sobrantes ({@code 2524}), o como fecha ISO si el estilo de
+         * la celda es de fecha.
+         */
+        private CharSequence numero() {
+            if (estiloCelda != null && esFecha(Integer.parseInt(estiloCelda))) {
+                double serie = Double.parseDouble(valor.toString());
+                if (DateUtil.isValidExcelDate(serie)) {
+                    return DateUtil.getLocalDateTime(serie).toLocalDate().toString();
+                }
+            }
+
+            int punto = -1;
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c == '.' && punto < 0) {
+                    punto = i;
+                } else if ((c < '0' || c > '9') && !(c == '-' && i == 0)) {
+                    // Exponente u otra forma: se deja como lo escribiría Excel
+                    return NumberToTextConverter.toText(Double.parseDouble(valor.toString()));
+                }
+            }
+
+            if (punto >= 0) {
+                int fin = valor.length();
+                while (fin > punto + 1 && valor.charAt(fin - 1) == '0') {
+                    fin--;
+                }
+                valor.setLength((fin == punto + 1) ? punto : fin);
+            }
+            return valor;
+        }
+
+        private boolean esFecha(int estilo) {
+            return estilosFecha.computeIfAbsent(estilo, e -> {
+                if (estilos == null || e >= estilos.getNumCellStyles()) {
+                    return false;
+                }
+                XSSFCellStyle formato = estilos.getStyleAt(e);
+                return DateUtil.isADateFormat(formato.getDataFormat(), formato.getDataFormatString());
+            });
+        }
+
+        /**
+         * @return índice (desde 0) de la columna de una referencia como {@code "AB12"}
+         */
+        private static int columna(String referencia) {
+            int columna = 0;
+            for (int i = 0; i < referencia.length(); i++) {
+                char c = referencia.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                columna = columna * 26 + (c - 'A' + 1);
+            }
+            return columna - 1;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.salmonttcorp.util;
+
+import com.salmonttcorp.service.CentroService;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantiene un {@link CentroService} al día con un archivo en disco, sin reiniciar la aplicación.
+ * <p>
+ * Un hilo en segundo plano observa la carpeta del archivo con {@link WatchService}; cuando el
+ * archivo se modifica o se reemplaza, lo recarga con {@link CargaIncremental} y publica el
+ * servicio resultante con un intercambio atómico de referencia. Como cada servicio es
+ * inmutable, quienes consultan con {@link #actual()} nunca se bloquean ni ven una carga a medias:
+ * siguen usando el servicio anterior hasta que el nuevo está completo.
+ * <p>
+ * Los eventos que llegan seguidos (un editor o una exportación que escribe en varias partes)
+ * se agrupan esperando {@link #ESPERA_MS} ms sin eventos nuevos antes de recargar. Si una
+ * recarga falla (por ejemplo, porque el archivo se trunca mientras se lee), se informa, se
+ * conserva el servicio anterior y se sigue observando.
+ * <p>
+ * Uso:
+ * <pre>
+ * try (RecargaAutomatica recarga = new RecargaAutomatica(Path.of("centros.csv"))) {
+ *     recarga.iniciar();
+ *     ...
+ *     recarga.actual().buscarPorComuna("Quellón");
+ * }
+ * </pre>
+ * Autor: Víctor Valenzuela
+ */
+public final class RecargaAutomatica implements AutoCloseable {
+
+    static final long ESPERA_MS = 200;
+
+    private final Path archivo;
+    private final CargaIncremental carga;
+    private final AtomicReference<CentroService> actual = new AtomicReference<>();
+
+    private WatchService observador;
+    private Thread hilo;
+
+    /**
+     * Crea la recarga y hace la carga inicial del archivo, antes de retornar.
+     *
+     * @param archivo archivo en disco a seguir
+     */
+    public RecargaAutomatica(Path archivo) {
+        this(new GestorDatos(), archivo);
+    }
+
+    /**
+     * Igual que {@link #RecargaAutomatica(Path)}, interpretando las líneas con el gestor indicado.
+     *
+     * @param gestor  gestor que interpreta las líneas y registra los rechazos de cada recarga
+     * @param archivo archivo en disco a seguir
+     */
+    public RecargaAutomatica(GestorDatos gestor, Path archivo) {
+        if (archivo == null) {
+            throw new IllegalArgumentException("La ruta del archivo no puede estar vacía.");
+        }
+        this.archivo = archivo.toAbsolutePath();
+        this.carga = new CargaIncremental(gestor, this.archivo);
+        actual.set(carga.recargar());
+    }
+
+    /**
+     * @return último servicio publicado; nunca nulo
+     */
+    public CentroService actual() {
+        return actual.get();
+    }
+
+    /**
+     * Comienza a observar el archivo en un hilo en segundo plano.
+     *
+     * @throws IOException si la carpeta del archivo no se puede observar
+     */
+    public synchronized void iniciar() throws IOException {
+        if (hilo != null) {
+            throw new IllegalStateException("La recarga automática ya está iniciada.");
+        }
+
+        observador = FileSystems.getDefault().newWatchService();
+        archivo.getParent().register(observador, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        hilo = new Thread(this::observar, "recarga-" + archivo.getFileName());
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Recarga el archivo de inmediato y publica el resultado.
+     *
+     * @return servicio publicado
+     */
+    public synchronized CentroService recargar() {
+        CentroService service = carga.recargar();
+        actual.set(service);
+        return service;
+    }
+
+    /**
+     * Deja de observar el archivo. El último servicio publicado sigue disponible y la recarga
+     * puede volver a iniciarse con {@link #iniciar()}.
+     */
+    @Override
+    public synchronized void close() {
+        if (observador == null) {
+            return;
+        }
+
+        try {
+            observador.close();
+        } catch (IOException e) {
+            System.out.println("Error al detener la recarga de " + archivo + ": " + e.getMessage());
+        }
+        hilo.interrupt();
+        hilo = null;
+        observador = null;
+    }
+
+    private void observar() {
+        WatchService servicio = observador;
+
+        try {
+            while (true) {
+                WatchKey clave = servicio.take();
+                boolean afectaArchivo = revisarEventos(clave);
+
+                // Se agrupan los eventos que sigan llegando antes de recargar
+                while ((clave = servicio.poll(ESPERA_MS, TimeUnit.MILLISECONDS)) != null) {
+                    afectaArchivo |= revisarEventos(clave);
+                }
+
+                if (afectaArchivo) {
+                    recargarObservando();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Recarga detenida con close()
+        }
+    }
+
+    /**
+     * Recarga desde el hilo observador. Un error no debe terminar el hilo: la recarga
+     * automática se detendría para siempre sin aviso.
+     */
+    private void recargarObservando() {
+        try {
+            recargar();
+        } catch (RuntimeException | Error e) {
+            System.out.println("Error al recargar " + archivo + ": " + e
+                    + ". Se mantiene el servicio anterior.");
+        }
+    }
+
+    /**
+     * Consume los eventos de la clave y la reactiva.
+     *
+     * @return {@code true} si algún evento corresponde al archivo observado o se perdieron eventos
+     */
+    private boolean revisarEventos(WatchKey clave) {
+        boolean afectaArchivo = false;
+
+        for (WatchEvent<?> evento : clave.pollEvents()) {
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW
+                    || archivo.getFileName().equals(evento.context())) {
+                afectaArchivo = true;
+            }
+        }
+
+        clave.reset();
+        return afectaArchivo;
+    }
+}
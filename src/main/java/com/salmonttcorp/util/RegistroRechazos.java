@@ -0,0 +1,399 @@
+package com.salmonttcorp.util;
+
+import com.salmonttcorp.metricas.Metricas;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de las líneas omitidas durante las cargas de {@link GestorDatos}.
+ * <p>
+ * Cada línea omitida queda como un {@link Rechazo} (línea, causa, columna y detalle) en vez de
+ * imprimirse siempre en consola:
+ * <ul>
+ *   <li>se cuenta por causa, también en {@link Metricas} bajo {@code carga.rechazos.<causa>};</li>
+ *   <li>los primeros {@value #MAXIMO_RETENIDOS} quedan en memoria para consultarlos con
+ *       {@link #retenidos()};</li>
+ *   <li>si se indicó un archivo de rechazos, se escriben todos en él como CSV desde un hilo en
+ *       segundo plano, que los toma de a lotes de una cola acotada;</li>
+ *   <li>en consola solo se muestran hasta {@value #MUESTRAS_POR_SEGUNDO} por segundo; al
+ *       terminar la carga se imprime un resumen si hubo rechazos que no se mostraron.</li>
+ * </ul>
+ * Así, un archivo con pocas líneas inválidas se informa igual que antes, y uno con millones no
+ * pasa la carga escribiendo en la consola. Uso:
+ * <pre>
+ * try (RegistroRechazos rechazos = new RegistroRechazos(Path.of("rechazos.csv"))) {
+ *     List&lt;CentroCultivo&gt; centros = new GestorDatos(rechazos).cargarDatos("datos.csv");
+ *     long numericos = rechazos.total(RegistroRechazos.Causa.NUMERO);
+ * }
+ * </pre>
+ * Es seguro para uso desde varios hilos (la carga en paralelo registra desde todos sus bloques).
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+public final class RegistroRechazos implements AutoCloseable {
+
+    /** Rechazos que se guardan en memoria para consultarlos. */
+    static final int MAXIMO_RETENIDOS = 1000;
+
+    /** Rechazos que se muestran en consola por cada segundo. */
+    static final int MUESTRAS_POR_SEGUNDO = 10;
+
+    /** Rechazos pendientes de escribir; si se llena, quien registra espera al escritor. */
+    static final int CAPACIDAD_COLA = 8192;
+
+    /** Rechazos que el escritor toma de la cola en cada escritura. */
+    static final int TAMANO_LOTE = 512;
+
+    private static final String[] ENCABEZADO = {"archivo", "linea", "causa", "columna", "detalle"};
+
+    /** Marca el fin de la cola para el escritor. */
+    private static final Rechazo FIN = new Rechazo("", 0, Causa.OTROS, -1, "");
+
+    /**
+     * Causa por la que se omitió una línea.
+     */
+    public enum Causa {
+        /** La línea no tiene 6 ni 12 columnas. */
+        COLUMNAS,
+        /** Producción o precio no son números válidos. */
+        NUMERO,
+        /** El modelo rechazó los datos (vacíos, negativos, fecha inválida...). */
+        DATOS,
+        /** Un campo CSV abre comillas que no se cierran. */
+        COMILLAS,
+        /** Cualquier otro error al construir el centro. */
+        OTROS;
+
+        private final LongAdder metrica = Metricas.globales()
+                .contador("carga.rechazos." + name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Línea omitida en una carga.
+     *
+     * @param archivo tipo de archivo de la carga ({@code "CSV"} o {@code "TXT"})
+     * @param linea   número de línea en el archivo, desde 1
+     * @param causa   causa del rechazo
+     * @param columna columna (desde 0) del valor inválido, o -1 si no corresponde a una columna
+     * @param detalle descripción del problema
+     */
+    public record Rechazo(String archivo, int linea, Causa causa, int columna, String detalle) {
+    }
+
+    /**
+     * Conteos al inicio de una carga, para resumir lo registrado desde entonces.
+     */
+    record Marca(long[] rechazos, long silenciados) {
+    }
+
+    private final LongAdder[] totales = new LongAdder[Causa.values().length];
+    private final LongAdder silenciados = new LongAdder();
+
+    private final AtomicReferenceArray<Rechazo> retenidos = new AtomicReferenceArray<>(MAXIMO_RETENIDOS);
+    private final AtomicInteger cantidadRetenidos = new AtomicInteger();
+
+    private long segundoActual = Long.MIN_VALUE;
+    private int muestrasEnSegundo;
+
+    private final Path archivoRechazos;
+    private final BlockingQueue<Rechazo> pendientes;
+    private final Thread escritor;
+    private final LongAdder encolados = new LongAdder();
+    private long escritos;
+    private volatile boolean cerrado;
+
+    /**
+     * Registro sin archivo de rechazos: solo cuenta, retiene y muestra muestras en consola.
+     */
+    public RegistroRechazos() {
+        for (int i = 0; i < totales.length; i++) {
+            totales[i] = new LongAdder();
+        }
+        this.archivoRechazos = null;
+        this.pendientes = null;
+        this.escritor = null;
+    }
+
+    /**
+     * Registro que además escribe cada rechazo en un archivo CSV separado por punto y coma
+     * ({@code archivo;linea;causa;columna;detalle}). El archivo se reemplaza si existe.
+     *
+     * @param archivoRechazos ruta del archivo de rechazos
+     * @throws IOException si el archivo no se puede crear
+     */
+    public RegistroRechazos(Path archivoRechazos) throws IOException {
+        if (archivoRechazos == null) {
+            throw new IllegalArgumentException("La ruta del archivo de rechazos no puede estar vacía.");
+        }
+        for (int i = 0; i < totales.length; i++) {
+            totales[i] = new LongAdder();
+        }
+
+        CSVFormat formato = CSVFormat.DEFAULT.builder()
+                .setDelimiter(';')
+                .setHeader(ENCABEZADO)
+                .build();
+        CSVPrinter printer = new CSVPrinter(Files.newBufferedWriter(archivoRechazos, StandardCharsets.UTF_8), formato);
+
+        this.archivoRechazos = archivoRechazos;
+        this.pendientes = new ArrayBlockingQueue<>(CAPACIDAD_COLA);
+        this.escritor = new Thread(() -> escribir(printer), "salmontt-rechazos");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    // ===================== REGISTRO ======================
+
+    /**
+     * Registra una línea omitida.
+     *
+     * @return {@code true} si el rechazo debe mostrarse en consola; {@code false} si se superó
+     * el límite de muestras por segundo y solo queda contado
+     */
+    public boolean registrar(Rechazo rechazo) {
+        totales[rechazo.causa().ordinal()].increment();
+        rechazo.causa().metrica.increment();
+
+        int posicion = cantidadRetenidos.get();
+        if (posicion < MAXIMO_RETENIDOS) {
+            posicion = cantidadRetenidos.getAndIncrement();
+            if (posicion < MAXIMO_RETENIDOS) {
+                retenidos.set(posicion, rechazo);
+            }
+        }
+
+        if (pendientes != null) {
+            encolar(rechazo);
+        }
+
+        if (permitirMuestra()) {
+            return true;
+        }
+        silenciados.increment();
+        return false;
+    }
+
+    private synchronized boolean permitirMuestra() {
+        long segundo = System.nanoTime() / 1_000_000_000L;
+
+        if (segundo != segundoActual) {
+            segundoActual = segundo;
+            muestrasEnSegundo = 0;
+        }
+        return muestrasEnSegundo++ < MUESTRAS_POR_SEGUNDO;
+    }
+
+    private void encolar(Rechazo rechazo) {
+        if (cerrado) {
+            return;
+        }
+
+        try {
+            pendientes.put(rechazo);
+            encolados.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===================== CONSULTA ======================
+
+    /**
+     * @return cantidad total de líneas omitidas
+     */
+    public long total() {
+        long suma = 0;
+        for (LongAdder t : totales) {
+            suma += t.sum();
+        }
+        return suma;
+    }
+
+    /**
+     * @return cantidad de líneas omitidas por la causa indicada
+     */
+    public long total(Causa causa) {
+        return totales[causa.ordinal()].sum();
+    }
+
+    /**
+     * @return los primeros {@value #MAXIMO_RETENIDOS} rechazos registrados, en el orden en que
+     * llegaron (con carga en paralelo no siempre es el orden de las líneas)
+     */
+    public List<Rechazo> retenidos() {
+        int cantidad = Math.min(cantidadRetenidos.get(), MAXIMO_RETENIDOS);
+        List<Rechazo> lista = new ArrayList<>(cantidad);
+
+        for (int i = 0; i < cantidad; i++) {
+            Rechazo rechazo = retenidos.get(i);
+            // Un registro concurrente puede haber reservado la posición sin escribirla aún
+            if (rechazo != null) {
+                lista.add(rechazo);
+            }
+        }
+        return Collections.unmodifiableList(lista);
+    }
+
+    /**
+     * @return los rechazos retenidos con la causa indicada
+     */
+    public List<Rechazo> retenidos(Causa causa) {
+        return retenidos().stream().filter(r -> r.causa() == causa).toList();
+    }
+
+    /**
+     * @return ruta del archivo de rechazos, o {@code null} si no se indicó
+     */
+    public Path archivoRechazos() {
+        return archivoRechazos;
+    }
+
+    // ===================== RESUMEN ======================
+
+    Marca marcar() {
+        long[] conteos = new long[totales.length];
+        for (int i = 0; i < totales.length; i++) {
+            conteos[i] = totales[i].sum();
+        }
+        return new Marca(conteos, silenciados.sum());
+    }
+
+    /**
+     * Al terminar una carga, imprime un resumen de sus rechazos si alguno no se mostró en
+     * consola, y espera a que el archivo de rechazos tenga todos los registrados hasta ahora.
+     * Si varias cargas comparten el registro al mismo tiempo, el resumen incluye los de todas.
+     *
+     * @param desde       marca tomada al comenzar la carga
+     * @param tipoArchivo {@code "CSV"} o {@code "TXT"}
+     */
+    void resumir(Marca desde, String tipoArchivo) {
+        long[] conteos = new long[totales.length];
+        long omitidas = 0;
+        for (int i = 0; i < totales.length; i++) {
+            conteos[i] = totales[i].sum() - desde.rechazos()[i];
+            omitidas += conteos[i];
+        }
+
+        if (omitidas == 0) {
+            return;
+        }
+        vaciar();
+
+        long noMostradas = silenciados.sum() - desde.silenciados();
+        if (noMostradas == 0) {
+            return;
+        }
+
+        StringBuilder resumen = new StringBuilder()
+                .append('[').append(tipoArchivo).append("] ").append(omitidas).append(" líneas omitidas (");
+        Causa[] causas = Causa.values();
+        for (int i = 0; i < causas.length; i++) {
+            resumen.append(i == 0 ? "" : ", ").append(causas[i].name().toLowerCase(Locale.ROOT))
+                    .append(": ").append(conteos[i]);
+        }
+        resumen.append("); ").append(noMostradas).append(" no se mostraron");
+
+        if (archivoRechazos != null) {
+            resumen.append(". Detalle en ").append(archivoRechazos);
+        }
+        System.out.println(resumen.append('.'));
+    }
+
+    // ===================== ARCHIVO ======================
+
+    private void escribir(CSVPrinter printer) {
+        List<Rechazo> lote = new ArrayList<>(TAMANO_LOTE);
+        boolean fin = false;
+
+        try {
+            while (!fin) {
+                lote.add(pendientes.take());
+                pendientes.drainTo(lote, TAMANO_LOTE - 1);
+
+                for (Rechazo r : lote) {
+                    if (r == FIN) {
+                        fin = true;
+                        break;
+                    }
+                    printer.printRecord(r.archivo(), r.linea(), r.causa(), r.columna(), r.detalle());
+                }
+
+                if (pendientes.isEmpty()) {
+                    printer.flush();
+                }
+                avanzar(lote.size() - (fin ? 1 : 0));
+                lote.clear();
+            }
+        } catch (IOException e) {
+            System.out.println("Error al escribir el archivo de rechazos " + archivoRechazos + ": " + e.getMessage());
+            // Deja de recibir rechazos y libera a quienes esperan espacio en la cola
+            cerrado = true;
+            pendientes.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                printer.close();
+            } catch (IOException e) {
+                System.out.println("Error al cerrar el archivo de rechazos " + archivoRechazos + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void avanzar(long cantidad) {
+        escritos += cantidad;
+        notifyAll();
+    }
+
+    /**
+     * Espera a que el archivo de rechazos tenga todos los rechazos registrados hasta ahora.
+     * Sin archivo de rechazos no hace nada.
+     */
+    public synchronized void vaciar() {
+        if (pendientes == null) {
+            return;
+        }
+
+        long objetivo = encolados.sum();
+        try {
+            while (escritos < objetivo && escritor.isAlive()) {
+                wait(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Escribe los rechazos pendientes y cierra el archivo de rechazos. Los rechazos que se
+     * registren después solo se cuentan y retienen.
+     */
+    @Override
+    public void close() {
+        if (pendientes == null || cerrado) {
+            return;
+        }
+
+        cerrado = true;
+        try {
+            pendientes.put(FIN);
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.salmonttcorp.service;
+
+import com.salmonttcorp.model.CentroCultivo;
+import com.salmonttcorp.model.Direccion;
+import com.salmonttcorp.model.Producto;
+import com.salmonttcorp.model.Ruta;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de estrés de {@link CentroServiceConcurrente}: varios hilos escriben
+ * (agregar, actualizar, eliminar) mientras otros consultan, y cada estado publicado debe tener
+ * sus índices consistentes con su lista de centros.
+ * <p>
+ * Los lectores verifican cada {@link CentroServiceConcurrente#instantanea()} que toman; los
+ * escritores verifican además el estado vigente al terminar cada ronda.
+ * <p>
+ * Autor: Víctor Valenzuela
+ */
+class CentroServiceConcurrenteTest {
+
+    private static final String[] COMUNAS = {"Quellón", "Ancud", "Castro", "Calbuco", "Puerto Montt"};
+    private static final int INICIALES = 2_000;
+    private static final int ESCRITORES = 2;
+    private static final int LECTORES = 3;
+    private static final int RONDAS = 40;
+    private static final int OPERACIONES_POR_RONDA = 25;
+    private static final int PRODUCCION_MINIMA = 500;
+    private static final int MAYORES = 50;
+
+    @Test
+    @Timeout(value = 120, unit = TimeUnit.SECONDS)
+    void indicesConsistentesDuranteEscrituras() throws Exception {
+        List<CentroCultivo> iniciales = new ArrayList<>();
+        for (int i = 0; i < INICIALES; i++) {
+            iniciales.add(centro("Inicial " + i, i));
+        }
+        CentroServiceConcurrente service = new CentroServiceConcurrente(iniciales);
+
+        ConcurrentLinkedQueue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        AtomicBoolean escribiendo = new AtomicBoolean(true);
+        CountDownLatch partida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(ESCRITORES + LECTORES);
+
+        try {
+            List<Future<Set<String>>> escritores = new ArrayList<>();
+            for (int e = 0; e < ESCRITORES; e++) {
+                int escritor = e;
+                escritores.add(hilos.submit(() -> {
+                    partida.await();
+                    return escribir(service, escritor);
+                }));
+            }
+
+            List<Future<Integer>> lectores = new ArrayList<>();
+            for (int l = 0; l < LECTORES; l++) {
+                lectores.add(hilos.submit(() -> {
+                    partida.await();
+                    int verificaciones = 0;
+                    while (escribiendo.get()) {
+                        try {
+                            verificar(service.instantanea());
+                            verificaciones++;
+                        } catch (Throwable t) {
+                            errores.add(t);
+                            return verificaciones;
+                        }
+                    }
+                    return verificaciones;
+                }));
+            }
+
+            partida.countDown();
+
+            // Nombres que cada escritor dejó agregados, además de los iniciales
+            Set<String> esperados = new HashSet<>();
+            for (CentroCultivo c : iniciales) {
+                esperados.add(c.getNombreCentro());
+            }
+            try {
+                for (Future<Set<String>> escritor : escritores) {
+                    esperados.addAll(escritor.get());
+                }
+            } finally {
+                escribiendo.set(false);
+            }
+
+            for (Future<Integer> lector : lectores) {
+                assertTrue(lector.get() > 0, "Cada lector debe verificar al menos un estado.");
+            }
+
+            if (!errores.isEmpty()) {
+                throw new AssertionError("Estado inconsistente durante las escrituras", errores.peek());
+            }
+
+            CentroService fin = service.instantanea();
+            verificar(fin);
+            Set<String> nombres = new HashSet<>();
+            for (CentroCultivo c : fin.centros()) {
+                nombres.add(c.getNombreCentro());
+            }
+            assertEquals(esperados, nombres);
+
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    /**
+     * Cada ronda agrega centros nuevos, actualiza la producción de algunos y elimina otros, y
+     * al final verifica el estado vigente.
+     *
+     * @return nombres de los centros que este escritor dejó agregados
+     */
+    private static Set<String> escribir(CentroServiceConcurrente service, int escritor) {
+        Set<String> agregados = new HashSet<>();
+        int siguiente = 0;
+
+        for (int ronda = 0; ronda < RONDAS; ronda++) {
+            for (int op = 0; op < OPERACIONES_POR_RONDA; op++) {
+                String nombre = "Escritor " + escritor + " centro " + siguiente;
+                assertTrue(service.agregar(centro(nombre, siguiente * 37 + escritor)));
+                agregados.add(nombre);
+                siguiente++;
+
+                // Actualiza uno propio y uno de los iniciales, que ningún otro escritor elimina
+                String propio = "Escritor " + escritor + " centro " + (siguiente / 2);
+                if (agregados.contains(propio)) {
+                    assertTrue(service.actualizar(centro(propio, (ronda * 131 + op) % 1_000)));
+                }
+                String inicial = "Inicial " + ((ronda * OPERACIONES_POR_RONDA + op) * (escritor + 1) % INICIALES);
+                assertTrue(service.actualizar(centro(inicial, (op * 53 + ronda) % 1_000)));
+
+                if (op % 3 == 0) {
+                    String eliminado = "Escritor " + escritor + " centro " + (siguiente / 3);
+                    if (agregados.remove(eliminado)) {
+                        assertTrue(service.eliminar(eliminado));
+                    }
+                }
+            }
+
+            verificar(service.instantanea());
+        }
+
+        return agregados;
+    }
+
+    /**
+     * Compara las consultas indexadas de un estado con recorridos de su propia lista.
+     */
+    private static void verificar(CentroService estado) {
+        List<CentroCultivo> centros = estado.centros();
+
+        long produccion = 0;
+        int sobreMinimo = 0;
+        int maxima = Integer.MIN_VALUE;
+        int[] porComuna = new int[COMUNAS.length];
+        for (CentroCultivo c : centros) {
+            produccion += c.getProduccion();
+            maxima = Math.max(maxima, c.getProduccion());
+            if (c.getProduccion() >= PRODUCCION_MINIMA) {
+                sobreMinimo++;
+            }
+            for (int i = 0; i < COMUNAS.length; i++) {
+                if (COMUNAS[i].equals(c.getDireccion().getComuna())) {
+                    porComuna[i]++;
+                }
+            }
+        }
+
+        assertEquals(produccion, estado.produccionTotal(), "produccionTotal");
+        for (int i = 0; i < COMUNAS.length; i++) {
+            assertEquals(porComuna[i], estado.buscarPorComuna(COMUNAS[i]).size(), "buscarPorComuna " + COMUNAS[i]);
+        }
+
+        List<CentroCultivo> filtrados = estado.filtrarPorProduccionMinima(PRODUCCION_MINIMA);
+        assertEquals(sobreMinimo, filtrados.size(), "filtrarPorProduccionMinima");
+        for (CentroCultivo c : filtrados) {
+            assertTrue(c.getProduccion() >= PRODUCCION_MINIMA, "filtrarPorProduccionMinima entregó " + c.getProduccion());
+        }
+
+        List<CentroCultivo> mayores = estado.mayoresProductores(MAYORES);
+        assertEquals(Math.min(MAYORES, centros.size()), mayores.size(), "mayoresProductores");
+        if (!mayores.isEmpty()) {
+            assertEquals(maxima, mayores.get(0).getProduccion(), "mayoresProductores");
+        }
+        for (int i = 1; i < mayores.size(); i++) {
+            assertTrue(mayores.get(i).getProduccion() <= mayores.get(i - 1).getProduccion(),
+                    "mayoresProductores no está ordenado por producción");
+        }
+    }
+
+    private static CentroCultivo centro(String nombre, int semilla) {
+        int produccion = Math.floorMod(semilla * 7919, 1_000);
+        String comuna = COMUNAS[Math.floorMod(semilla, COMUNAS.length)];
+        Direccion direccion = new Direccion("Costanera", String.valueOf(semilla), comuna, "Los Lagos");
+        return new CentroCultivo(nombre, new Producto("Salmón", "Fresco", 6_500),
+                produccion, direccion, new Ruta("Ruta " + semilla, "Responsable", "2025-03-10"));
+    }
+}